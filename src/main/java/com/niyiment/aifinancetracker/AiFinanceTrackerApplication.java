@@ -2,8 +2,10 @@ package com.niyiment.aifinancetracker;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class AiFinanceTrackerApplication {
 
     public static void main(String[] args) {
@@ -1,6 +1,11 @@
 package com.niyiment.aifinancetracker.config;
 
 import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.CaffeineSpec;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.CachingConfigurer;
 import org.springframework.cache.caffeine.CaffeineCacheManager;
@@ -8,35 +13,113 @@ import org.springframework.cache.interceptor.*;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
-import java.util.concurrent.TimeUnit;
+import java.time.Duration;
 
 @Configuration
 public class CacheConfig implements CachingConfigurer {
     public static final String TRANSACTION_CACHE = "transactions";
     public static final String USER_STATS_CACHE = "userStats";
-    public static final String FRAUD_ALERTS_CACHE = "fraudAlerts";
     public static final String EMBEDDINGS_CACHE = "embeddings";
 
+    // Keys in user-scoped regions start with the user id and this separator, so writes can evict one user
+    public static final String USER_KEY_SEPARATOR = ":";
+
+    // Rough per-entry cost of the key string, the float[] header and the cache node
+    private static final int EMBEDDING_ENTRY_OVERHEAD_BYTES = 96;
+
+    private final ObjectProvider<CacheRegionLoader> regionLoaders;
+    private final UserScopedCaffeineCache.KeyIndex userStatsKeys = new UserScopedCaffeineCache.KeyIndex();
+
+    @Value("${finance.cache.regions.transactions}")
+    private String transactionsSpec;
+
+    @Value("${finance.cache.regions.user-stats}")
+    private String userStatsSpec;
+
+    @Value("${finance.ai.embedding.query-cache.max-weight-bytes}")
+    private long embeddingCacheMaxWeightBytes;
+
+    @Value("${finance.ai.embedding.query-cache.expire-after-access}")
+    private Duration embeddingCacheExpireAfterAccess;
+
+    public CacheConfig(ObjectProvider<CacheRegionLoader> regionLoaders) {
+        this.regionLoaders = regionLoaders;
+    }
+
     @Bean
     @Override
     public CacheManager cacheManager() {
         CaffeineCacheManager cacheManager = new CaffeineCacheManager(
                 TRANSACTION_CACHE,
                 USER_STATS_CACHE,
-                FRAUD_ALERTS_CACHE,
                 EMBEDDINGS_CACHE
-        );
+        ) {
+            @Override
+            protected Cache adaptCaffeineCache(String name, com.github.benmanes.caffeine.cache.Cache<Object, Object> cache) {
+                return USER_STATS_CACHE.equals(name)
+                        ? new UserScopedCaffeineCache(name, cache, isAllowNullValues(), userStatsKeys)
+                        : super.adaptCaffeineCache(name, cache);
+            }
+        };
 
-        cacheManager.setCaffeine(caffeineCacheBuilder());
+        cacheManager.registerCustomCache(TRANSACTION_CACHE, regionCache(TRANSACTION_CACHE, transactionsSpec, null));
+        cacheManager.registerCustomCache(USER_STATS_CACHE, regionCache(USER_STATS_CACHE, userStatsSpec, userStatsKeys));
+        cacheManager.registerCustomCache(EMBEDDINGS_CACHE, embeddingsCache());
 
         return cacheManager;
     }
 
-    private Caffeine<Object, Object> caffeineCacheBuilder() {
+    // User-scoped keys are "userId:kind:days"; the user id itself may contain the separator
+    public static String userOfKey(Object key) {
+        if (!(key instanceof String value)) {
+            return null;
+        }
+        int daysAt = value.lastIndexOf(USER_KEY_SEPARATOR);
+        int kindAt = daysAt > 0 ? value.lastIndexOf(USER_KEY_SEPARATOR, daysAt - 1) : -1;
+        return kindAt >= 0 ? value.substring(0, kindAt) : null;
+    }
+
+    // Each region is sized and expired by its own Caffeine spec; stats are always recorded so
+    // cache.gets, cache.evictions and cache.size are published per region. User-scoped regions pass
+    // their key index, which follows loads and size or expiry evictions the Spring wrapper never sees
+    private com.github.benmanes.caffeine.cache.Cache<Object, Object> regionCache(
+            String region, String spec, UserScopedCaffeineCache.KeyIndex keyIndex) {
+        CaffeineSpec caffeineSpec = CaffeineSpec.parse(spec);
+        Caffeine<Object, Object> builder = Caffeine.from(caffeineSpec).recordStats();
+        if (keyIndex != null) {
+            builder = builder.evictionListener((Object key, Object value, RemovalCause cause) -> keyIndex.forget(key));
+        }
+        if (!spec.contains("refreshAfterWrite")) {
+            return builder.build();
+        }
+
+        // Loaders are looked up on first use; they are services that must not be created with the cache manager
+        return builder.build(key -> {
+            Object value = regionLoaders.orderedStream()
+                    .filter(loader -> loader.region().equals(region))
+                    .findFirst()
+                    .orElseThrow(() -> new IllegalStateException(
+                            "Cache region " + region + " uses refreshAfterWrite but has no CacheRegionLoader"))
+                    .load(key);
+            if (keyIndex != null) {
+                keyIndex.record(key);
+            }
+            return value;
+        });
+    }
+
+    // Query embeddings are bounded by memory rather than entry count, since vector sizes depend on the model
+    private com.github.benmanes.caffeine.cache.Cache<Object, Object> embeddingsCache() {
         return Caffeine.newBuilder()
-                .maximumSize(100)
-                .expireAfterWrite(10, TimeUnit.MINUTES)
-                .recordStats();
+                .maximumWeight(embeddingCacheMaxWeightBytes)
+                .weigher((Object key, Object value) -> {
+                    int keyBytes = key.toString().length() * 2;
+                    int vectorBytes = value instanceof float[] vector ? vector.length * Float.BYTES : 0;
+                    return EMBEDDING_ENTRY_OVERHEAD_BYTES + keyBytes + vectorBytes;
+                })
+                .expireAfterAccess(embeddingCacheExpireAfterAccess)
+                .recordStats()
+                .build();
     }
 
     @Bean
@@ -0,0 +1,10 @@
+package com.niyiment.aifinancetracker.config;
+
+// Recomputes entries of one cache region from their key. Regions with refreshAfterWrite need one, since
+// Caffeine reloads the entry in the background while it keeps serving the old value
+public interface CacheRegionLoader {
+
+    String region();
+
+    Object load(Object key);
+}
@@ -0,0 +1,67 @@
+package com.niyiment.aifinancetracker.config;
+
+import com.niyiment.aifinancetracker.service.ai.fake.FakeChatModel;
+import com.niyiment.aifinancetracker.service.ai.fake.FakeEmbeddingModel;
+import com.niyiment.aifinancetracker.service.ai.fake.SimulatedLatency;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+
+import java.time.Duration;
+
+// Same beans as AiConfig, backed by deterministic in-process models so the whole pipeline can be
+// load-tested without Ollama or OpenAI. Enable with --spring.profiles.active=fake-ai
+@Configuration
+@Profile(FakeAiConfig.PROFILE)
+public class FakeAiConfig {
+    public static final String PROFILE = "fake-ai";
+
+    @Value("${finance.ai.fake.stream-chunk-delay}")
+    private Duration streamChunkDelay;
+
+    @Value("${spring.ai.vectorstore.pgvector.dimensions}")
+    private int dimensions;
+
+    @Bean
+    @Qualifier("ollamaChatClient")
+    public ChatClient ollamChatClient(
+            @Value("${finance.ai.fake.ollama.median-latency}") Duration median,
+            @Value("${finance.ai.fake.ollama.p99-latency}") Duration p99,
+            @Value("${finance.ai.fake.ollama.failure-rate}") double failureRate) {
+        SimulatedLatency latency = new SimulatedLatency("ollama", median, p99, failureRate);
+        return ChatClient.builder(new FakeChatModel("ollama", latency, streamChunkDelay)).build();
+    }
+
+    @Bean
+    @Qualifier("openaiChatClient")
+    public ChatClient openaiChatClient(
+            @Value("${finance.ai.fake.openai.median-latency}") Duration median,
+            @Value("${finance.ai.fake.openai.p99-latency}") Duration p99,
+            @Value("${finance.ai.fake.openai.failure-rate}") double failureRate) {
+        SimulatedLatency latency = new SimulatedLatency("openai", median, p99, failureRate);
+        return ChatClient.builder(new FakeChatModel("openai", latency, streamChunkDelay)).build();
+    }
+
+    @Bean
+    @Primary
+    public EmbeddingModel embeddingModel(
+            @Value("${finance.ai.fake.embedding.median-latency}") Duration median,
+            @Value("${finance.ai.fake.embedding.p99-latency}") Duration p99,
+            @Value("${finance.ai.fake.embedding.failure-rate}") double failureRate) {
+        return new FakeEmbeddingModel(dimensions, new SimulatedLatency("embedding", median, p99, failureRate));
+    }
+
+    @Bean
+    @Qualifier("ollamaEmbedding")
+    public EmbeddingModel ollamaEmbedding(
+            @Value("${finance.ai.fake.embedding.median-latency}") Duration median,
+            @Value("${finance.ai.fake.embedding.p99-latency}") Duration p99,
+            @Value("${finance.ai.fake.embedding.failure-rate}") double failureRate) {
+        return new FakeEmbeddingModel(dimensions, new SimulatedLatency("embedding", median, p99, failureRate));
+    }
+}
@@ -1,13 +1,22 @@
 package com.niyiment.aifinancetracker.config;
 
 import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.common.TopicPartition;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 import org.springframework.kafka.config.TopicBuilder;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
+import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.util.backoff.FixedBackOff;
 
 @Configuration
 public class KafkaConfig {
+    public static final String FRAUD_BATCH_CONTAINER_FACTORY = "fraudBatchListenerContainerFactory";
     
     @Value("${finance.kafka.topics.transaction-created}")
     private String transactionCreatedTopic;
@@ -15,10 +24,16 @@ public class KafkaConfig {
     @Value("${finance.kafka.topics.fraud-detected}")
     private String fraudDetectedTopic;
     
+    @Value("${finance.kafka.topics.transaction-created-dlt}")
+    private String transactionCreatedDltTopic;
+    
+    @Value("${finance.kafka.partitions}")
+    private int partitions;
+    
     @Bean
     public NewTopic transactionCreatedTopic() {
         return TopicBuilder.name(transactionCreatedTopic)
-            .partitions(3)
+            .partitions(partitions)
             .replicas(1)
             .build();
     }
@@ -26,8 +41,35 @@ public class KafkaConfig {
     @Bean
     public NewTopic fraudDetectedTopic() {
         return TopicBuilder.name(fraudDetectedTopic)
-            .partitions(3)
+            .partitions(partitions)
             .replicas(1)
             .build();
     }
-}
\ No newline at end of file
+    
+    // Same partition count as the source topic: the recoverer keeps each record's partition
+    @Bean
+    public NewTopic transactionCreatedDltTopic() {
+        return TopicBuilder.name(transactionCreatedDltTopic)
+            .partitions(partitions)
+            .replicas(1)
+            .build();
+    }
+    
+    @Bean(FRAUD_BATCH_CONTAINER_FACTORY)
+    public ConcurrentKafkaListenerContainerFactory<Object, Object> fraudBatchListenerContainerFactory(
+            ConsumerFactory<Object, Object> consumerFactory,
+            KafkaTemplate<String, Object> kafkaTemplate) {
+        ConcurrentKafkaListenerContainerFactory<Object, Object> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(consumerFactory);
+        factory.setBatchListener(true);
+        // One consumer per partition; more would sit idle
+        factory.setConcurrency(partitions);
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.BATCH);
+        // Records that still fail after the retries go to the dead-letter topic, so skipped fraud checks
+        // can be replayed instead of being dropped
+        DeadLetterPublishingRecoverer recoverer = new DeadLetterPublishingRecoverer(kafkaTemplate,
+                (record, ex) -> new TopicPartition(transactionCreatedDltTopic, record.partition()));
+        factory.setCommonErrorHandler(new DefaultErrorHandler(recoverer, new FixedBackOff(1000L, 3)));
+        return factory;
+    }
+}
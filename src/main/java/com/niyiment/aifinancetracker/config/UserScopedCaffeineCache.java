@@ -0,0 +1,107 @@
+package com.niyiment.aifinancetracker.config;
+
+import org.springframework.cache.caffeine.CaffeineCache;
+
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+// A Caffeine region whose "userId:kind:days" keys are also indexed by user, so evicting one user touches
+// only that user's entries instead of scanning the region. A key is indexed after its entry is written and
+// dropped when the entry is evicted or invalidated; a stale index entry only costs a no-op invalidation
+public class UserScopedCaffeineCache extends CaffeineCache {
+    private final KeyIndex keys;
+
+    UserScopedCaffeineCache(String name, com.github.benmanes.caffeine.cache.Cache<Object, Object> cache,
+                            boolean allowNullValues, KeyIndex keys) {
+        super(name, cache, allowNullValues);
+        this.keys = keys;
+    }
+
+    public void evictUser(String userId) {
+        Set<Object> userKeys = keys.removeUser(userId);
+        if (userKeys != null) {
+            getNativeCache().invalidateAll(userKeys);
+        }
+    }
+
+    @Override
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        T value = super.get(key, valueLoader);
+        keys.record(key);
+        return value;
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        super.put(key, value);
+        keys.record(key);
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        ValueWrapper existing = super.putIfAbsent(key, value);
+        keys.record(key);
+        return existing;
+    }
+
+    @Override
+    public void evict(Object key) {
+        keys.forget(key);
+        super.evict(key);
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        keys.forget(key);
+        return super.evictIfPresent(key);
+    }
+
+    @Override
+    public void clear() {
+        keys.clear();
+        super.clear();
+    }
+
+    @Override
+    public boolean invalidate() {
+        keys.clear();
+        return super.invalidate();
+    }
+
+    // Shared with the native cache's loader and eviction listener, which exist before this wrapper does
+    static final class KeyIndex {
+        private final ConcurrentMap<String, Set<Object>> keysByUser = new ConcurrentHashMap<>();
+
+        void record(Object key) {
+            String user = CacheConfig.userOfKey(key);
+            if (user != null) {
+                // Added inside compute so a concurrent removeUser cannot detach the set mid-add
+                keysByUser.compute(user, (ignored, userKeys) -> {
+                    Set<Object> updated = userKeys != null ? userKeys : ConcurrentHashMap.newKeySet();
+                    updated.add(key);
+                    return updated;
+                });
+            }
+        }
+
+        void forget(Object key) {
+            String user = CacheConfig.userOfKey(key);
+            if (user != null) {
+                keysByUser.computeIfPresent(user, (ignored, userKeys) -> {
+                    userKeys.remove(key);
+                    return userKeys.isEmpty() ? null : userKeys;
+                });
+            }
+        }
+
+        Set<Object> removeUser(String userId) {
+            return keysByUser.remove(userId);
+        }
+
+        void clear() {
+            keysByUser.clear();
+        }
+    }
+}
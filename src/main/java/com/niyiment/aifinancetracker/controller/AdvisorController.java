@@ -0,0 +1,94 @@
+package com.niyiment.aifinancetracker.controller;
+
+import com.niyiment.aifinancetracker.dto.request.AdvisorQueryRequest;
+import com.niyiment.aifinancetracker.dto.response.AdvisorResponse;
+import com.niyiment.aifinancetracker.service.ai.FinancialAdvisorService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+@Slf4j
+@RestController
+@RequestMapping("/api/v1/advisor")
+@RequiredArgsConstructor
+public class AdvisorController {
+    private final FinancialAdvisorService advisorService;
+
+    // Returning a future releases the servlet thread while the LLM call is in flight
+    @PostMapping
+    public CompletableFuture<AdvisorResponse> getAdvice(@RequestBody AdvisorQueryRequest request) {
+        return advisorService.getFinancialAdviceAsync(request);
+    }
+
+    // Events: "documents" once, "token" per streamed chunk, then "done" or "error"
+    @PostMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamAdvice(@RequestBody AdvisorQueryRequest request) {
+        SseEmitter emitter = new SseEmitter();
+
+        advisorService.streamFinancialAdvice(request, new FinancialAdvisorService.AdviceStreamHandler() {
+            @Override
+            public void onDocuments(List<String> relevantDocuments) {
+                send(emitter, "documents", relevantDocuments);
+            }
+
+            @Override
+            public void onToken(String token) {
+                send(emitter, "token", token);
+            }
+        }).whenComplete((advice, error) -> {
+            if (error == null) {
+                complete(emitter);
+                return;
+            }
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            if (cause instanceof CancellationException) {
+                // The client disconnected mid-stream; there is nobody left to tell
+                log.debug("Advice stream cancelled: {}", cause.getMessage());
+                emitter.completeWithError(cause);
+                return;
+            }
+            log.warn("Streaming advice failed: {}", cause.getMessage());
+            try {
+                emitter.send(SseEmitter.event().name("error").data(Map.of("message", "Failed to generate financial advice")));
+                emitter.complete();
+            } catch (IOException | IllegalStateException e) {
+                // The client is already gone
+                emitter.completeWithError(error);
+            }
+        });
+
+        return emitter;
+    }
+
+    // A failed send means the client disconnected; throwing cancels the upstream generation without
+    // counting it as a provider failure
+    private void send(SseEmitter emitter, String event, Object data) {
+        try {
+            emitter.send(SseEmitter.event().name(event).data(data));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void complete(SseEmitter emitter) {
+        try {
+            emitter.send(SseEmitter.event().name("done").data(""));
+            emitter.complete();
+        } catch (IOException | IllegalStateException e) {
+            emitter.completeWithError(e);
+        }
+    }
+}
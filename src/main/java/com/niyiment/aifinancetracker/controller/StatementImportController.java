@@ -0,0 +1,52 @@
+package com.niyiment.aifinancetracker.controller;
+
+import com.niyiment.aifinancetracker.dto.response.ImportJobResponse;
+import com.niyiment.aifinancetracker.service.importer.StatementFormat;
+import com.niyiment.aifinancetracker.service.importer.StatementImportService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RequestPart;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.multipart.MultipartFile;
+
+@RestController
+@RequestMapping("/api/v1/imports")
+@RequiredArgsConstructor
+public class StatementImportController {
+    private final StatementImportService importService;
+
+    @PostMapping(consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    @ResponseStatus(HttpStatus.ACCEPTED)
+    public ImportJobResponse submitImport(
+            @RequestPart("file") MultipartFile file,
+            @RequestParam String userId,
+            @RequestParam(required = false) StatementFormat format) {
+        return importService.submit(file, userId, format);
+    }
+
+    @GetMapping("/{jobId}")
+    public ImportJobResponse getImportJob(@PathVariable String jobId) {
+        return importService.getJob(jobId);
+    }
+
+    @GetMapping("/{jobId}/rejects")
+    public ResponseEntity<Resource> getRejectReport(@PathVariable String jobId) {
+        Resource report = new FileSystemResource(importService.getRejectReport(jobId));
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("text/csv"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + jobId + "-rejects.csv\"")
+                .body(report);
+    }
+}
@@ -0,0 +1,89 @@
+package com.niyiment.aifinancetracker.controller;
+
+import com.niyiment.aifinancetracker.dto.request.BulkTransactionRequest;
+import com.niyiment.aifinancetracker.dto.request.TransactionRequest;
+import com.niyiment.aifinancetracker.dto.response.BulkTransactionResponse;
+import com.niyiment.aifinancetracker.dto.response.TransactionPageResponse;
+import com.niyiment.aifinancetracker.dto.response.TransactionResponse;
+import com.niyiment.aifinancetracker.exception.InvalidTransactionException;
+import com.niyiment.aifinancetracker.service.command.TransactionCommandService;
+import com.niyiment.aifinancetracker.service.query.ExportFormat;
+import com.niyiment.aifinancetracker.service.query.TransactionExportService;
+import com.niyiment.aifinancetracker.service.query.TransactionQueryService;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.zip.GZIPOutputStream;
+
+@RestController
+@RequestMapping("/api/v1/transactions")
+@RequiredArgsConstructor
+public class TransactionController {
+    private final TransactionCommandService commandService;
+    private final TransactionQueryService queryService;
+    private final TransactionExportService exportService;
+
+    // Cursor-paginated listing, newest first; nextCursor is omitted on the last page
+    @GetMapping
+    public TransactionPageResponse getTransactions(
+            @RequestParam String userId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        return queryService.getTransactionPage(userId, cursor, limit);
+    }
+
+    // Written synchronously to the response so a long export is not cut off by the async request timeout
+    @GetMapping("/export")
+    public void exportTransactions(
+            @RequestParam String userId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(defaultValue = "NDJSON") ExportFormat format,
+            @RequestParam(defaultValue = "false") boolean gzip,
+            HttpServletResponse response) throws IOException {
+        // Checked before any header is set, so the error is still rendered as a normal JSON response
+        if (from.isAfter(to)) {
+            throw new InvalidTransactionException("Export start date " + from + " is after end date " + to);
+        }
+
+        response.setContentType(format.contentType());
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                "attachment; filename=\"transactions-" + userId + "." + format.extension() + "\"");
+
+        if (!gzip) {
+            exportService.export(userId, from, to, format, response.getOutputStream());
+            return;
+        }
+        response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+        try (GZIPOutputStream out = new GZIPOutputStream(response.getOutputStream(), 64 * 1024)) {
+            exportService.export(userId, from, to, format, out);
+        }
+    }
+
+    @PostMapping
+    @ResponseStatus(HttpStatus.CREATED)
+    public TransactionResponse createTransaction(@Valid @RequestBody TransactionRequest request) {
+        return commandService.createTransaction(request);
+    }
+
+    @PostMapping("/bulk")
+    @ResponseStatus(HttpStatus.CREATED)
+    public BulkTransactionResponse createTransactions(@Valid @RequestBody BulkTransactionRequest request) {
+        return commandService.createTransactions(request.transactions());
+    }
+}
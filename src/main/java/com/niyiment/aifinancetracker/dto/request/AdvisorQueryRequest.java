@@ -4,13 +4,18 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 
+import java.util.List;
 
 @Builder
 public record AdvisorQueryRequest(
         String userId,
         String query,
         LlmProvider provider,
-        Boolean includeDocumentContext
+        Boolean includeDocumentContext,
+        // Restricts document context to these source documents; empty searches all of them
+        List<String> documentSources,
+        // Overrides the configured hnsw ef_search for this request: higher is more accurate but slower
+        Integer efSearch
 ) {
 
     public enum LlmProvider{
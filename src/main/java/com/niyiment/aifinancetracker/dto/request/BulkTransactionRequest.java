@@ -0,0 +1,12 @@
+package com.niyiment.aifinancetracker.dto.request;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+
+import java.util.List;
+
+public record BulkTransactionRequest(
+
+    @NotEmpty(message = "At least one transaction is required")
+    List<@Valid TransactionRequest> transactions
+) {}
@@ -0,0 +1,12 @@
+package com.niyiment.aifinancetracker.dto.response;
+
+import lombok.Builder;
+
+import java.util.List;
+
+@Builder
+public record BulkTransactionResponse(
+    int created,
+    List<Long> transactionIds,
+    long elapsedMillis
+) {}
@@ -0,0 +1,23 @@
+package com.niyiment.aifinancetracker.dto.response;
+
+import com.niyiment.aifinancetracker.service.importer.ImportJob;
+import com.niyiment.aifinancetracker.service.importer.StatementFormat;
+import lombok.Builder;
+
+import java.time.LocalDateTime;
+
+@Builder
+public record ImportJobResponse(
+    String jobId,
+    String userId,
+    String fileName,
+    StatementFormat format,
+    ImportJob.ImportStatus status,
+    long rowsRead,
+    long rowsImported,
+    long rowsRejected,
+    String failureReason,
+    LocalDateTime createdAt,
+    LocalDateTime startedAt,
+    LocalDateTime completedAt
+) {}
@@ -0,0 +1,12 @@
+package com.niyiment.aifinancetracker.dto.response;
+
+import lombok.Builder;
+
+import java.util.List;
+
+// nextCursor is null on the last page
+@Builder
+public record TransactionPageResponse(
+    List<TransactionResponse> transactions,
+    String nextCursor
+) {}
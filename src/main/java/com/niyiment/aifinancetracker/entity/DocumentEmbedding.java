@@ -21,7 +21,8 @@ import java.util.Map;
 public class DocumentEmbedding {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "document_embeddings_seq")
+    @SequenceGenerator(name = "document_embeddings_seq", sequenceName = "document_embeddings_seq", allocationSize = 50)
     private Long id;
     
     @Column(nullable = false, length = 500)
@@ -18,7 +18,8 @@ import java.time.LocalDateTime;
 public class FraudAlert {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "fraud_alerts_seq")
+    @SequenceGenerator(name = "fraud_alerts_seq", sequenceName = "fraud_alerts_seq", allocationSize = 50)
     private Long id;
     
     @ManyToOne(fetch = FetchType.LAZY)
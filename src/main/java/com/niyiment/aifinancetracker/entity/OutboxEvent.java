@@ -0,0 +1,55 @@
+package com.niyiment.aifinancetracker.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Entity
+// Schema and the partial index the relay polls are in db/migration/V3__outbox_events.sql
+@Table(name = "outbox_events")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OutboxEvent {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "outbox_events_seq")
+    @SequenceGenerator(name = "outbox_events_seq", sequenceName = "outbox_events_seq", allocationSize = 50)
+    private Long id;
+    
+    @Column(nullable = false)
+    private String topic;
+    
+    private String messageKey;
+    
+    @Column(nullable = false)
+    private String eventType;
+    
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String payload;
+    
+    @Column(nullable = false)
+    @Builder.Default
+    private int attempts = 0;
+    
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+    
+    private LocalDateTime sentAt;
+    
+    // Lease held by the relay instance currently sending this event
+    private LocalDateTime claimedUntil;
+    
+    // Set once attempts reaches finance.outbox.max-attempts; parked events are no longer relayed
+    private LocalDateTime parkedAt;
+    
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+}
@@ -0,0 +1,50 @@
+package com.niyiment.aifinancetracker.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+// Count and amount of one user's transactions per day, type and category. Maintained incrementally by
+// TransactionRollupService and rebuilt from transactions by TransactionRollupReconciler
+@Entity
+// Schema, the upsert key and the per-user index are in db/migration/V4__transaction_daily_rollups.sql
+@Table(name = "transaction_daily_rollups")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransactionDailyRollup {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "transaction_daily_rollups_seq")
+    @SequenceGenerator(name = "transaction_daily_rollups_seq", sequenceName = "transaction_daily_rollups_seq", allocationSize = 50)
+    private Long id;
+    
+    @Column(nullable = false)
+    private String userId;
+    
+    @Column(nullable = false)
+    private LocalDate day;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private Transaction.TransactionType transactionType;
+    
+    @Column(nullable = false, length = 100)
+    private String category;
+    
+    @Column(nullable = false)
+    private long transactionCount;
+    
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal totalAmount;
+    
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+}
@@ -2,6 +2,7 @@ package com.niyiment.aifinancetracker.exception;
 
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
@@ -78,9 +79,48 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
     }
     
+    @ExceptionHandler(LlmCapacityException.class)
+    public ResponseEntity<ErrorResponse> handleLlmCapacity(
+            LlmCapacityException ex,
+            HttpServletRequest request) {
+        
+        log.warn("LLM capacity exceeded: {}", ex.getMessage());
+        
+        ErrorResponse error = ErrorResponse.builder()
+            .message("The AI service is busy, please retry later")
+            .status(HttpStatus.SERVICE_UNAVAILABLE.value())
+            .timestamp(LocalDateTime.now())
+            .path(request.getRequestURI())
+            .errors(List.of(ex.getMessage()))
+            .build();
+        
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(error);
+    }
+    
+    @ExceptionHandler(ImportQueueFullException.class)
+    public ResponseEntity<ErrorResponse> handleImportQueueFull(
+            ImportQueueFullException ex,
+            HttpServletRequest request) {
+        
+        log.warn("Statement import rejected: {}", ex.getMessage());
+        
+        ErrorResponse error = ErrorResponse.builder()
+            .message("The import queue is full, please retry later")
+            .status(HttpStatus.SERVICE_UNAVAILABLE.value())
+            .timestamp(LocalDateTime.now())
+            .path(request.getRequestURI())
+            .errors(List.of(ex.getMessage()))
+            .build();
+        
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+            .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfter().toSeconds()))
+            .body(error);
+    }
+    
     @ExceptionHandler({LlmProcessingException.class, 
                        DocumentProcessingException.class, 
-                       FraudDetectionException.class})
+                       FraudDetectionException.class,
+                       StatementImportException.class})
     public ResponseEntity<ErrorResponse> handleProcessingExceptions(
             RuntimeException ex,
             HttpServletRequest request) {
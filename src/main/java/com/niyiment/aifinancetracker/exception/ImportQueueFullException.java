@@ -0,0 +1,17 @@
+package com.niyiment.aifinancetracker.exception;
+
+import java.time.Duration;
+
+// Back-pressure from the statement import queue; the client should retry after the given delay
+public class ImportQueueFullException extends RuntimeException {
+    private final Duration retryAfter;
+
+    public ImportQueueFullException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
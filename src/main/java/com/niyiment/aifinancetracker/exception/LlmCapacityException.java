@@ -0,0 +1,7 @@
+package com.niyiment.aifinancetracker.exception;
+
+public class LlmCapacityException extends RuntimeException {
+    public LlmCapacityException(String message) {
+        super(message);
+    }
+}
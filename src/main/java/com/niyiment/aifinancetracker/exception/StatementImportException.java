@@ -0,0 +1,11 @@
+package com.niyiment.aifinancetracker.exception;
+
+public class StatementImportException extends RuntimeException {
+    public StatementImportException(String message) {
+        super(message);
+    }
+
+    public StatementImportException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,35 @@
+package com.niyiment.aifinancetracker.health;
+
+import com.niyiment.aifinancetracker.service.ai.DocumentIndexer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.stereotype.Component;
+
+@Component("documentIndex")
+@RequiredArgsConstructor
+public class DocumentIndexHealthIndicator implements HealthIndicator {
+    public static final Status INDEXING = new Status("INDEXING", "Knowledge base is still being indexed");
+
+    private final DocumentIndexer documentIndexer;
+
+    @Override
+    public Health health() {
+        DocumentIndexer.IndexProgress progress = documentIndexer.progress();
+
+        Health.Builder builder = switch (progress.state()) {
+            case READY, DEGRADED -> Health.up();
+            case PENDING, INDEXING -> Health.status(INDEXING);
+            case FAILED -> Health.down();
+        };
+
+        return builder
+                .withDetail("state", progress.state())
+                .withDetail("totalDocuments", progress.totalDocuments())
+                .withDetail("indexedDocuments", progress.indexedDocuments())
+                .withDetail("failedDocuments", progress.failedDocuments())
+                .withDetail("completeness", progress.completeness())
+                .build();
+    }
+}
@@ -0,0 +1,14 @@
+package com.niyiment.aifinancetracker.mapper;
+
+import com.niyiment.aifinancetracker.dto.response.FraudAlertResponse;
+import com.niyiment.aifinancetracker.entity.FraudAlert;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+
+@Mapper
+public interface FraudAlertMapper {
+
+    // Reading the id of the lazy transaction proxy does not load the transaction
+    @Mapping(target = "transactionId", source = "transaction.id")
+    FraudAlertResponse toResponse(FraudAlert alert);
+}
@@ -0,0 +1,33 @@
+package com.niyiment.aifinancetracker.mapper;
+
+import com.niyiment.aifinancetracker.dto.request.TransactionRequest;
+import com.niyiment.aifinancetracker.dto.response.TransactionResponse;
+import com.niyiment.aifinancetracker.entity.Transaction;
+import com.niyiment.aifinancetracker.event.TransactionCreatedEvent;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+import org.mapstruct.MappingTarget;
+
+// Generated at compile time; list reads skip it entirely and build TransactionResponse in the query
+@Mapper
+public interface TransactionMapper {
+
+    TransactionResponse toResponse(Transaction transaction);
+
+    @Mapping(target = "id", ignore = true)
+    @Mapping(target = "createdAt", ignore = true)
+    @Mapping(target = "updatedAt", ignore = true)
+    Transaction toEntity(TransactionRequest request);
+
+    // Owner and description are fixed once a transaction exists
+    @Mapping(target = "id", ignore = true)
+    @Mapping(target = "userId", ignore = true)
+    @Mapping(target = "description", ignore = true)
+    @Mapping(target = "createdAt", ignore = true)
+    @Mapping(target = "updatedAt", ignore = true)
+    void updateEntity(TransactionRequest request, @MappingTarget Transaction transaction);
+
+    @Mapping(target = "transactionId", source = "id")
+    @Mapping(target = "eventTime", expression = "java(java.time.LocalDateTime.now())")
+    TransactionCreatedEvent toEvent(Transaction transaction);
+}
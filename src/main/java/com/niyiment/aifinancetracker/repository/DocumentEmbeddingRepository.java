@@ -2,11 +2,20 @@ package com.niyiment.aifinancetracker.repository;
 
 import com.niyiment.aifinancetracker.entity.DocumentEmbedding;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.util.List;
 
-public interface DocumentEmbeddingRepository extends JpaRepository<DocumentEmbedding, Long> {
+public interface DocumentEmbeddingRepository extends JpaRepository<DocumentEmbedding, Long>,
+        DocumentEmbeddingRepositoryCustom {
     boolean existsByDocumentName(String documentName);
 
-    List<DocumentEmbedding> findSimilarDocuments(String embeddingString, int limit);
+    @Query(value = "SELECT EXISTS (SELECT 1 FROM document_embeddings " +
+           "WHERE document_name = :documentName AND metadata ->> 'fileHash' = :fileHash)",
+           nativeQuery = true)
+    boolean existsByDocumentNameAndFileHash(@Param("documentName") String documentName,
+                                            @Param("fileHash") String fileHash);
+
+    List<DocumentEmbedding> findByDocumentName(String documentName);
 }
@@ -0,0 +1,15 @@
+package com.niyiment.aifinancetracker.repository;
+
+import com.pgvector.PGvector;
+
+import java.util.List;
+
+public interface DocumentEmbeddingRepositoryCustom {
+
+    List<SimilarDocumentChunk> findSimilarChunks(PGvector queryEmbedding, int limit, int efSearch,
+                                                 SimilarityFilter filter, VectorStorage storage);
+
+    List<String> explainSimilarChunks(PGvector queryEmbedding, int limit, int efSearch, VectorStorage storage);
+
+    void createVectorIndexIfMissing(VectorStorage storage);
+}
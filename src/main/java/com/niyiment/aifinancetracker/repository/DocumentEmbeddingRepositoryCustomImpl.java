@@ -0,0 +1,141 @@
+package com.niyiment.aifinancetracker.repository;
+
+import com.pgvector.PGvector;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+// Similarity search runs over plain JDBC so the query vector is bound as a PGvector parameter and
+// the ORDER BY can use the HNSW index. SET LOCAL needs the enclosing transaction
+@Slf4j
+@RequiredArgsConstructor
+public class DocumentEmbeddingRepositoryCustomImpl implements DocumentEmbeddingRepositoryCustom {
+    // pgvector rejects hnsw.ef_search outside 1..1000
+    private static final int MAX_EF_SEARCH = 1000;
+    private static final String INDEX_NAME_PATTERN = "document_embeddings\\_%hnsw\\_idx";
+    private static final String CHUNK_COLUMNS =
+            "id, document_name, content, (metadata ->> 'chunkIndex')::int AS chunk_index";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<SimilarDocumentChunk> findSimilarChunks(PGvector queryEmbedding, int limit, int efSearch,
+                                                        SimilarityFilter filter, VectorStorage storage) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("query", queryEmbedding)
+                .addValue("limit", limit);
+
+        String where = whereClause(filter, params);
+        if (filter != null && !filter.isEmpty()) {
+            // pgvector 0.8+ keeps scanning the index until enough rows pass the filter; older versions ignore it
+            setLocal("hnsw.iterative_scan", "relaxed_order");
+        }
+
+        String sql;
+        if (storage.isExact()) {
+            sql = "SELECT " + CHUNK_COLUMNS + ", embedding <=> :query AS distance " +
+                  "FROM document_embeddings " + where +
+                  " ORDER BY embedding <=> :query LIMIT :limit";
+            setLocal("hnsw.ef_search", Integer.toString(clampEfSearch(efSearch)));
+        } else {
+            // Over-fetch on the compact index, then rescore the candidates with the full-precision vectors
+            int candidates = limit * storage.rescoreFactor();
+            params.addValue("candidates", candidates);
+            sql = "SELECT id, document_name, content, chunk_index, embedding <=> :query AS distance FROM (" +
+                  "SELECT " + CHUNK_COLUMNS + ", embedding FROM document_embeddings " + where +
+                  " ORDER BY " + storage.columnExpression() + " " + storage.distanceOperator() + " " +
+                  storage.queryExpression(":query") + " LIMIT :candidates" +
+                  ") candidates ORDER BY embedding <=> :query LIMIT :limit";
+            setLocal("hnsw.ef_search", Integer.toString(clampEfSearch(Math.max(efSearch, candidates))));
+        }
+
+        return jdbcTemplate.query(sql, params, (rs, rowNum) -> new SimilarDocumentChunk(
+                rs.getLong("id"),
+                rs.getString("document_name"),
+                rs.getString("content"),
+                (Integer) rs.getObject("chunk_index"),
+                rs.getDouble("distance")
+        ));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<String> explainSimilarChunks(PGvector queryEmbedding, int limit, int efSearch, VectorStorage storage) {
+        setLocal("hnsw.ef_search", Integer.toString(clampEfSearch(efSearch)));
+        return jdbcTemplate.queryForList("EXPLAIN SELECT id FROM document_embeddings WHERE embedding IS NOT NULL" +
+                        " ORDER BY " + storage.columnExpression() + " " + storage.distanceOperator() + " " +
+                        storage.queryExpression(":query") + " LIMIT :limit",
+                new MapSqlParameterSource()
+                        .addValue("query", queryEmbedding)
+                        .addValue("limit", limit),
+                String.class);
+    }
+
+    // Built CONCURRENTLY so ingestion can keep writing while it runs (which also rules out a surrounding
+    // transaction). Indexes of other storage modes are dropped, otherwise switching modes would keep the old
+    // graph in memory next to the new one
+    @Override
+    public void createVectorIndexIfMissing(VectorStorage storage) {
+        JdbcTemplate jdbc = jdbcTemplate.getJdbcTemplate();
+        for (String stale : jdbc.queryForList("SELECT indexname FROM pg_indexes " +
+                "WHERE tablename = 'document_embeddings' AND indexname LIKE ? AND indexname <> ?",
+                String.class, INDEX_NAME_PATTERN, storage.indexName())) {
+            log.info("Dropping vector index {} left over from another storage mode", stale);
+            jdbc.execute("DROP INDEX CONCURRENTLY IF EXISTS " + stale);
+        }
+
+        // A failed concurrent build leaves an invalid index behind that IF NOT EXISTS would keep forever
+        Boolean valid = jdbc.query("SELECT i.indisvalid FROM pg_index i JOIN pg_class c ON c.oid = i.indexrelid " +
+                "WHERE c.relname = ?", rs -> rs.next() ? rs.getBoolean(1) : null, storage.indexName());
+        if (Boolean.TRUE.equals(valid)) {
+            return;
+        }
+        if (valid != null) {
+            log.warn("Rebuilding invalid vector index {}", storage.indexName());
+            jdbc.execute("DROP INDEX CONCURRENTLY IF EXISTS " + storage.indexName());
+        }
+
+        String indexed = storage.isExact() ? "embedding" : "(" + storage.columnExpression() + ")";
+        jdbc.execute("CREATE INDEX CONCURRENTLY IF NOT EXISTS " + storage.indexName() +
+                " ON document_embeddings USING hnsw (" + indexed + " " + storage.operatorClass() + ")");
+    }
+
+    private String whereClause(SimilarityFilter filter, MapSqlParameterSource params) {
+        StringBuilder where = new StringBuilder("WHERE embedding IS NOT NULL");
+        if (filter == null || filter.isEmpty()) {
+            return where.toString();
+        }
+
+        if (filter.sources() != null && !filter.sources().isEmpty()) {
+            where.append(" AND metadata ->> 'source' IN (:sources)");
+            params.addValue("sources", filter.sources());
+        }
+        if (filter.minChunkIndex() != null) {
+            where.append(" AND (metadata ->> 'chunkIndex')::int >= :minChunkIndex");
+            params.addValue("minChunkIndex", filter.minChunkIndex());
+        }
+        if (filter.maxChunkIndex() != null) {
+            where.append(" AND (metadata ->> 'chunkIndex')::int <= :maxChunkIndex");
+            params.addValue("maxChunkIndex", filter.maxChunkIndex());
+        }
+        return where.toString();
+    }
+
+    private static int clampEfSearch(int efSearch) {
+        return Math.max(1, Math.min(efSearch, MAX_EF_SEARCH));
+    }
+
+    private void setLocal(String name, String value) {
+        jdbcTemplate.queryForObject("SELECT set_config(:name, :value, true)",
+                new MapSqlParameterSource()
+                        .addValue("name", name)
+                        .addValue("value", value),
+                String.class);
+    }
+}
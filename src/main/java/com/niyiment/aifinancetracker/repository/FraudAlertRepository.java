@@ -1,5 +1,6 @@
 package com.niyiment.aifinancetracker.repository;
 
+import com.niyiment.aifinancetracker.dto.response.FraudAlertResponse;
 import com.niyiment.aifinancetracker.entity.FraudAlert;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -16,6 +17,12 @@ public interface FraudAlertRepository extends JpaRepository<FraudAlert, Long> {
     
     Page<FraudAlert> findByUserId(String userId, Pageable pageable);
     
+    // Newest first, built as responses directly; fa.transaction.id reads the foreign key without a join
+    @Query("SELECT new com.niyiment.aifinancetracker.dto.response.FraudAlertResponse(" +
+           "fa.id, fa.transaction.id, fa.userId, fa.fraudScore, fa.reason, fa.status, fa.detectedAt, fa.resolvedAt) " +
+           "FROM FraudAlert fa WHERE fa.userId = :userId ORDER BY fa.detectedAt DESC")
+    List<FraudAlertResponse> findResponsesByUserId(@Param("userId") String userId);
+    
     List<FraudAlert> findByUserIdAndStatus(String userId, FraudAlert.AlertStatus status);
     
     @Query("SELECT fa FROM FraudAlert fa WHERE fa.userId = :userId " +
@@ -0,0 +1,45 @@
+package com.niyiment.aifinancetracker.repository;
+
+import com.niyiment.aifinancetracker.entity.OutboxEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+    
+    // SKIP LOCKED lets several relay instances drain the outbox without double-sending. Parked rows
+    // and rows still leased to another relay are skipped
+    @Query(value = "SELECT * FROM outbox_events WHERE sent_at IS NULL AND parked_at IS NULL " +
+                   "AND (claimed_until IS NULL OR claimed_until < now()) " +
+                   "ORDER BY id LIMIT :limit FOR UPDATE SKIP LOCKED",
+           nativeQuery = true)
+    List<OutboxEvent> lockClaimableBatch(@Param("limit") int limit);
+    
+    @Modifying
+    @Query("UPDATE OutboxEvent e SET e.claimedUntil = :claimedUntil, e.attempts = e.attempts + 1 WHERE e.id IN :ids")
+    int claim(@Param("ids") Collection<Long> ids, @Param("claimedUntil") LocalDateTime claimedUntil);
+    
+    @Modifying
+    @Query("UPDATE OutboxEvent e SET e.sentAt = :sentAt, e.claimedUntil = null WHERE e.id IN :ids")
+    int markSent(@Param("ids") Collection<Long> ids, @Param("sentAt") LocalDateTime sentAt);
+    
+    @Modifying
+    @Query("UPDATE OutboxEvent e SET e.claimedUntil = null WHERE e.id IN :ids")
+    int release(@Param("ids") Collection<Long> ids);
+    
+    @Modifying
+    @Query("UPDATE OutboxEvent e SET e.parkedAt = :parkedAt WHERE e.id IN :ids AND e.attempts >= :maxAttempts")
+    int parkExhausted(@Param("ids") Collection<Long> ids, @Param("maxAttempts") int maxAttempts,
+                      @Param("parkedAt") LocalDateTime parkedAt);
+    
+    @Modifying
+    @Query("DELETE FROM OutboxEvent e WHERE e.sentAt < :cutoff")
+    int deleteSentBefore(@Param("cutoff") LocalDateTime cutoff);
+}
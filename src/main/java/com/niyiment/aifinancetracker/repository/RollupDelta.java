@@ -0,0 +1,68 @@
+package com.niyiment.aifinancetracker.repository;
+
+import com.niyiment.aifinancetracker.entity.Transaction;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+// A change to one rollup row: +1/amount when a transaction lands in it, -1/-amount when one leaves it
+public record RollupDelta(
+        String userId,
+        LocalDate day,
+        Transaction.TransactionType transactionType,
+        String category,
+        long countDelta,
+        BigDecimal amountDelta
+) {
+    public static RollupDelta added(Transaction transaction) {
+        return of(transaction, 1);
+    }
+
+    public static RollupDelta removed(Transaction transaction) {
+        return of(transaction, -1);
+    }
+
+    public RollupKey key() {
+        return new RollupKey(userId, day, transactionType, category);
+    }
+
+    public RollupDelta plus(RollupDelta other) {
+        return new RollupDelta(userId, day, transactionType, category,
+                countDelta + other.countDelta, amountDelta.add(other.amountDelta));
+    }
+
+    public boolean isZero() {
+        return countDelta == 0 && amountDelta.signum() == 0;
+    }
+
+    private static RollupDelta of(Transaction transaction, int sign) {
+        return new RollupDelta(
+                transaction.getUserId(),
+                transaction.getTransactionDate().toLocalDate(),
+                transaction.getTransactionType(),
+                transaction.getCategory(),
+                sign,
+                sign < 0 ? transaction.getAmount().negate() : transaction.getAmount()
+        );
+    }
+
+    // Sorted so concurrent writers lock rollup rows in the same order
+    public record RollupKey(
+            String userId,
+            LocalDate day,
+            Transaction.TransactionType transactionType,
+            String category
+    ) implements Comparable<RollupKey> {
+        @Override
+        public int compareTo(RollupKey other) {
+            int result = userId.compareTo(other.userId);
+            if (result == 0) {
+                result = day.compareTo(other.day);
+            }
+            if (result == 0) {
+                result = transactionType.compareTo(other.transactionType);
+            }
+            return result != 0 ? result : category.compareTo(other.category);
+        }
+    }
+}
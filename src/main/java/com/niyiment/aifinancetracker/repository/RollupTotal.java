@@ -0,0 +1,13 @@
+package com.niyiment.aifinancetracker.repository;
+
+import com.niyiment.aifinancetracker.entity.Transaction;
+
+import java.math.BigDecimal;
+
+// Count and amount for one type and category over a window, from rollups or from raw transactions
+public record RollupTotal(
+        Transaction.TransactionType transactionType,
+        String category,
+        long transactionCount,
+        BigDecimal totalAmount
+) {}
@@ -0,0 +1,11 @@
+package com.niyiment.aifinancetracker.repository;
+
+// Search result without the embedding column, so a query never transfers 6 KB vectors it does not need
+public record SimilarDocumentChunk(
+        Long id,
+        String documentName,
+        String content,
+        Integer chunkIndex,
+        double distance
+) {
+}
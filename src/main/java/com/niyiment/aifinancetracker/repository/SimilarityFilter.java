@@ -0,0 +1,42 @@
+package com.niyiment.aifinancetracker.repository;
+
+import java.util.Collection;
+import java.util.Map;
+
+// Optional restrictions on the chunk metadata (source document, chunk range); null fields are not applied
+public record SimilarityFilter(
+        Collection<String> sources,
+        Integer minChunkIndex,
+        Integer maxChunkIndex
+) {
+    public static final SimilarityFilter NONE = new SimilarityFilter(null, null, null);
+
+    public static SimilarityFilter sources(Collection<String> sources) {
+        return new SimilarityFilter(sources, null, null);
+    }
+
+    public boolean isEmpty() {
+        return (sources == null || sources.isEmpty()) && minChunkIndex == null && maxChunkIndex == null;
+    }
+
+    // In-memory equivalent of the SQL predicate, for engines that filter their own candidates
+    public boolean matches(Map<String, Object> metadata) {
+        if (isEmpty()) {
+            return true;
+        }
+        if (metadata == null) {
+            return false;
+        }
+        if (sources != null && !sources.isEmpty() && !sources.contains(String.valueOf(metadata.get("source")))) {
+            return false;
+        }
+        if (minChunkIndex == null && maxChunkIndex == null) {
+            return true;
+        }
+        if (!(metadata.get("chunkIndex") instanceof Number chunkIndex)) {
+            return false;
+        }
+        return (minChunkIndex == null || chunkIndex.intValue() >= minChunkIndex)
+                && (maxChunkIndex == null || chunkIndex.intValue() <= maxChunkIndex);
+    }
+}
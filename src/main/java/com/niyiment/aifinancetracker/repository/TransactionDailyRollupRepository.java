@@ -0,0 +1,27 @@
+package com.niyiment.aifinancetracker.repository;
+
+import com.niyiment.aifinancetracker.entity.TransactionDailyRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface TransactionDailyRollupRepository extends JpaRepository<TransactionDailyRollup, Long>,
+        TransactionDailyRollupRepositoryCustom {
+    
+    // At most one row per type and category, whatever the length of the window
+    @Query("SELECT new com.niyiment.aifinancetracker.repository.RollupTotal(" +
+           "r.transactionType, r.category, SUM(r.transactionCount), SUM(r.totalAmount)) " +
+           "FROM TransactionDailyRollup r WHERE r.userId = :userId " +
+           "AND r.day >= :fromDay AND r.day <= :toDay " +
+           "GROUP BY r.transactionType, r.category")
+    List<RollupTotal> sumByTypeAndCategory(
+        @Param("userId") String userId,
+        @Param("fromDay") LocalDate fromDay,
+        @Param("toDay") LocalDate toDay
+    );
+}
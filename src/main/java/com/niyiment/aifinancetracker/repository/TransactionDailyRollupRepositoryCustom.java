@@ -0,0 +1,24 @@
+package com.niyiment.aifinancetracker.repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface TransactionDailyRollupRepositoryCustom {
+    
+    // Deltas must be merged per key and sorted; see RollupDelta.RollupKey
+    void applyDeltas(List<RollupDelta> deltas);
+    
+    // Recomputes rollups for [fromDay, toDay) from transactions and returns how many rows were corrected
+    int rebuild(LocalDate fromDay, LocalDate toDay);
+    
+    LocalDate findFirstTransactionDay();
+    
+    boolean isBackfillComplete();
+    
+    // Exclusive end of the days backfilled so far, or null before the backfill has started
+    LocalDate findBackfilledUntil();
+    
+    void markBackfilledUntil(LocalDate day);
+    
+    void markBackfillComplete();
+}
@@ -0,0 +1,115 @@
+package com.niyiment.aifinancetracker.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.List;
+
+// Rollups are written with upserts over plain JDBC. Writers hold a shared advisory lock and a rebuild an
+// exclusive one, so a rebuild never overwrites a row with counts that miss an in-flight transaction
+@RequiredArgsConstructor
+public class TransactionDailyRollupRepositoryCustomImpl implements TransactionDailyRollupRepositoryCustom {
+    private static final long REBUILD_LOCK_KEY = 0x726f6c6c75707331L;
+
+    private static final String COLUMNS =
+            "(id, user_id, day, transaction_type, category, transaction_count, total_amount, updated_at)";
+    private static final String CONFLICT_KEY = " ON CONFLICT (user_id, day, transaction_type, category) DO UPDATE SET ";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Override
+    @Transactional
+    public void applyDeltas(List<RollupDelta> deltas) {
+        if (deltas.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.getJdbcTemplate().execute("SELECT pg_advisory_xact_lock_shared(" + REBUILD_LOCK_KEY + ")");
+
+        SqlParameterSource[] batch = deltas.stream()
+                .map(delta -> new MapSqlParameterSource()
+                        .addValue("userId", delta.userId())
+                        .addValue("day", delta.day())
+                        .addValue("type", delta.transactionType().name())
+                        .addValue("category", delta.category())
+                        .addValue("count", delta.countDelta())
+                        .addValue("amount", delta.amountDelta()))
+                .toArray(SqlParameterSource[]::new);
+
+        jdbcTemplate.batchUpdate("INSERT INTO transaction_daily_rollups AS r " + COLUMNS +
+                " VALUES (nextval('transaction_daily_rollups_seq'), :userId, :day, :type, :category, :count, :amount, now())" +
+                CONFLICT_KEY +
+                "transaction_count = r.transaction_count + EXCLUDED.transaction_count, " +
+                "total_amount = r.total_amount + EXCLUDED.total_amount, " +
+                "updated_at = EXCLUDED.updated_at", batch);
+    }
+
+    @Override
+    @Transactional
+    public int rebuild(LocalDate fromDay, LocalDate toDay) {
+        jdbcTemplate.getJdbcTemplate().execute("SELECT pg_advisory_xact_lock(" + REBUILD_LOCK_KEY + ")");
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("fromDay", fromDay)
+                .addValue("toDay", toDay);
+
+        // Rows that already match are left alone, so the count is the drift that was repaired
+        int corrected = jdbcTemplate.update("INSERT INTO transaction_daily_rollups AS r " + COLUMNS +
+                " SELECT nextval('transaction_daily_rollups_seq'), user_id, transaction_date::date, transaction_type," +
+                " category, COUNT(*), SUM(amount), now() FROM transactions" +
+                " WHERE transaction_date >= :fromDay AND transaction_date < :toDay" +
+                " GROUP BY user_id, transaction_date::date, transaction_type, category" +
+                CONFLICT_KEY +
+                "transaction_count = EXCLUDED.transaction_count, " +
+                "total_amount = EXCLUDED.total_amount, " +
+                "updated_at = EXCLUDED.updated_at " +
+                "WHERE r.transaction_count <> EXCLUDED.transaction_count OR r.total_amount <> EXCLUDED.total_amount",
+                params);
+
+        corrected += jdbcTemplate.update("DELETE FROM transaction_daily_rollups r" +
+                " WHERE r.day >= :fromDay AND r.day < :toDay AND NOT EXISTS (" +
+                "SELECT 1 FROM transactions t WHERE t.user_id = r.user_id" +
+                " AND t.transaction_date >= r.day AND t.transaction_date < r.day + 1" +
+                " AND t.transaction_type = r.transaction_type AND t.category = r.category)",
+                params);
+        return corrected;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public LocalDate findFirstTransactionDay() {
+        return jdbcTemplate.getJdbcTemplate().query("SELECT MIN(transaction_date)::date FROM transactions",
+                rs -> rs.next() ? rs.getObject(1, LocalDate.class) : null);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public boolean isBackfillComplete() {
+        return Boolean.TRUE.equals(jdbcTemplate.getJdbcTemplate().query(
+                "SELECT backfill_completed_at IS NOT NULL FROM transaction_rollup_state WHERE id = 1",
+                rs -> rs.next() && rs.getBoolean(1)));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public LocalDate findBackfilledUntil() {
+        return jdbcTemplate.getJdbcTemplate().query("SELECT backfilled_until FROM transaction_rollup_state WHERE id = 1",
+                rs -> rs.next() ? rs.getObject(1, LocalDate.class) : null);
+    }
+
+    @Override
+    @Transactional
+    public void markBackfilledUntil(LocalDate day) {
+        jdbcTemplate.update("UPDATE transaction_rollup_state SET backfilled_until = :day WHERE id = 1",
+                new MapSqlParameterSource("day", day));
+    }
+
+    @Override
+    @Transactional
+    public void markBackfillComplete() {
+        jdbcTemplate.getJdbcTemplate().update(
+                "UPDATE transaction_rollup_state SET backfill_completed_at = now() WHERE id = 1");
+    }
+}
@@ -1,6 +1,8 @@
 package com.niyiment.aifinancetracker.repository;
 
+import com.niyiment.aifinancetracker.dto.response.TransactionResponse;
 import com.niyiment.aifinancetracker.entity.Transaction;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -11,12 +13,55 @@ import org.springframework.stereotype.Repository;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface TransactionRepository extends JpaRepository<Transaction, Long> {
     
     Page<Transaction> findByUserId(String userId, Pageable pageable);
     
+    // Read-side projections: TransactionResponse is built by the query itself, so no entity is
+    // instantiated, tracked by the persistence context or dirty-checked at flush
+    String RESPONSE_SELECT = "SELECT new com.niyiment.aifinancetracker.dto.response.TransactionResponse(" +
+        "t.id, t.userId, t.amount, t.category, t.description, t.transactionType, t.transactionDate, " +
+        "t.merchant, t.location, t.createdAt, t.updatedAt) FROM Transaction t ";
+    
+    @Query(RESPONSE_SELECT + "WHERE t.id = :id")
+    Optional<TransactionResponse> findResponseById(@Param("id") Long id);
+    
+    @Query(value = RESPONSE_SELECT + "WHERE t.userId = :userId",
+           countQuery = "SELECT COUNT(t) FROM Transaction t WHERE t.userId = :userId")
+    Page<TransactionResponse> findResponsesByUserId(@Param("userId") String userId, Pageable pageable);
+    
+    @Query(RESPONSE_SELECT + "WHERE t.userId = :userId AND t.transactionDate BETWEEN :startDate AND :endDate")
+    List<TransactionResponse> findResponsesByUserIdAndDateRange(
+        @Param("userId") String userId,
+        @Param("startDate") LocalDateTime startDate,
+        @Param("endDate") LocalDateTime endDate
+    );
+    
+    @Query(RESPONSE_SELECT + "WHERE t.userId = :userId AND t.transactionDate >= :startDate " +
+           "ORDER BY t.transactionDate DESC")
+    List<TransactionResponse> findRecentResponsesByUser(
+        @Param("userId") String userId,
+        @Param("startDate") LocalDateTime startDate
+    );
+    
+    // Keyset pages in (transaction_date DESC, id DESC) order. The redundant "<= :afterDate" bound lets the
+    // seek start inside idx_transactions_user_date_id, so a deep page costs the same as the first
+    @Query(RESPONSE_SELECT + "WHERE t.userId = :userId ORDER BY t.transactionDate DESC, t.id DESC")
+    List<TransactionResponse> findFirstResponsePageByUser(@Param("userId") String userId, Limit limit);
+    
+    @Query(RESPONSE_SELECT + "WHERE t.userId = :userId AND t.transactionDate <= :afterDate " +
+           "AND (t.transactionDate < :afterDate OR t.id < :afterId) " +
+           "ORDER BY t.transactionDate DESC, t.id DESC")
+    List<TransactionResponse> findResponsePageByUserAfter(
+        @Param("userId") String userId,
+        @Param("afterDate") LocalDateTime afterDate,
+        @Param("afterId") long afterId,
+        Limit limit
+    );
+    
     List<Transaction> findByUserIdAndTransactionDateBetween(
         String userId,
         LocalDateTime startDate,
@@ -30,6 +75,23 @@ public interface TransactionRepository extends JpaRepository<Transaction, Long>
         @Param("startDate") LocalDateTime startDate
     );
     
+    // Top :limit most recent transactions per user that sort strictly before that user's bound, for many
+    // users in a single round trip. :bounds is a JSON array of {"user_id", "before_date", "before_id"}
+    @Query(value = "SELECT t.* FROM transactions t JOIN (" +
+                   "SELECT tx.id, ROW_NUMBER() OVER (PARTITION BY tx.user_id ORDER BY tx.transaction_date DESC, tx.id DESC) AS rn " +
+                   "FROM jsonb_to_recordset(CAST(:bounds AS jsonb)) AS b(user_id text, before_date timestamp, before_id bigint) " +
+                   "JOIN transactions tx ON tx.user_id = b.user_id " +
+                   "WHERE tx.transaction_date >= :startDate " +
+                   "AND (tx.transaction_date, tx.id) < (b.before_date, b.before_id)" +
+                   ") ranked ON ranked.id = t.id WHERE ranked.rn <= :limit " +
+                   "ORDER BY t.user_id, t.transaction_date DESC, t.id DESC",
+           nativeQuery = true)
+    List<Transaction> findRecentTransactionsBefore(
+        @Param("bounds") String bounds,
+        @Param("startDate") LocalDateTime startDate,
+        @Param("limit") int limit
+    );
+    
     @Query("SELECT SUM(t.amount) FROM Transaction t WHERE t.userId = :userId " +
            "AND t.transactionType = :type AND t.transactionDate BETWEEN :startDate AND :endDate")
     BigDecimal sumAmountByUserAndTypeAndDateRange(
@@ -39,6 +101,17 @@ public interface TransactionRepository extends JpaRepository<Transaction, Long>
         @Param("endDate") LocalDateTime endDate
     );
     
+    // Same shape as the daily rollups, for the part of a window that does not cover a whole day
+    @Query("SELECT new com.niyiment.aifinancetracker.repository.RollupTotal(" +
+           "t.transactionType, t.category, COUNT(t), SUM(t.amount)) FROM Transaction t " +
+           "WHERE t.userId = :userId AND t.transactionDate >= :startDate AND t.transactionDate < :endDate " +
+           "GROUP BY t.transactionType, t.category")
+    List<RollupTotal> sumByTypeAndCategory(
+        @Param("userId") String userId,
+        @Param("startDate") LocalDateTime startDate,
+        @Param("endDate") LocalDateTime endDate
+    );
+    
     @Query("SELECT t.category, COUNT(t), SUM(t.amount) FROM Transaction t " +
            "WHERE t.userId = :userId AND t.transactionDate >= :startDate " +
            "GROUP BY t.category ORDER BY SUM(t.amount) DESC")
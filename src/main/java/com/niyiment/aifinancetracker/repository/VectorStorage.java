@@ -0,0 +1,60 @@
+package com.niyiment.aifinancetracker.repository;
+
+// How candidates are searched: an expression index over a compact form of the stored vectors.
+// Anything other than full-precision, full-dimension search over-fetches and rescores with the exact vectors
+public record VectorStorage(
+        Mode mode,
+        int dimensions,
+        int fullDimensions,
+        int rescoreFactor
+) {
+    public enum Mode {
+        FULL,
+        HALFVEC,
+        BINARY
+    }
+
+    public static VectorStorage full(int dimensions) {
+        return new VectorStorage(Mode.FULL, dimensions, dimensions, 1);
+    }
+
+    public boolean isExact() {
+        return mode == Mode.FULL && dimensions >= fullDimensions;
+    }
+
+    public String indexName() {
+        return isExact()
+                ? "document_embeddings_embedding_hnsw_idx"
+                : "document_embeddings_" + mode.name().toLowerCase() + "_" + dimensions + "_hnsw_idx";
+    }
+
+    // The index and the ORDER BY must use the identical expression for the planner to match them
+    public String columnExpression() {
+        return compact("embedding");
+    }
+
+    public String queryExpression(String parameter) {
+        return compact("CAST(" + parameter + " AS vector)");
+    }
+
+    public String distanceOperator() {
+        return mode == Mode.BINARY ? "<~>" : "<=>";
+    }
+
+    public String operatorClass() {
+        return switch (mode) {
+            case FULL -> "vector_cosine_ops";
+            case HALFVEC -> "halfvec_cosine_ops";
+            case BINARY -> "bit_hamming_ops";
+        };
+    }
+
+    private String compact(String vector) {
+        String base = dimensions < fullDimensions ? "subvector(" + vector + ", 1, " + dimensions + ")" : vector;
+        return switch (mode) {
+            case FULL -> dimensions < fullDimensions ? "(" + base + ")::vector(" + dimensions + ")" : vector;
+            case HALFVEC -> "(" + base + ")::halfvec(" + dimensions + ")";
+            case BINARY -> "binary_quantize(" + base + ")::bit(" + dimensions + ")";
+        };
+    }
+}
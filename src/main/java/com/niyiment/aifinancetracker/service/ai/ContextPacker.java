@@ -0,0 +1,203 @@
+package com.niyiment.aifinancetracker.service.ai;
+
+import com.niyiment.aifinancetracker.dto.request.AdvisorQueryRequest;
+import com.niyiment.aifinancetracker.entity.DocumentEmbedding;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Turns ranked chunks into prompt context under a per-provider token budget. Neighbouring chunks of the
+// same document are stitched back together (chunking overlaps them), repeated text is dropped, and
+// passages are added in relevance order until the budget is spent
+@Slf4j
+@Component
+public class ContextPacker {
+    private static final String SEPARATOR = "\n\n---\n\n";
+    private static final int MIN_OVERLAP_CHARS = 20;
+    private static final int MAX_OVERLAP_CHARS = 400;
+    private static final int MIN_PARTIAL_TOKENS = 50;
+
+    private final Map<AdvisorQueryRequest.LlmProvider, Budget> budgets = new EnumMap<>(AdvisorQueryRequest.LlmProvider.class);
+    private final AdvisorQueryRequest.LlmProvider defaultProvider;
+    private final int reservedTokens;
+
+    public ContextPacker(
+            @Value("${finance.ai.default-provider}") String defaultProvider,
+            @Value("${finance.ai.advisor.context.reserved-tokens}") int reservedTokens,
+            @Value("${finance.ai.advisor.context.ollama.token-budget}") int ollamaTokenBudget,
+            @Value("${finance.ai.advisor.context.ollama.chars-per-token}") double ollamaCharsPerToken,
+            @Value("${finance.ai.advisor.context.openai.token-budget}") int openAiTokenBudget,
+            @Value("${finance.ai.advisor.context.openai.chars-per-token}") double openAiCharsPerToken
+    ) {
+        this.defaultProvider = AdvisorQueryRequest.LlmProvider.valueOf(defaultProvider.toUpperCase());
+        this.reservedTokens = reservedTokens;
+        budgets.put(AdvisorQueryRequest.LlmProvider.OLLAMA, new Budget(ollamaTokenBudget, ollamaCharsPerToken));
+        budgets.put(AdvisorQueryRequest.LlmProvider.OPENAI, new Budget(openAiTokenBudget, openAiCharsPerToken));
+    }
+
+    // Character-based estimate; close enough for budgeting without shipping a tokenizer per model
+    public int estimateTokens(String text, AdvisorQueryRequest.LlmProvider provider) {
+        return (int) Math.ceil(text.length() / budget(provider).charsPerToken());
+    }
+
+    // usedTokens is what the rest of the prompt (summary, question) already takes
+    public PackedContext pack(List<DocumentEmbedding> rankedChunks, AdvisorQueryRequest.LlmProvider provider,
+                              int usedTokens) {
+        List<Passage> passages = mergePassages(rankedChunks);
+
+        int remaining = budget(provider).tokenBudget() - reservedTokens - usedTokens;
+        StringBuilder context = new StringBuilder();
+        Set<String> documentNames = new LinkedHashSet<>();
+        int packedTokens = 0;
+        int dropped = 0;
+
+        for (Passage passage : passages) {
+            String block = (context.isEmpty() ? "" : SEPARATOR) + "Source: " + passage.documentName + "\n" + passage.text;
+            int tokens = estimateTokens(block, provider);
+
+            if (tokens <= remaining) {
+                context.append(block);
+            } else if (remaining >= MIN_PARTIAL_TOKENS) {
+                // Only the best-ranked passage that does not fit is cut, at a sentence boundary if possible
+                block = truncate(block, (int) (remaining * budget(provider).charsPerToken()));
+                tokens = estimateTokens(block, provider);
+                context.append(block);
+            } else {
+                dropped++;
+                continue;
+            }
+
+            remaining -= tokens;
+            packedTokens += tokens;
+            documentNames.add(passage.documentName);
+        }
+
+        log.debug("Packed {} passages from {} chunks into ~{} tokens for {} ({} dropped)",
+                passages.size() - dropped, rankedChunks.size(), packedTokens, resolve(provider), dropped);
+        return new PackedContext(context.toString(), List.copyOf(documentNames), packedTokens);
+    }
+
+    private List<Passage> mergePassages(List<DocumentEmbedding> rankedChunks) {
+        List<Passage> passages = new ArrayList<>();
+        Set<String> seen = new HashSet<>();
+
+        for (DocumentEmbedding chunk : rankedChunks) {
+            String content = chunk.getContent() == null ? "" : chunk.getContent().strip();
+            if (content.isEmpty() || !seen.add(content)) {
+                continue;
+            }
+
+            Integer index = chunkIndex(chunk);
+            Passage neighbour = index == null ? null : passages.stream()
+                    .filter(p -> p.documentName.equals(chunk.getDocumentName()) && p.isAdjacent(index))
+                    .findFirst()
+                    .orElse(null);
+
+            if (neighbour != null) {
+                neighbour.merge(index, content);
+                // The chunk may close the gap to another passage of the same document; keep the better rank
+                passages.stream()
+                        .filter(p -> p != neighbour && p.documentName.equals(neighbour.documentName) && neighbour.touches(p))
+                        .findFirst()
+                        .ifPresent(other -> {
+                            int position = Math.min(passages.indexOf(neighbour), passages.indexOf(other));
+                            neighbour.absorb(other);
+                            passages.remove(other);
+                            passages.remove(neighbour);
+                            passages.add(position, neighbour);
+                        });
+            } else if (passages.stream().noneMatch(p -> p.text.contains(content))) {
+                passages.add(new Passage(chunk.getDocumentName(), index, content));
+            }
+        }
+        return passages;
+    }
+
+    private Budget budget(AdvisorQueryRequest.LlmProvider provider) {
+        return budgets.get(resolve(provider));
+    }
+
+    private AdvisorQueryRequest.LlmProvider resolve(AdvisorQueryRequest.LlmProvider provider) {
+        return provider != null ? provider : defaultProvider;
+    }
+
+    private static Integer chunkIndex(DocumentEmbedding chunk) {
+        Object index = chunk.getMetadata() != null ? chunk.getMetadata().get("chunkIndex") : null;
+        return index instanceof Number number ? number.intValue() : null;
+    }
+
+    private static String truncate(String text, int maxChars) {
+        if (text.length() <= maxChars) {
+            return text;
+        }
+        String cut = text.substring(0, maxChars);
+        int sentenceEnd = cut.lastIndexOf(". ");
+        return sentenceEnd > maxChars / 2 ? cut.substring(0, sentenceEnd + 1) : cut;
+    }
+
+    // Joins two texts, removing the longest suffix of the first that the second starts with
+    private static String joinOverlapping(String first, String second) {
+        int max = Math.min(MAX_OVERLAP_CHARS, Math.min(first.length(), second.length()));
+        for (int length = max; length >= MIN_OVERLAP_CHARS; length--) {
+            if (first.regionMatches(first.length() - length, second, 0, length)) {
+                return first + second.substring(length);
+            }
+        }
+        return first + "\n" + second;
+    }
+
+    private static final class Passage {
+        private final String documentName;
+        private Integer firstIndex;
+        private Integer lastIndex;
+        private String text;
+
+        private Passage(String documentName, Integer index, String text) {
+            this.documentName = documentName;
+            this.firstIndex = index;
+            this.lastIndex = index;
+            this.text = text;
+        }
+
+        private boolean isAdjacent(int index) {
+            return firstIndex != null && (index == lastIndex + 1 || index == firstIndex - 1);
+        }
+
+        private boolean touches(Passage other) {
+            return firstIndex != null && other.firstIndex != null
+                    && (other.firstIndex == lastIndex + 1 || other.lastIndex == firstIndex - 1);
+        }
+
+        private void absorb(Passage other) {
+            if (other.firstIndex == lastIndex + 1) {
+                text = joinOverlapping(text, other.text);
+                lastIndex = other.lastIndex;
+            } else {
+                text = joinOverlapping(other.text, text);
+                firstIndex = other.firstIndex;
+            }
+        }
+
+        private void merge(int index, String content) {
+            if (index == lastIndex + 1) {
+                text = joinOverlapping(text, content);
+                lastIndex = index;
+            } else {
+                text = joinOverlapping(content, text);
+                firstIndex = index;
+            }
+        }
+    }
+
+    private record Budget(int tokenBudget, double charsPerToken) {}
+
+    public record PackedContext(String text, List<String> documentNames, int estimatedTokens) {}
+}
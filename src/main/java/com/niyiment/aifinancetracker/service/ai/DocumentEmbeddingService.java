@@ -3,101 +3,207 @@ package com.niyiment.aifinancetracker.service.ai;
 import com.niyiment.aifinancetracker.entity.DocumentEmbedding;
 import com.niyiment.aifinancetracker.exception.DocumentProcessingException;
 import com.niyiment.aifinancetracker.repository.DocumentEmbeddingRepository;
+import com.niyiment.aifinancetracker.repository.SimilarityFilter;
+import com.niyiment.aifinancetracker.service.vector.DocumentIndexedEvent;
+import com.niyiment.aifinancetracker.service.vector.PgVectorSearchEngine;
+import com.niyiment.aifinancetracker.service.vector.VectorSearchEngine;
 import com.pgvector.PGvector;
-import jakarta.annotation.PostConstruct;
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.pdfbox.Loader;
 import org.apache.pdfbox.io.RandomAccessReadBufferedFile;
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.text.PDFTextStripper;
+import org.springframework.ai.embedding.Embedding;
 import org.springframework.ai.embedding.EmbeddingModel;
 import org.springframework.ai.embedding.EmbeddingResponse;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HexFormat;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 @Slf4j
 @Service
-@RequiredArgsConstructor
 public class DocumentEmbeddingService {
     private final DocumentEmbeddingRepository repository;
     private final EmbeddingModel embeddingModel;
+    private final QueryEmbeddingCache queryEmbeddingCache;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final Map<String, VectorSearchEngine> searchEngines;
+    private final Timer embeddingBatchTimer;
+    private final Counter embeddedChunks;
 
-    @Value( "${finance.document-path}")
+    @Value("${finance.ai.document-path}")
     private String documentPath;
+
+    @Value("${finance.ai.embedding.batch-size}")
+    private int embeddingBatchSize;
+
+    @Value("${finance.ai.embedding.max-attempts}")
+    private int embeddingMaxAttempts;
+
+    @Value("${finance.ai.embedding.retry-backoff}")
+    private Duration embeddingRetryBackoff;
+
+    @Value("${finance.ai.vector-search.engine}")
+    private String searchEngineName;
+
     private static final int CHUNK_SIZE = 1000;
     private static final int CHUNK_OVERLAP = 200;
 
-    @PostConstruct
-    public void initializeDocuments() {
-        log.info("Initializing document embeddings from path: {}", documentPath);
-        try {
-            loadAndProcessDocuments();
-        } catch (Exception e) {
-            log.error("Error initializing document embeddings: {}", e.getMessage(), e);
-        }
+    public DocumentEmbeddingService(DocumentEmbeddingRepository repository,
+                                    EmbeddingModel embeddingModel,
+                                    QueryEmbeddingCache queryEmbeddingCache,
+                                    ApplicationEventPublisher eventPublisher,
+                                    TransactionTemplate transactionTemplate,
+                                    List<VectorSearchEngine> searchEngines,
+                                    MeterRegistry meterRegistry) {
+        this.repository = repository;
+        this.embeddingModel = embeddingModel;
+        this.queryEmbeddingCache = queryEmbeddingCache;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = transactionTemplate;
+        this.searchEngines = searchEngines.stream()
+                .collect(Collectors.toMap(VectorSearchEngine::name, Function.identity()));
+        this.embeddingBatchTimer = Timer.builder("document.embedding.batch")
+                .description("Latency of one batched embedding request during ingestion")
+                .register(meterRegistry);
+        this.embeddedChunks = Counter.builder("document.embedding.chunks")
+                .description("Document chunks embedded and persisted")
+                .register(meterRegistry);
     }
 
-    @Transactional
-    public void loadAndProcessDocuments() {
-        try{
+    public Resource[] findDocuments() {
+        try {
             PathMatchingResourcePatternResolver resolver = new PathMatchingResourcePatternResolver();
             Resource[] resources = resolver.getResources(documentPath + "*.pdf");
 
-            log.info("Found {} documents to process", resources.length);
+            log.info("Found {} documents in {}", resources.length, documentPath);
+            return resources;
+        } catch (IOException e) {
+            throw new DocumentProcessingException("Failed to load documents", e);
+        }
+    }
 
-            for (Resource resource : resources) {
-                String documentName = resource.getFilename();
-                if (repository.existsByDocumentName(documentName)) {
-                    log.debug("Document {} already exists in database", documentName);
-                    continue;
-                }
-                log.info("Processing document: {}", documentName);
-                processDocument(resource, documentName);
+    // Cheap pre-check on the raw file bytes so unchanged PDFs are not even parsed on restart
+    public String fileHash(Resource resource) {
+        try (InputStream in = resource.getInputStream()) {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] buffer = new byte[64 * 1024];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
             }
-            log.info("Finished processing documents");
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (IOException | NoSuchAlgorithmException e) {
+            throw new DocumentProcessingException("Failed to hash document: " + resource.getFilename(), e);
+        }
+    }
+
+    public boolean isIndexed(String documentName, String fileHash) {
+        return repository.existsByDocumentNameAndFileHash(documentName, fileHash);
+    }
+
+    public List<String> extractChunks(Resource resource) {
+        try {
+            return extractAndChunkText(resource);
         } catch (IOException e) {
-            throw new DocumentProcessingException("Failed to load documents", e);
+            throw new DocumentProcessingException("Failed to extract text from document: " + resource.getFilename(), e);
         }
     }
 
-    private void processDocument(Resource resource, String documentName) {
+    // Diffing and embedding run outside any transaction, so a slow provider (and its retry backoff) never
+    // holds a pooled connection; only the delete, save and event publish share one short transaction
+    public void indexDocument(String documentName, String fileHash, List<String> chunks) {
         try {
-            // Text from PDF
-            List<String> chunks = extractAndChunkText(resource);
+            List<String> chunkHashes = chunks.stream().map(DocumentEmbeddingService::sha256).toList();
 
-            log.debug("Created {} chunks from document: {}", chunks.size(), documentName);
+            // Existing rows keyed by chunk hash; duplicates are kept so repeated boilerplate chunks can all be reused
+            Map<String, Deque<DocumentEmbedding>> reusable = new HashMap<>();
+            for (DocumentEmbedding existing : repository.findByDocumentName(documentName)) {
+                Object chunkHash = existing.getMetadata() != null ? existing.getMetadata().get("chunkHash") : null;
+                reusable.computeIfAbsent(chunkHash == null ? "" : chunkHash.toString(), k -> new ArrayDeque<>())
+                        .add(existing);
+            }
 
-            // Generate embeddings for each chunk
+            List<DocumentEmbedding> rows = new ArrayList<>(chunks.size());
+            List<Integer> changed = new ArrayList<>();
             for (int i = 0; i < chunks.size(); i++) {
-                String chunk = chunks.get(i);
-                float[] embedding = generateEmbedding(chunk);
-
-                DocumentEmbedding docEmbedding = DocumentEmbedding.builder()
-                        .documentName(documentName)
-                        .content(chunk)
-                        .embedding(new PGvector(embedding))
-                        .metadata(Map.of(
-                                "chunkIndex", i,
-                                "totalChunks", chunks.size(),
-                                "source", documentName
-                        ))
-                        .build();
-
-                repository.save(docEmbedding);
+                Deque<DocumentEmbedding> candidates = reusable.get(chunkHashes.get(i));
+                DocumentEmbedding row = candidates != null ? candidates.poll() : null;
+                if (row == null) {
+                    row = DocumentEmbedding.builder()
+                            .documentName(documentName)
+                            .content(chunks.get(i))
+                            .build();
+                    changed.add(i);
+                }
+                row.setMetadata(chunkMetadata(documentName, fileHash, chunkHashes.get(i), i, chunks.size()));
+                rows.add(row);
             }
 
-            log.info("Successfully processed document: {} ({} chunks)", documentName, chunks.size());
+            List<DocumentEmbedding> stale = reusable.values().stream().flatMap(Deque::stream).toList();
+
+            log.info("Indexing document: {} ({} chunks, {} changed, {} reused, {} removed)", documentName,
+                    chunks.size(), changed.size(), chunks.size() - changed.size(), stale.size());
+
+            // Embed only new or edited chunks, in provider-sized batches
+            long start = System.nanoTime();
+            for (int from = 0; from < changed.size(); from += embeddingBatchSize) {
+                List<Integer> batch = changed.subList(from, Math.min(from + embeddingBatchSize, changed.size()));
+                List<float[]> embeddings = embedBatchWithRetry(batch.stream().map(chunks::get).toList(), documentName);
+
+                for (int j = 0; j < batch.size(); j++) {
+                    rows.get(batch.get(j)).setEmbedding(new PGvector(embeddings.get(j)));
+                }
+            }
+
+            Set<Integer> changedIndexes = Set.copyOf(changed);
+            transactionTemplate.executeWithoutResult(status -> {
+                if (!stale.isEmpty()) {
+                    repository.deleteAllInBatch(stale);
+                }
+                List<DocumentEmbedding> saved = repository.saveAll(rows);
+                // Listeners run after commit, so the search engines only ever see persisted rows
+                eventPublisher.publishEvent(new DocumentIndexedEvent(
+                        documentName,
+                        changed.stream().map(saved::get).toList(),
+                        IntStream.range(0, saved.size())
+                                .filter(i -> !changedIndexes.contains(i))
+                                .mapToObj(saved::get)
+                                .toList(),
+                        stale.stream().map(DocumentEmbedding::getId).toList()
+                ));
+            });
+
+            double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+            embeddedChunks.increment(changed.size());
+            log.info("Successfully processed document: {} ({} chunks embedded, {} chunks/s)",
+                    documentName, changed.size(), String.format("%.1f", seconds > 0 ? changed.size() / seconds : 0));
 
         } catch (Exception e) {
             log.error("Failed to process document: {}", documentName, e);
@@ -105,12 +211,85 @@ public class DocumentEmbeddingService {
         }
     }
 
+    private Map<String, Object> chunkMetadata(String documentName, String fileHash, String chunkHash,
+                                              int chunkIndex, int totalChunks) {
+        return Map.of(
+                "chunkIndex", chunkIndex,
+                "totalChunks", totalChunks,
+                "source", documentName,
+                "fileHash", fileHash,
+                "chunkHash", chunkHash
+        );
+    }
+
+    private static String sha256(String text) {
+        try {
+            return HexFormat.of().formatHex(
+                    MessageDigest.getInstance("SHA-256").digest(text.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private List<float[]> embedBatchWithRetry(List<String> texts, String documentName) {
+        RuntimeException lastFailure = null;
+
+        for (int attempt = 1; attempt <= embeddingMaxAttempts; attempt++) {
+            try {
+                return embeddingBatchTimer.record(() -> embedBatch(texts));
+            } catch (RuntimeException e) {
+                lastFailure = e;
+                log.warn("Embedding batch of {} chunks for {} failed (attempt {}/{}): {}",
+                        texts.size(), documentName, attempt, embeddingMaxAttempts, e.getMessage());
+
+                if (attempt < embeddingMaxAttempts) {
+                    try {
+                        Thread.sleep(embeddingRetryBackoff.toMillis() * attempt);
+                    } catch (InterruptedException ie) {
+                        Thread.currentThread().interrupt();
+                        break;
+                    }
+                }
+            }
+        }
+
+        throw new DocumentProcessingException("Failed to embed chunks for document: " + documentName, lastFailure);
+    }
+
+    private List<float[]> embedBatch(List<String> texts) {
+        EmbeddingResponse response = embeddingModel.embedForResponse(texts);
+
+        // Results carry their input index; do not rely on response order
+        float[][] embeddings = new float[texts.size()][];
+        for (Embedding embedding : response.getResults()) {
+            embeddings[embedding.getIndex()] = embedding.getOutput();
+        }
+        for (int i = 0; i < embeddings.length; i++) {
+            if (embeddings[i] == null) {
+                throw new IllegalStateException("Embedding provider returned no vector for input " + i);
+            }
+        }
+
+        return Arrays.asList(embeddings);
+    }
+
     private List<String> extractAndChunkText(Resource resource) throws IOException {
         try (PDDocument document = Loader.loadPDF(new RandomAccessReadBufferedFile(resource.getFile()))) {
             PDFTextStripper stripper = new PDFTextStripper();
-            String text = stripper.getText(document);
+            List<String> chunks = new ArrayList<>();
 
-            return chunkText(text);
+            // Chunk page by page so an edit only moves chunk boundaries on the pages it touches,
+            // which keeps the chunk hashes of the rest of the document stable across re-indexing
+            for (int page = 1; page <= document.getNumberOfPages(); page++) {
+                stripper.setStartPage(page);
+                stripper.setEndPage(page);
+                String text = stripper.getText(document);
+                if (!text.isBlank()) {
+                    chunks.addAll(chunkText(text));
+                }
+            }
+
+            return chunks;
         }
     }
 
@@ -130,25 +309,28 @@ public class DocumentEmbeddingService {
             }
 
             chunks.add(text.substring(start, end).trim());
+            if (end == text.length()) {
+                break;
+            }
             start = end - CHUNK_OVERLAP;
         }
 
         return chunks;
     }
 
-    private float[] generateEmbedding(String text) {
-        EmbeddingResponse response = embeddingModel.embedForResponse(List.of(text));
-        return response.getResults().get(0).getOutput();
+    public List<DocumentEmbedding> findRelevantDocuments(String query, int limit) {
+        return findRelevantDocuments(query, limit, SimilarityFilter.NONE, null);
     }
 
-    public List<DocumentEmbedding> findRelevantDocuments(String query, int limit) {
+    // efSearch null uses the engine's configured value
+    public List<DocumentEmbedding> findRelevantDocuments(String query, int limit, SimilarityFilter filter,
+                                                         Integer efSearch) {
         log.debug("Finding relevant documents for query: {}", query);
 
         try {
-            float[] queryEmbedding = generateEmbedding(query);
-            String embeddingString = Arrays.toString(queryEmbedding);
+            float[] queryEmbedding = queryEmbeddingCache.embed(query);
 
-            return repository.findSimilarDocuments(embeddingString, limit);
+            return selectSearchEngine().search(queryEmbedding, limit, filter, efSearch);
 
         } catch (Exception e) {
             log.error("Failed to find relevant documents", e);
@@ -156,6 +338,15 @@ public class DocumentEmbeddingService {
         }
     }
 
+    // An in-process engine that is still loading hands its queries to pgvector
+    private VectorSearchEngine selectSearchEngine() {
+        VectorSearchEngine engine = searchEngines.get(searchEngineName);
+        if (engine != null && engine.isReady()) {
+            return engine;
+        }
+        return searchEngines.get(PgVectorSearchEngine.NAME);
+    }
+
     public String buildContextFromDocuments(List<DocumentEmbedding> documents) {
         return documents.stream()
                 .map(doc -> String.format("Source: %s\n%s",
@@ -0,0 +1,157 @@
+package com.niyiment.aifinancetracker.service.ai;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Indexes the knowledge base after startup: PDFs are extracted in parallel and handed through a bounded
+// queue to a single embedding stage, so the application serves traffic while the index fills
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class DocumentIndexer {
+    private final DocumentEmbeddingService documentEmbeddingService;
+
+    @Value("${finance.ai.indexing.extraction-threads}")
+    private int extractionThreads;
+
+    @Value("${finance.ai.indexing.queue-capacity}")
+    private int queueCapacity;
+
+    private final AtomicInteger totalDocuments = new AtomicInteger();
+    private final AtomicInteger indexedDocuments = new AtomicInteger();
+    private final AtomicInteger failedDocuments = new AtomicInteger();
+
+    private volatile IndexState state = IndexState.PENDING;
+    private volatile LocalDateTime startedAt;
+    private volatile LocalDateTime completedAt;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void startIndexing() {
+        Thread.ofPlatform()
+                .name("document-indexer")
+                .daemon()
+                .start(this::runIndexing);
+    }
+
+    public IndexProgress progress() {
+        return new IndexProgress(
+                state,
+                totalDocuments.get(),
+                indexedDocuments.get(),
+                failedDocuments.get(),
+                startedAt,
+                completedAt
+        );
+    }
+
+    private void runIndexing() {
+        state = IndexState.INDEXING;
+        startedAt = LocalDateTime.now();
+
+        ExecutorService extractors = Executors.newFixedThreadPool(
+                extractionThreads, Thread.ofPlatform().name("document-extractor-", 0).daemon().factory());
+        try {
+            Resource[] resources = documentEmbeddingService.findDocuments();
+            totalDocuments.set(resources.length);
+
+            // Extractors block on a full queue, which caps how much extracted text is held in memory
+            BlockingQueue<ExtractedDocument> extracted = new ArrayBlockingQueue<>(queueCapacity);
+            int submitted = 0;
+            for (Resource resource : resources) {
+                String documentName = resource.getFilename();
+                String fileHash = documentEmbeddingService.fileHash(resource);
+                if (documentEmbeddingService.isIndexed(documentName, fileHash)) {
+                    log.debug("Document {} is unchanged since it was last indexed", documentName);
+                    indexedDocuments.incrementAndGet();
+                    continue;
+                }
+
+                submitted++;
+                extractors.execute(() -> extract(resource, documentName, fileHash, extracted));
+            }
+
+            for (int received = 0; received < submitted; received++) {
+                ExtractedDocument document = extracted.take();
+                if (document.chunks() == null) {
+                    failedDocuments.incrementAndGet();
+                    continue;
+                }
+
+                try {
+                    documentEmbeddingService.indexDocument(document.name(), document.fileHash(), document.chunks());
+                    indexedDocuments.incrementAndGet();
+                } catch (Exception e) {
+                    log.error("Failed to index document: {}", document.name(), e);
+                    failedDocuments.incrementAndGet();
+                }
+            }
+
+            state = failedDocuments.get() == 0 ? IndexState.READY : IndexState.DEGRADED;
+            log.info("Finished indexing documents: {} indexed, {} failed", indexedDocuments.get(), failedDocuments.get());
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            state = IndexState.FAILED;
+        } catch (Exception e) {
+            log.error("Error initializing document embeddings: {}", e.getMessage(), e);
+            state = IndexState.FAILED;
+        } finally {
+            completedAt = LocalDateTime.now();
+            extractors.shutdownNow();
+        }
+    }
+
+    private void extract(Resource resource, String documentName, String fileHash,
+                         BlockingQueue<ExtractedDocument> extracted) {
+        List<String> chunks = null;
+        try {
+            chunks = documentEmbeddingService.extractChunks(resource);
+        } catch (Exception e) {
+            log.error("Failed to extract document: {}", documentName, e);
+        }
+
+        try {
+            // A null chunk list still has to be delivered so the embedding stage can count it
+            extracted.put(new ExtractedDocument(documentName, fileHash, chunks));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private record ExtractedDocument(String name, String fileHash, List<String> chunks) {}
+
+    public enum IndexState {
+        PENDING,
+        INDEXING,
+        READY,
+        DEGRADED,
+        FAILED
+    }
+
+    public record IndexProgress(
+            IndexState state,
+            int totalDocuments,
+            int indexedDocuments,
+            int failedDocuments,
+            LocalDateTime startedAt,
+            LocalDateTime completedAt
+    ) {
+        public double completeness() {
+            return totalDocuments == 0 ? (state == IndexState.READY ? 1.0 : 0.0)
+                    : (double) indexedDocuments / totalDocuments;
+        }
+    }
+}
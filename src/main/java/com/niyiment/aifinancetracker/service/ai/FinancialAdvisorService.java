@@ -3,14 +3,17 @@ package com.niyiment.aifinancetracker.service.ai;
 import com.niyiment.aifinancetracker.dto.request.AdvisorQueryRequest;
 import com.niyiment.aifinancetracker.dto.response.AdvisorResponse;
 import com.niyiment.aifinancetracker.entity.DocumentEmbedding;
+import com.niyiment.aifinancetracker.repository.SimilarityFilter;
 import com.niyiment.aifinancetracker.service.query.TransactionQueryService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 @Service
@@ -21,72 +24,163 @@ public class FinancialAdvisorService {
     private final LlmService llmService;
     private final DocumentEmbeddingService documentEmbeddingService;
     private final TransactionQueryService transactionQueryService;
+    private final QueryEmbeddingCache queryEmbeddingCache;
+    private final SemanticAdviceCache semanticAdviceCache;
+    private final ContextPacker contextPacker;
+    
+    // Candidates for the context packer; the token budget decides how many end up in the prompt
+    @Value("${finance.ai.advisor.context.max-chunks}")
+    private int maxContextChunks;
     
-    private static final int MAX_RELEVANT_DOCUMENTS = 3;
     private static final int DAYS_FOR_CONTEXT = 90;
     
     public AdvisorResponse getFinancialAdvice(AdvisorQueryRequest request) {
         log.info("Processing financial advice request for user: {}", request.userId());
         
-        // Build comprehensive context
-        String context = buildAdviceContext(request);
+        PreparedAdvice prepared = prepareAdvice(request);
+        if (prepared.cached() != null) {
+            return toResponse(request.provider(), prepared.cached().advice(), prepared.cached().relevantDocuments());
+        }
         
-        // Generate advice using LLM
-        String advice = llmService.generateAdvice(
+        // Generate advice using LLM; unpinned requests are routed to whichever provider answers
+        LlmService.RoutedAdvice routed = llmService.generateRoutedAdvice(
             request.query(),
-            context,
+            prepared.context(),
             request.provider()
         );
         
-        // Get relevant document names for response
-        List<String> relevantDocs = getRelevantDocumentNames(request.query(), request.includeDocumentContext());
+        cacheAdvice(prepared, routed.advice());
+        return toResponse(routed.provider(), routed.advice(), prepared.relevantDocs());
+    }
+    
+    // Context is built on the caller's thread; the generation itself runs in the advisor LLM bulkhead
+    public CompletableFuture<AdvisorResponse> getFinancialAdviceAsync(AdvisorQueryRequest request) {
+        log.info("Processing async financial advice request for user: {}", request.userId());
+        
+        PreparedAdvice prepared = prepareAdvice(request);
+        if (prepared.cached() != null) {
+            return CompletableFuture.completedFuture(
+                toResponse(request.provider(), prepared.cached().advice(), prepared.cached().relevantDocuments()));
+        }
+        
+        CompletableFuture<LlmService.RoutedAdvice> routed =
+            llmService.generateRoutedAdviceAsync(request.query(), prepared.context(), request.provider());
+        return LlmService.propagateCancellation(routed.thenApply(advice -> {
+            cacheAdvice(prepared, advice.advice());
+            return toResponse(advice.provider(), advice.advice(), prepared.relevantDocs());
+        }), routed);
+    }
+    
+    // Relevant documents are sent before generation starts, then tokens as the provider produces them
+    public CompletableFuture<String> streamFinancialAdvice(AdvisorQueryRequest request, AdviceStreamHandler handler) {
+        log.info("Processing streaming financial advice request for user: {}", request.userId());
+        
+        PreparedAdvice prepared = prepareAdvice(request);
+        handler.onDocuments(prepared.relevantDocs());
+        if (prepared.cached() != null) {
+            handler.onToken(prepared.cached().advice());
+            return CompletableFuture.completedFuture(prepared.cached().advice());
+        }
+        
+        CompletableFuture<String> streamed =
+            llmService.streamAdviceAsync(request.query(), prepared.context(), request.provider(), handler::onToken);
+        return LlmService.propagateCancellation(streamed.thenApply(advice -> {
+            cacheAdvice(prepared, advice);
+            return advice;
+        }), streamed);
+    }
+    
+    // Checks the semantic cache first; on a miss, retrieves documents once for both the prompt and the response
+    private PreparedAdvice prepareAdvice(AdvisorQueryRequest request) {
+        Map<String, Object> summary = transactionQueryService
+            .getUserFinancialSummary(request.userId(), DAYS_FOR_CONTEXT);
+        
+        String scope = null;
+        float[] queryEmbedding = null;
+        if (semanticAdviceCache.isEnabled()) {
+            scope = semanticAdviceCache.scope(String.valueOf(request.provider()),
+                Boolean.TRUE.equals(request.includeDocumentContext()), request.documentSources(), summary);
+            queryEmbedding = queryEmbeddingCache.embed(request.query());
+            
+            SemanticAdviceCache.CachedAdvice cached = semanticAdviceCache.lookup(scope, queryEmbedding).orElse(null);
+            if (cached != null) {
+                return new PreparedAdvice(scope, queryEmbedding, null, cached.relevantDocuments(), cached);
+            }
+        }
+        
+        List<DocumentEmbedding> documents = findRelevantDocuments(request);
+        String summaryContext = buildSummaryContext(summary);
+        
+        // Add relevant document context if requested, packed into the provider's token budget
+        if (Boolean.TRUE.equals(request.includeDocumentContext()) && !documents.isEmpty()) {
+            int usedTokens = contextPacker.estimateTokens(summaryContext + request.query(), request.provider());
+            ContextPacker.PackedContext packed = contextPacker.pack(documents, request.provider(), usedTokens);
+            
+            String context = packed.text().isEmpty()
+                ? summaryContext
+                : summaryContext + "Relevant Financial Knowledge:\n\n" + packed.text() + "\n\n";
+            return new PreparedAdvice(scope, queryEmbedding, context, packed.documentNames(), null);
+        }
         
+        return new PreparedAdvice(scope, queryEmbedding, summaryContext, getRelevantDocumentNames(documents), null);
+    }
+    
+    private void cacheAdvice(PreparedAdvice prepared, String advice) {
+        if (prepared.scope() != null) {
+            semanticAdviceCache.put(prepared.scope(), prepared.queryEmbedding(), advice, prepared.relevantDocs());
+        }
+    }
+    
+    // A cached answer to an unpinned request has no single provider to report
+    private AdvisorResponse toResponse(AdvisorQueryRequest.LlmProvider provider, String advice, List<String> relevantDocs) {
         return AdvisorResponse.builder()
             .advice(advice)
-            .llmProvider(request.provider().name())
+            .llmProvider(provider != null ? provider.name() : "AUTO")
             .relevantDocuments(relevantDocs)
             .timestamp(LocalDateTime.now())
             .build();
     }
     
-    private String buildAdviceContext(AdvisorQueryRequest request) {
+    private List<DocumentEmbedding> findRelevantDocuments(AdvisorQueryRequest request) {
+        if (Boolean.FALSE.equals(request.includeDocumentContext())) {
+            return List.of();
+        }
+        
+        return documentEmbeddingService.findRelevantDocuments(request.query(), maxContextChunks,
+            SimilarityFilter.sources(request.documentSources()), request.efSearch());
+    }
+    
+    private String buildSummaryContext(Map<String, Object> summary) {
         StringBuilder context = new StringBuilder();
         
         // Add user's financial summary
         context.append("User's Financial Summary (Last ").append(DAYS_FOR_CONTEXT).append(" days):\n");
-        Map<String, Object> summary = transactionQueryService
-            .getUserFinancialSummary(request.userId(), DAYS_FOR_CONTEXT);
-        
         context.append("Total Income: $").append(summary.get("totalIncome")).append("\n");
         context.append("Total Expenses: $").append(summary.get("totalExpenses")).append("\n");
-        context.append("Total Investments: $").append(summary.get("totalInvestments")).append("\n");
+        context.append("Total Investments: $").append(summary.get("totalInvestment")).append("\n");
         context.append("Net Savings: $").append(summary.get("netSavings")).append("\n\n");
         
-        // Add relevant document context if requested
-        if (Boolean.TRUE.equals(request.includeDocumentContext())) {
-            List<DocumentEmbedding> relevantDocs = documentEmbeddingService
-                .findRelevantDocuments(request.query(), MAX_RELEVANT_DOCUMENTS);
-            
-            if (!relevantDocs.isEmpty()) {
-                context.append("Relevant Financial Knowledge:\n\n");
-                context.append(documentEmbeddingService.buildContextFromDocuments(relevantDocs));
-                context.append("\n\n");
-            }
-        }
-        
         return context.toString();
     }
     
-    private List<String> getRelevantDocumentNames(String query, Boolean includeContext) {
-        if (Boolean.FALSE.equals(includeContext)) {
-            return List.of();
-        }
-        
-        return documentEmbeddingService
-            .findRelevantDocuments(query, MAX_RELEVANT_DOCUMENTS)
-            .stream()
+    private List<String> getRelevantDocumentNames(List<DocumentEmbedding> documents) {
+        return documents.stream()
             .map(DocumentEmbedding::getDocumentName)
             .distinct()
             .collect(Collectors.toList());
     }
-}
\ No newline at end of file
+    
+    private record PreparedAdvice(
+        String scope,
+        float[] queryEmbedding,
+        String context,
+        List<String> relevantDocs,
+        SemanticAdviceCache.CachedAdvice cached
+    ) {}
+    
+    public interface AdviceStreamHandler {
+        void onDocuments(List<String> relevantDocuments);
+        
+        void onToken(String token);
+    }
+}
@@ -1,5 +1,6 @@
 package com.niyiment.aifinancetracker.service.ai;
 
+import com.niyiment.aifinancetracker.config.KafkaConfig;
 import com.niyiment.aifinancetracker.dto.response.FraudAlertResponse;
 import com.niyiment.aifinancetracker.entity.FraudAlert;
 import com.niyiment.aifinancetracker.entity.Transaction;
@@ -7,20 +8,28 @@ import com.niyiment.aifinancetracker.event.FraudDetectedEvent;
 import com.niyiment.aifinancetracker.event.TransactionCreatedEvent;
 import com.niyiment.aifinancetracker.exception.FraudDetectionException;
 import com.niyiment.aifinancetracker.exception.ResourceNotFoundException;
+import com.niyiment.aifinancetracker.mapper.FraudAlertMapper;
 import com.niyiment.aifinancetracker.repository.FraudAlertRepository;
 import com.niyiment.aifinancetracker.repository.TransactionRepository;
+import com.niyiment.aifinancetracker.service.outbox.OutboxService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.kafka.annotation.KafkaListener;
-import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.BatchListenerFailedException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -30,8 +39,12 @@ public class FraudDetectionService {
     
     private final FraudAlertRepository fraudAlertRepository;
     private final TransactionRepository transactionRepository;
-    private final LlmService llmService;
-    private final KafkaTemplate<String, FraudDetectedEvent> kafkaTemplate;
+    private final FraudPreFilter fraudPreFilter;
+    private final FraudPromptBatcher fraudPromptBatcher;
+    private final SpendingProfileStore spendingProfileStore;
+    private final OutboxService outboxService;
+    private final FraudAlertMapper fraudAlertMapper;
+    private final TransactionTemplate transactionTemplate;
     
     @Value("${finance.kafka.topics.fraud-detected}")
     private String fraudDetectedTopic;
@@ -42,11 +55,14 @@ public class FraudDetectionService {
     @Value("${finance.ai.fraud-detection.enabled}")
     private boolean fraudDetectionEnabled;
     
+    @Value("${finance.ai.fraud-detection.history-size}")
+    private int historySize;
+    
     @KafkaListener(
         topics = "${finance.kafka.topics.transaction-created}",
-        groupId = "${spring.kafka.consumer.group-id}"
+        groupId = "${spring.kafka.consumer.group-id}",
+        autoStartup = "#{!${finance.ai.fraud-detection.batch.enabled}}"
     )
-    @Transactional
     public void handleTransactionCreated(TransactionCreatedEvent event) {
         if (!fraudDetectionEnabled) {
             return;
@@ -62,7 +78,7 @@ public class FraudDetectionService {
             FraudAnalysisResult result = analyzeTransaction(transaction);
             
             if (result.isFraudulent()) {
-                createFraudAlert(transaction, result);
+                saveFraudAlert(transaction, result);
             }
             
         } catch (Exception e) {
@@ -71,23 +87,123 @@ public class FraudDetectionService {
         }
     }
     
-    private FraudAnalysisResult analyzeTransaction(Transaction transaction) {
-        // Build transaction context
-        String transactionDetails = buildTransactionContext(transaction);
+    // No surrounding transaction: reads and each alert write use their own short transactions, so no
+    // connection is held while waiting on the LLM. Polls are capped so the slowest batch (every record
+    // queued behind the fraud bulkhead) still finishes within max.poll.interval.ms
+    @KafkaListener(
+        topics = "${finance.kafka.topics.transaction-created}",
+        groupId = "${spring.kafka.consumer.group-id}",
+        containerFactory = KafkaConfig.FRAUD_BATCH_CONTAINER_FACTORY,
+        autoStartup = "${finance.ai.fraud-detection.batch.enabled}",
+        properties = {
+            "max.poll.records=${finance.ai.fraud-detection.batch.max-poll-records}",
+            "max.poll.interval.ms=${finance.ai.fraud-detection.batch.max-poll-interval-ms}"
+        }
+    )
+    public void handleTransactionsCreated(List<TransactionCreatedEvent> events) {
+        if (!fraudDetectionEnabled || events.isEmpty()) {
+            return;
+        }
+        
+        log.info("Processing {} transactions for fraud detection", events.size());
+        
+        Set<Long> transactionIds = events.stream()
+            .map(TransactionCreatedEvent::transactionId)
+            .collect(Collectors.toSet());
+        Map<Long, Transaction> transactions = transactionRepository.findAllById(transactionIds)
+            .stream()
+            .collect(Collectors.toMap(Transaction::getId, Function.identity()));
         
-        // Get AI analysis
-        String aiAnalysis = llmService.analyzeFraudPattern(transactionDetails);
+        Map<String, UserSpendingProfile> profiles = spendingProfileStore.profilesFor(transactions.values());
         
-        // Parse AI response
-        return parseAiAnalysis(aiAnalysis);
+        // Dispatch every LLM-bound analysis first so they run concurrently within the fraud bulkhead
+        List<CompletableFuture<FraudAnalysisResult>> analyses = new ArrayList<>(events.size());
+        for (TransactionCreatedEvent event : events) {
+            Transaction transaction = transactions.get(event.transactionId());
+            if (transaction == null) {
+                log.warn("Skipping fraud detection, transaction not found: {}", event.transactionId());
+                analyses.add(null);
+                continue;
+            }
+            
+            try {
+                analyses.add(analyzeTransactionAsync(transaction, profiles.get(transaction.getUserId())));
+            } catch (Exception e) {
+                analyses.add(CompletableFuture.failedFuture(e));
+            }
+        }
+        
+        for (int i = 0; i < events.size(); i++) {
+            if (analyses.get(i) == null) {
+                continue;
+            }
+            
+            TransactionCreatedEvent event = events.get(i);
+            try {
+                FraudAnalysisResult result = analyses.get(i).join();
+                
+                if (result.isFraudulent()) {
+                    saveFraudAlert(transactions.get(event.transactionId()), result);
+                }
+            } catch (Exception e) {
+                // Alerts for earlier records are committed; offsets are committed up to this record and the
+                // rest of the batch is redelivered, so the analyses still running for it are abandoned
+                log.error("Fraud detection failed for transaction: {}", event.transactionId(), e);
+                analyses.subList(i + 1, analyses.size()).forEach(analysis -> {
+                    if (analysis != null) {
+                        analysis.cancel(true);
+                    }
+                });
+                throw new BatchListenerFailedException("Failed to process fraud detection", e, i);
+            }
+        }
+    }
+    
+    private FraudAnalysisResult analyzeTransaction(Transaction transaction) {
+        UserSpendingProfile profile = spendingProfileStore.profilesFor(List.of(transaction)).get(transaction.getUserId());
+        return analyzeTransactionAsync(transaction, profile).join();
     }
     
-    private String buildTransactionContext(Transaction transaction) {
-        // Get user's transaction history for comparison
-        LocalDateTime thirtyDaysAgo = LocalDateTime.now().minusDays(30);
-        List<Transaction> recentTransactions = transactionRepository
-            .findRecentTransactionsByUser(transaction.getUserId(), thirtyDaysAgo);
+    private CompletableFuture<FraudAnalysisResult> analyzeTransactionAsync(Transaction transaction,
+                                                                          UserSpendingProfile profile) {
+        // The transaction only joins the profile once its verdict is in, so a failed or cancelled analysis
+        // that is retried is scored against the same baseline as the first attempt
+        SpendingBaseline baseline = profile.toBaseline();
+        List<UserSpendingProfile.RecentTransaction> recentTransactions = profile.recentTransactions(historySize);
         
+        // Settle clear-cut cases statistically; only the uncertain band goes to the LLM
+        FraudPreFilter.Verdict verdict = fraudPreFilter.evaluate(transaction, baseline);
+        switch (verdict.decision()) {
+            case LOW -> {
+                spendingProfileStore.record(transaction);
+                return CompletableFuture.completedFuture(toAnalysisResult("LOW", verdict.reason()));
+            }
+            case HIGH -> {
+                spendingProfileStore.record(transaction);
+                return CompletableFuture.completedFuture(toAnalysisResult("HIGH", verdict.reason()));
+            }
+            case UNCERTAIN -> log.debug("Pre-filter uncertain for transaction {}, consulting LLM", transaction.getId());
+        }
+        
+        // Build transaction context
+        String transactionDetails = buildTransactionContext(transaction, recentTransactions);
+        
+        // Get AI analysis (possibly sharing a prompt with other pending transactions) and parse the response.
+        // Cancelling the returned future withdraws the prompt, which thenApply alone would not do
+        CompletableFuture<String> verdict = fraudPromptBatcher.analyze(transaction.getId(), transactionDetails);
+        CompletableFuture<FraudAnalysisResult> result = verdict.thenApply(this::parseAiAnalysis);
+        result.whenComplete((ignored, error) -> {
+            if (error == null) {
+                spendingProfileStore.record(transaction);
+            } else if (error instanceof CancellationException) {
+                verdict.cancel(true);
+            }
+        });
+        return result;
+    }
+    
+    private String buildTransactionContext(Transaction transaction,
+                                           List<UserSpendingProfile.RecentTransaction> recentTransactions) {
         StringBuilder context = new StringBuilder();
         context.append("Current Transaction:\n");
         context.append("Amount: $").append(transaction.getAmount()).append("\n");
@@ -97,10 +213,10 @@ public class FraudDetectionService {
         context.append("Time: ").append(transaction.getTransactionDate()).append("\n\n");
         
         context.append("Recent Transaction History:\n");
-        recentTransactions.stream().limit(10).forEach(t -> {
-            context.append("- $").append(t.getAmount())
-                   .append(" at ").append(t.getMerchant())
-                   .append(" (").append(t.getCategory()).append(")\n");
+        recentTransactions.forEach(t -> {
+            context.append("- $").append(String.format("%.2f", t.amount()))
+                   .append(" at ").append(t.merchant())
+                   .append(" (").append(t.category()).append(")\n");
         });
         
         return context.toString();
@@ -115,9 +231,10 @@ public class FraudDetectionService {
             return new FraudAnalysisResult(BigDecimal.valueOf(0.2), "Unable to parse AI response", false);
         }
         
-        String riskLevel = parts[0].trim();
-        String explanation = parts[1].trim();
-        
+        return toAnalysisResult(parts[0].trim(), parts[1].trim());
+    }
+    
+    private FraudAnalysisResult toAnalysisResult(String riskLevel, String explanation) {
         BigDecimal fraudScore = switch (riskLevel.toUpperCase()) {
             case "HIGH" -> BigDecimal.valueOf(0.9);
             case "MEDIUM" -> BigDecimal.valueOf(0.6);
@@ -129,7 +246,10 @@ public class FraudDetectionService {
         return new FraudAnalysisResult(fraudScore, explanation, isFraudulent);
     }
     
-    @CacheEvict(value = "fraudAlerts", key = "#transaction.userId")
+    private void saveFraudAlert(Transaction transaction, FraudAnalysisResult result) {
+        transactionTemplate.executeWithoutResult(status -> createFraudAlert(transaction, result));
+    }
+    
     public void createFraudAlert(Transaction transaction, FraudAnalysisResult result) {
         log.warn("Fraud detected for transaction: {} (score: {})", 
                  transaction.getId(), result.fraudScore());
@@ -157,16 +277,12 @@ public class FraudDetectionService {
             .detectedAt(alert.getDetectedAt())
             .build();
         
-        kafkaTemplate.send(fraudDetectedTopic, alert.getUserId(), event);
-        log.info("Published fraud detected event for alert: {}", alert.getId());
+        outboxService.enqueue(fraudDetectedTopic, alert.getUserId(), event);
+        log.info("Queued fraud detected event for alert: {}", alert.getId());
     }
     
     public List<FraudAlertResponse> getUserFraudAlerts(String userId) {
-        return fraudAlertRepository.findByUserId(userId, null)
-            .getContent()
-            .stream()
-            .map(this::mapToResponse)
-            .collect(Collectors.toList());
+        return fraudAlertRepository.findResponsesByUserId(userId);
     }
     
     @Transactional
@@ -182,20 +298,7 @@ public class FraudDetectionService {
         }
         
         FraudAlert updated = fraudAlertRepository.save(alert);
-        return mapToResponse(updated);
-    }
-    
-    private FraudAlertResponse mapToResponse(FraudAlert alert) {
-        return FraudAlertResponse.builder()
-            .id(alert.getId())
-            .transactionId(alert.getTransaction().getId())
-            .userId(alert.getUserId())
-            .fraudScore(alert.getFraudScore())
-            .reason(alert.getReason())
-            .status(alert.getStatus())
-            .detectedAt(alert.getDetectedAt())
-            .resolvedAt(alert.getResolvedAt())
-            .build();
+        return fraudAlertMapper.toResponse(updated);
     }
     
     private record FraudAnalysisResult(
@@ -0,0 +1,144 @@
+package com.niyiment.aifinancetracker.service.ai;
+
+import com.niyiment.aifinancetracker.entity.Transaction;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Slf4j
+@Component
+public class FraudPreFilter {
+
+    @Value("${finance.ai.fraud-detection.pre-filter.enabled}")
+    private boolean enabled;
+
+    @Value("${finance.ai.fraud-detection.pre-filter.low-band}")
+    private double lowBand;
+
+    @Value("${finance.ai.fraud-detection.pre-filter.high-band}")
+    private double highBand;
+
+    @Value("${finance.ai.fraud-detection.pre-filter.min-samples}")
+    private long minSamples;
+
+    @Value("${finance.ai.fraud-detection.pre-filter.z-score-moderate}")
+    private double zScoreModerate;
+
+    @Value("${finance.ai.fraud-detection.pre-filter.z-score-extreme}")
+    private double zScoreExtreme;
+
+    @Value("${finance.ai.fraud-detection.pre-filter.night-start-hour}")
+    private int nightStartHour;
+
+    @Value("${finance.ai.fraud-detection.pre-filter.night-end-hour}")
+    private int nightEndHour;
+
+    private final Counter lowCounter;
+    private final Counter highCounter;
+    private final Counter llmCounter;
+
+    public FraudPreFilter(MeterRegistry meterRegistry) {
+        this.lowCounter = decisionCounter(meterRegistry, Decision.LOW);
+        this.highCounter = decisionCounter(meterRegistry, Decision.HIGH);
+        this.llmCounter = decisionCounter(meterRegistry, Decision.UNCERTAIN);
+
+        Gauge.builder("fraud.prefilter.llm.avoidance.ratio", this, FraudPreFilter::llmAvoidanceRatio)
+                .description("Share of fraud checks decided without an LLM call")
+                .register(meterRegistry);
+    }
+
+    public Verdict evaluate(Transaction transaction, SpendingBaseline baseline) {
+        if (!enabled || baseline.sampleCount() < minSamples) {
+            // Not enough history to call it either way
+            llmCounter.increment();
+            return new Verdict(Decision.UNCERTAIN, 0, "Insufficient history for statistical scoring");
+        }
+
+        double score = 0;
+        List<String> signals = new ArrayList<>();
+
+        double amount = transaction.getAmount().doubleValue();
+        if (baseline.stdDevAmount() > 0) {
+            double zScore = (amount - baseline.meanAmount()) / baseline.stdDevAmount();
+            if (zScore >= zScoreExtreme) {
+                score += 0.5;
+                signals.add(String.format("amount is %.1f standard deviations above the user's mean", zScore));
+            } else if (zScore >= zScoreModerate) {
+                score += 0.25;
+                signals.add(String.format("amount is %.1f standard deviations above the user's mean", zScore));
+            }
+        } else if (amount > baseline.meanAmount() * 2) {
+            score += 0.25;
+            signals.add("amount deviates from an otherwise constant spending pattern");
+        }
+
+        if (!baseline.isKnownMerchant(transaction.getMerchant())) {
+            score += 0.15;
+            signals.add("merchant is new for this user");
+        }
+
+        if (!baseline.isKnownLocation(transaction.getLocation())) {
+            score += 0.2;
+            signals.add("location is new for this user");
+        }
+
+        if (isNightHour(transaction.getTransactionDate().getHour())) {
+            score += 0.1;
+            signals.add("transaction occurred at an unusual hour");
+        }
+
+        String reason = signals.isEmpty()
+                ? "Consistent with the user's usual amount, merchants and locations"
+                : "Statistical pre-filter: " + String.join("; ", signals);
+
+        Decision decision;
+        if (score <= lowBand) {
+            decision = Decision.LOW;
+            lowCounter.increment();
+        } else if (score >= highBand) {
+            decision = Decision.HIGH;
+            highCounter.increment();
+        } else {
+            decision = Decision.UNCERTAIN;
+            llmCounter.increment();
+        }
+
+        log.debug("Pre-filter scored transaction {} at {} ({})", transaction.getId(), score, decision);
+        return new Verdict(decision, score, reason);
+    }
+
+    // The window may wrap midnight, e.g. 22 to 5
+    private boolean isNightHour(int hour) {
+        if (nightStartHour <= nightEndHour) {
+            return hour >= nightStartHour && hour < nightEndHour;
+        }
+        return hour >= nightStartHour || hour < nightEndHour;
+    }
+
+    private double llmAvoidanceRatio() {
+        double decided = lowCounter.count() + highCounter.count();
+        double total = decided + llmCounter.count();
+        return total == 0 ? 0 : decided / total;
+    }
+
+    private static Counter decisionCounter(MeterRegistry meterRegistry, Decision decision) {
+        return Counter.builder("fraud.prefilter.decisions")
+                .description("Fraud pre-filter outcomes; UNCERTAIN is forwarded to the LLM")
+                .tag("decision", decision.name())
+                .register(meterRegistry);
+    }
+
+    public enum Decision {
+        LOW,
+        HIGH,
+        UNCERTAIN
+    }
+
+    public record Verdict(Decision decision, double score, String reason) {}
+}
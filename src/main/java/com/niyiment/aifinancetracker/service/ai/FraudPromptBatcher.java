@@ -0,0 +1,221 @@
+package com.niyiment.aifinancetracker.service.ai;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+// Groups pending fraud prompts so up to maxSize transactions share one LLM call and one instruction block
+@Slf4j
+@Component
+public class FraudPromptBatcher {
+    private static final Set<String> RISK_LEVELS = Set.of("LOW", "MEDIUM", "HIGH");
+
+    private final LlmService llmService;
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final int maxSize;
+    private final long maxWaitMs;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("fraud-prompt-batcher").daemon().factory());
+
+    private final Counter batchCalls;
+    private final Counter batchedItems;
+    private final Counter fallbacks;
+
+    private final Object lock = new Object();
+    private List<PendingAnalysis> pending = new ArrayList<>();
+    private ScheduledFuture<?> flushTask;
+
+    public FraudPromptBatcher(
+            LlmService llmService,
+            ObjectMapper objectMapper,
+            MeterRegistry meterRegistry,
+            @Value("${finance.ai.fraud-detection.llm-batch.enabled}") boolean enabled,
+            @Value("${finance.ai.fraud-detection.llm-batch.max-size}") int maxSize,
+            @Value("${finance.ai.fraud-detection.llm-batch.max-wait-ms}") long maxWaitMs
+    ) {
+        this.llmService = llmService;
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.maxSize = maxSize;
+        this.maxWaitMs = maxWaitMs;
+        this.batchCalls = Counter.builder("fraud.llm.batch.calls").register(meterRegistry);
+        this.batchedItems = Counter.builder("fraud.llm.batch.items").register(meterRegistry);
+        this.fallbacks = Counter.builder("fraud.llm.batch.fallbacks").register(meterRegistry);
+    }
+
+    // Completes with a "RISK_LEVEL|Explanation" string, the same shape as LlmService.analyzeFraudPattern
+    public CompletableFuture<String> analyze(long transactionId, String transactionDetails) {
+        if (!enabled || maxSize <= 1) {
+            return llmService.analyzeFraudPatternAsync(transactionDetails);
+        }
+
+        PendingAnalysis analysis = new PendingAnalysis(transactionId, transactionDetails, new CompletableFuture<>());
+        List<PendingAnalysis> ready = null;
+
+        synchronized (lock) {
+            pending.add(analysis);
+            if (pending.size() >= maxSize) {
+                ready = drain();
+            } else if (pending.size() == 1) {
+                flushTask = scheduler.schedule(this::flushExpired, maxWaitMs, TimeUnit.MILLISECONDS);
+            }
+        }
+
+        if (ready != null) {
+            dispatch(ready);
+        }
+        return analysis.result();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flushExpired();
+        scheduler.shutdown();
+    }
+
+    private void flushExpired() {
+        List<PendingAnalysis> ready;
+        synchronized (lock) {
+            ready = pending.isEmpty() ? null : drain();
+        }
+        if (ready != null) {
+            dispatch(ready);
+        }
+    }
+
+    private List<PendingAnalysis> drain() {
+        List<PendingAnalysis> ready = pending;
+        pending = new ArrayList<>();
+        if (flushTask != null) {
+            flushTask.cancel(false);
+            flushTask = null;
+        }
+        return ready;
+    }
+
+    private void dispatch(List<PendingAnalysis> drained) {
+        // Callers that gave up while the batch was filling (a failed Kafka batch) are not sent at all
+        List<PendingAnalysis> batch = drained.stream()
+                .filter(analysis -> !analysis.result().isDone())
+                .toList();
+        if (batch.isEmpty()) {
+            return;
+        }
+        if (batch.size() == 1) {
+            analyzeSingly(batch.get(0));
+            return;
+        }
+
+        Map<Long, String> detailsById = new LinkedHashMap<>();
+        batch.forEach(analysis -> detailsById.putIfAbsent(analysis.transactionId(), analysis.details()));
+
+        batchCalls.increment();
+        batchedItems.increment(batch.size());
+        log.debug("Dispatching fraud prompt batch of {} transactions", detailsById.size());
+
+        CompletableFuture<String> call = llmService.analyzeFraudPatternsBatchAsync(detailsById);
+        // The shared call is only abandoned once every transaction in it has been cancelled
+        batch.forEach(analysis -> analysis.result().whenComplete((ignored, error) -> {
+            if (error instanceof CancellationException
+                    && batch.stream().allMatch(other -> other.result().isCancelled())) {
+                call.cancel(true);
+            }
+        }));
+
+        call.whenComplete((response, error) -> {
+            // A failed call (saturated bulkhead, timeout, provider error) fails every caller: retrying as N
+            // single prompts on the same bulkhead would multiply load exactly when the backend is struggling.
+            // Only verdicts missing from a response that did arrive fall back to single prompts
+            if (error != null) {
+                log.warn("Batched fraud analysis of {} transactions failed: {}", batch.size(), error.getMessage());
+                batch.forEach(analysis -> analysis.result().completeExceptionally(error));
+                return;
+            }
+
+            Map<Long, String> verdicts = parseVerdicts(response);
+            for (PendingAnalysis analysis : batch) {
+                String verdict = verdicts.get(analysis.transactionId());
+                if (verdict != null) {
+                    analysis.result().complete(verdict);
+                } else {
+                    fallbacks.increment();
+                    analyzeSingly(analysis);
+                }
+            }
+        });
+    }
+
+    private void analyzeSingly(PendingAnalysis analysis) {
+        if (analysis.result().isDone()) {
+            return;
+        }
+
+        CompletableFuture<String> call = llmService.analyzeFraudPatternAsync(analysis.details());
+        analysis.result().whenComplete((ignored, error) -> {
+            if (error instanceof CancellationException) {
+                call.cancel(true);
+            }
+        });
+        call.whenComplete((response, error) -> {
+            if (error != null) {
+                analysis.result().completeExceptionally(error);
+            } else {
+                analysis.result().complete(response);
+            }
+        });
+    }
+
+    // Items that are missing or malformed are left out so their callers fall back to a single prompt
+    private Map<Long, String> parseVerdicts(String response) {
+        Map<Long, String> verdicts = new HashMap<>();
+        if (response == null) {
+            return verdicts;
+        }
+
+        int start = response.indexOf('[');
+        int end = response.lastIndexOf(']');
+        if (start < 0 || end <= start) {
+            log.warn("Batched fraud response contained no JSON array");
+            return verdicts;
+        }
+
+        try {
+            JsonNode items = objectMapper.readTree(response.substring(start, end + 1));
+            for (JsonNode item : items) {
+                long id = item.path("id").asLong(Long.MIN_VALUE);
+                String risk = item.path("risk").asText("").trim().toUpperCase();
+                String explanation = item.path("explanation").asText("").trim();
+
+                if (id == Long.MIN_VALUE || !RISK_LEVELS.contains(risk) || explanation.isEmpty()) {
+                    log.debug("Skipping malformed batched fraud verdict: {}", item);
+                    continue;
+                }
+                verdicts.put(id, risk + "|" + explanation);
+            }
+        } catch (Exception e) {
+            log.warn("Failed to parse batched fraud response: {}", e.getMessage());
+        }
+        return verdicts;
+    }
+
+    private record PendingAnalysis(long transactionId, String details, CompletableFuture<String> result) {}
+}
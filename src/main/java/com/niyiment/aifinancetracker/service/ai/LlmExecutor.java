@@ -0,0 +1,170 @@
+package com.niyiment.aifinancetracker.service.ai;
+
+import com.niyiment.aifinancetracker.dto.request.AdvisorQueryRequest;
+import com.niyiment.aifinancetracker.exception.LlmCapacityException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+// Runs LLM calls on virtual threads behind one bulkhead per workload and provider,
+// so a burst on one path cannot take capacity from the other
+@Slf4j
+@Component
+public class LlmExecutor {
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Map<Workload, Map<AdvisorQueryRequest.LlmProvider, Bulkhead>> bulkheads = new EnumMap<>(Workload.class);
+
+    public LlmExecutor(
+            MeterRegistry meterRegistry,
+            @Value("${finance.ai.llm.fraud.max-in-flight-ollama}") int fraudOllamaInFlight,
+            @Value("${finance.ai.llm.fraud.max-in-flight-openai}") int fraudOpenAiInFlight,
+            @Value("${finance.ai.llm.fraud.max-queued}") int fraudMaxQueued,
+            @Value("${finance.ai.llm.fraud.queue-timeout}") Duration fraudQueueTimeout,
+            @Value("${finance.ai.llm.advisor.max-in-flight-ollama}") int advisorOllamaInFlight,
+            @Value("${finance.ai.llm.advisor.max-in-flight-openai}") int advisorOpenAiInFlight,
+            @Value("${finance.ai.llm.advisor.max-queued}") int advisorMaxQueued,
+            @Value("${finance.ai.llm.advisor.queue-timeout}") Duration advisorQueueTimeout
+    ) {
+        register(meterRegistry, Workload.FRAUD, AdvisorQueryRequest.LlmProvider.OLLAMA,
+                fraudOllamaInFlight, fraudMaxQueued, fraudQueueTimeout);
+        register(meterRegistry, Workload.FRAUD, AdvisorQueryRequest.LlmProvider.OPENAI,
+                fraudOpenAiInFlight, fraudMaxQueued, fraudQueueTimeout);
+        register(meterRegistry, Workload.ADVISOR, AdvisorQueryRequest.LlmProvider.OLLAMA,
+                advisorOllamaInFlight, advisorMaxQueued, advisorQueueTimeout);
+        register(meterRegistry, Workload.ADVISOR, AdvisorQueryRequest.LlmProvider.OPENAI,
+                advisorOpenAiInFlight, advisorMaxQueued, advisorQueueTimeout);
+    }
+
+    public <T> CompletableFuture<T> submit(Workload workload, AdvisorQueryRequest.LlmProvider provider, Supplier<T> call) {
+        Bulkhead bulkhead = bulkheads.get(workload).get(provider);
+
+        // Reject on the caller's thread when the queue is already full instead of piling up waiters
+        if (bulkhead.pending.incrementAndGet() > bulkhead.maxPending) {
+            bulkhead.pending.decrementAndGet();
+            bulkhead.rejected.increment();
+            return CompletableFuture.failedFuture(new LlmCapacityException(
+                    "LLM bulkhead " + bulkhead.name + " is saturated"));
+        }
+
+        long deadline = System.nanoTime() + bulkhead.queueTimeout.toNanos();
+        AtomicReference<Thread> runner = new AtomicReference<>();
+        AtomicBoolean cancelled = new AtomicBoolean();
+        try {
+            CompletableFuture<T> future = CompletableFuture.supplyAsync(() -> {
+                runner.set(Thread.currentThread());
+                try {
+                    if (cancelled.get()) {
+                        throw new CancellationException("LLM call cancelled before it started");
+                    }
+                    long remaining = deadline - System.nanoTime();
+                    if (!bulkhead.permits.tryAcquire(Math.max(0, remaining), TimeUnit.NANOSECONDS)) {
+                        bulkhead.rejected.increment();
+                        throw new LlmCapacityException("Timed out waiting for LLM bulkhead " + bulkhead.name);
+                    }
+                    try {
+                        return call.get();
+                    } finally {
+                        bulkhead.permits.release();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new LlmCapacityException("Interrupted waiting for LLM bulkhead " + bulkhead.name);
+                } finally {
+                    bulkhead.pending.decrementAndGet();
+                }
+            }, executor);
+
+            // Cancelling the future (e.g. a losing hedge) interrupts the call instead of letting it run on
+            future.whenComplete((result, error) -> {
+                if (error instanceof CancellationException) {
+                    cancelled.set(true);
+                    Thread thread = runner.get();
+                    if (thread != null) {
+                        thread.interrupt();
+                    }
+                }
+            });
+            return future;
+        } catch (RuntimeException e) {
+            bulkhead.pending.decrementAndGet();
+            throw e;
+        }
+    }
+
+    // Callers waiting beyond the in-flight limit, relative to that limit
+    public double queueDepthRatio(Workload workload, AdvisorQueryRequest.LlmProvider provider) {
+        Bulkhead bulkhead = bulkheads.get(workload).get(provider);
+        return Math.max(0, bulkhead.pending.get() - bulkhead.maxInFlight) / (double) bulkhead.maxInFlight;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void register(MeterRegistry meterRegistry, Workload workload, AdvisorQueryRequest.LlmProvider provider,
+                          int maxInFlight, int maxQueued, Duration queueTimeout) {
+        String name = workload.name().toLowerCase() + "-" + provider.name().toLowerCase();
+        Counter rejected = Counter.builder("llm.bulkhead.rejected")
+                .tag("workload", workload.name())
+                .tag("provider", provider.name())
+                .register(meterRegistry);
+        Bulkhead bulkhead = new Bulkhead(name, maxInFlight, maxInFlight + maxQueued, queueTimeout, rejected);
+
+        Gauge.builder("llm.bulkhead.in.flight", bulkhead, b -> b.maxInFlight - b.permits.availablePermits())
+                .tag("workload", workload.name())
+                .tag("provider", provider.name())
+                .register(meterRegistry);
+        Gauge.builder("llm.bulkhead.pending", bulkhead, b -> b.pending.get())
+                .tag("workload", workload.name())
+                .tag("provider", provider.name())
+                .register(meterRegistry);
+
+        bulkheads.computeIfAbsent(workload, w -> new EnumMap<>(AdvisorQueryRequest.LlmProvider.class))
+                .put(provider, bulkhead);
+        log.info("Registered LLM bulkhead {} (max in flight {}, max queued {}, queue timeout {})",
+                name, maxInFlight, maxQueued, queueTimeout);
+    }
+
+    public enum Workload {
+        FRAUD,
+        ADVISOR
+    }
+
+    private static final class Bulkhead {
+        private final String name;
+        private final int maxInFlight;
+        private final int maxPending;
+        private final Duration queueTimeout;
+        private final Semaphore permits;
+        private final AtomicInteger pending = new AtomicInteger();
+        private final Counter rejected;
+
+        private Bulkhead(String name, int maxInFlight, int maxPending, Duration queueTimeout, Counter rejected) {
+            this.name = name;
+            this.maxInFlight = maxInFlight;
+            this.maxPending = maxPending;
+            this.queueTimeout = queueTimeout;
+            this.permits = new Semaphore(maxInFlight, true);
+            this.rejected = rejected;
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package com.niyiment.aifinancetracker.service.ai;
+
+import com.niyiment.aifinancetracker.dto.request.AdvisorQueryRequest;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Tracks rolling latency and error rate per provider and ranks providers for unpinned advisor requests.
+// Expected latency is the recent median scaled by how deep the provider's bulkhead queue already is
+@Slf4j
+@Component
+public class LlmRouter {
+    private static final double ERROR_RATE_ALPHA = 0.1;
+
+    private final LlmExecutor llmExecutor;
+    private final Map<AdvisorQueryRequest.LlmProvider, ProviderStats> stats = new EnumMap<>(AdvisorQueryRequest.LlmProvider.class);
+    private final AdvisorQueryRequest.LlmProvider defaultProvider;
+    private final boolean latencyRouting;
+    private final double maxErrorRate;
+    private final double exploreRatio;
+    private final boolean hedgeEnabled;
+    private final Duration hedgeMinDelay;
+    private final Duration hedgeMaxDelay;
+
+    public LlmRouter(
+            LlmExecutor llmExecutor,
+            MeterRegistry meterRegistry,
+            @Value("${finance.ai.default-provider}") String defaultProvider,
+            @Value("${finance.ai.routing.mode}") String mode,
+            @Value("${finance.ai.routing.window-size}") int windowSize,
+            @Value("${finance.ai.routing.max-error-rate}") double maxErrorRate,
+            @Value("${finance.ai.routing.explore-ratio}") double exploreRatio,
+            @Value("${finance.ai.routing.hedge.enabled}") boolean hedgeEnabled,
+            @Value("${finance.ai.routing.hedge.min-delay}") Duration hedgeMinDelay,
+            @Value("${finance.ai.routing.hedge.max-delay}") Duration hedgeMaxDelay
+    ) {
+        this.llmExecutor = llmExecutor;
+        this.defaultProvider = AdvisorQueryRequest.LlmProvider.valueOf(defaultProvider.toUpperCase());
+        this.latencyRouting = "latency".equalsIgnoreCase(mode);
+        this.maxErrorRate = maxErrorRate;
+        this.exploreRatio = exploreRatio;
+        this.hedgeEnabled = hedgeEnabled;
+        this.hedgeMinDelay = hedgeMinDelay;
+        this.hedgeMaxDelay = hedgeMaxDelay;
+
+        for (AdvisorQueryRequest.LlmProvider provider : AdvisorQueryRequest.LlmProvider.values()) {
+            ProviderStats providerStats = new ProviderStats(windowSize);
+            stats.put(provider, providerStats);
+            Gauge.builder("llm.routing.latency.p95", providerStats, s -> s.percentileMillis(0.95))
+                    .tag("provider", provider.name())
+                    .baseUnit("milliseconds")
+                    .register(meterRegistry);
+            Gauge.builder("llm.routing.error.rate", providerStats, ProviderStats::errorRate)
+                    .tag("provider", provider.name())
+                    .register(meterRegistry);
+        }
+    }
+
+    public boolean isLatencyRouting() {
+        return latencyRouting;
+    }
+
+    public boolean isHedgeEnabled() {
+        return latencyRouting && hedgeEnabled;
+    }
+
+    // Healthy providers first, fastest expected latency first; the default provider when routing is static
+    public List<AdvisorQueryRequest.LlmProvider> rank(LlmExecutor.Workload workload) {
+        if (!latencyRouting) {
+            return List.of(defaultProvider);
+        }
+
+        List<AdvisorQueryRequest.LlmProvider> ranked = Arrays.stream(AdvisorQueryRequest.LlmProvider.values())
+                .sorted(Comparator
+                        .comparing((AdvisorQueryRequest.LlmProvider p) -> stats.get(p).errorRate() > maxErrorRate)
+                        .thenComparingDouble(p -> expectedLatencyMillis(workload, p)))
+                .toList();
+
+        // Occasionally try the runner-up so a recovered provider gets fresh samples
+        if (ranked.size() > 1 && ThreadLocalRandom.current().nextDouble() < exploreRatio) {
+            return List.of(ranked.get(1), ranked.get(0));
+        }
+        return ranked;
+    }
+
+    // Hedge once the primary is slower than its recent p95
+    public Duration hedgeDelay(AdvisorQueryRequest.LlmProvider provider) {
+        long p95 = (long) stats.get(provider).percentileMillis(0.95);
+        long delay = Math.max(hedgeMinDelay.toMillis(), Math.min(hedgeMaxDelay.toMillis(), p95));
+        return Duration.ofMillis(delay);
+    }
+
+    public boolean isHealthy(AdvisorQueryRequest.LlmProvider provider) {
+        return stats.get(provider).errorRate() <= maxErrorRate;
+    }
+
+    public void recordSuccess(AdvisorQueryRequest.LlmProvider provider, long latencyNanos) {
+        stats.get(provider).record(latencyNanos / 1_000_000.0, false);
+    }
+
+    public void recordFailure(AdvisorQueryRequest.LlmProvider provider) {
+        stats.get(provider).record(Double.NaN, true);
+    }
+
+    // A cancelled call (a losing hedge) only tells us the latency was at least this long; it is neither a
+    // success nor a failure, so the error rate is left alone
+    public void recordCensored(AdvisorQueryRequest.LlmProvider provider, long elapsedNanos) {
+        stats.get(provider).recordCensored(elapsedNanos / 1_000_000.0);
+    }
+
+    private double expectedLatencyMillis(LlmExecutor.Workload workload, AdvisorQueryRequest.LlmProvider provider) {
+        double median = stats.get(provider).percentileMillis(0.5);
+        return median * (1.0 + llmExecutor.queueDepthRatio(workload, provider));
+    }
+
+    private static final class ProviderStats {
+        private final double[] latencies;
+        private int next;
+        private int count;
+        private double errorRate;
+
+        private ProviderStats(int windowSize) {
+            this.latencies = new double[windowSize];
+        }
+
+        private synchronized void record(double latencyMillis, boolean failed) {
+            errorRate += ERROR_RATE_ALPHA * ((failed ? 1.0 : 0.0) - errorRate);
+            if (!failed) {
+                latencies[next] = latencyMillis;
+                next = (next + 1) % latencies.length;
+                count = Math.min(count + 1, latencies.length);
+            }
+        }
+
+        // A lower bound below the median adds nothing we don't already believe, and recording it as is would
+        // make a slow provider look faster; one above it is kept so a provider that keeps losing hedges slows down
+        private synchronized void recordCensored(double elapsedMillis) {
+            if (count > 0 && elapsedMillis < percentileMillis(0.5)) {
+                return;
+            }
+            latencies[next] = elapsedMillis;
+            next = (next + 1) % latencies.length;
+            count = Math.min(count + 1, latencies.length);
+        }
+
+        // With no samples yet a provider looks instant, so it is tried early
+        private synchronized double percentileMillis(double quantile) {
+            if (count == 0) {
+                return 0.0;
+            }
+            double[] window = Arrays.copyOf(latencies, count);
+            Arrays.sort(window);
+            return window[Math.min(count - 1, (int) Math.ceil(quantile * count) - 1)];
+        }
+
+        private synchronized double errorRate() {
+            return errorRate;
+        }
+    }
+}
@@ -2,13 +2,30 @@ package com.niyiment.aifinancetracker.service.ai;
 
 import com.niyiment.aifinancetracker.dto.request.AdvisorQueryRequest;
 import com.niyiment.aifinancetracker.exception.LlmProcessingException;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.ai.chat.client.ChatClient;
 import org.springframework.beans.factory.annotation.Qualifier;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
 @Service
 @RequiredArgsConstructor
 @Slf4j
@@ -20,8 +37,11 @@ public class LlmService {
     @Qualifier("openaiChatClient")
     private final ChatClient openaiChatClient;
     
-    @Value("${finance.ai.default-provider}")
-    private String defaultProvider;
+    private final LlmExecutor llmExecutor;
+    
+    private final LlmRouter llmRouter;
+    
+    private final MeterRegistry meterRegistry;
     
     private static final String SYSTEM_PROMPT = """
         You are an expert financial advisor with deep knowledge of personal finance,
@@ -40,33 +60,228 @@ public class LlmService {
         """;
     
     public String generateAdvice(String userQuery, String context, AdvisorQueryRequest.LlmProvider provider) {
+        return await(generateAdviceAsync(userQuery, context, provider));
+    }
+    
+    public CompletableFuture<String> generateAdviceAsync(String userQuery, String context,
+                                                         AdvisorQueryRequest.LlmProvider provider) {
+        CompletableFuture<RoutedAdvice> routed = generateRoutedAdviceAsync(userQuery, context, provider);
+        return propagateCancellation(routed.thenApply(RoutedAdvice::advice), routed);
+    }
+    
+    public RoutedAdvice generateRoutedAdvice(String userQuery, String context, AdvisorQueryRequest.LlmProvider provider) {
+        return await(generateRoutedAdviceAsync(userQuery, context, provider));
+    }
+    
+    // A pinned provider is always honoured; otherwise the router picks one and may hedge on the runner-up
+    public CompletableFuture<RoutedAdvice> generateRoutedAdviceAsync(String userQuery, String context,
+                                                                     AdvisorQueryRequest.LlmProvider provider) {
+        String fullPrompt = buildPrompt(userQuery, context);
+        if (provider != null) {
+            return callAdvice(provider, fullPrompt);
+        }
+        
+        List<AdvisorQueryRequest.LlmProvider> ranked = llmRouter.rank(LlmExecutor.Workload.ADVISOR);
+        meterRegistry.counter("llm.routing.decisions", "provider", ranked.get(0).name()).increment();
+        if (!llmRouter.isHedgeEnabled() || ranked.size() < 2 || !llmRouter.isHealthy(ranked.get(1))) {
+            return callAdvice(ranked.get(0), fullPrompt);
+        }
+        return hedgedAdvice(ranked.get(0), ranked.get(1), fullPrompt);
+    }
+    
+    private CompletableFuture<RoutedAdvice> callAdvice(AdvisorQueryRequest.LlmProvider provider, String fullPrompt) {
         log.info("Generating advice using provider: {}", provider);
+        ChatClient client = selectChatClient(provider);
+        AtomicLong startedAt = new AtomicLong();
         
-        try {
-            ChatClient client = selectChatClient(provider);
-            
-            String fullPrompt = buildPrompt(userQuery, context);
-            
-            String response = client.prompt()
-                .system(SYSTEM_PROMPT)
-                .user(fullPrompt)
-                .call()
-                .content();
+        CompletableFuture<RoutedAdvice> attempt = llmExecutor.submit(LlmExecutor.Workload.ADVISOR, provider, () -> {
+            long start = System.nanoTime();
+            startedAt.set(start);
+            try {
+                String response = client.prompt()
+                    .system(SYSTEM_PROMPT)
+                    .user(fullPrompt)
+                    .call()
+                    .content();
+                
+                llmRouter.recordSuccess(provider, System.nanoTime() - start);
+                log.debug("Generated advice successfully");
+                return new RoutedAdvice(response, provider);
+                
+            } catch (Exception e) {
+                throw new LlmProcessingException("Failed to generate financial advice", e);
+            }
+        });
+        
+        // The outcome is read from the future rather than the runner's interrupt flag: a cancelled attempt (a
+        // losing hedge) is a censored latency sample, only a provider error counts as a failure
+        attempt.whenComplete((advice, error) -> {
+            if (error == null) {
+                return;
+            }
+            if (attempt.isCancelled()) {
+                long started = startedAt.get();
+                if (started != 0) {
+                    llmRouter.recordCensored(provider, System.nanoTime() - started);
+                }
+                return;
+            }
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            if (cause instanceof LlmProcessingException) {
+                llmRouter.recordFailure(provider);
+                log.error("Failed to generate advice", cause.getCause());
+            }
+        });
+        return attempt;
+    }
+    
+    // Starts the primary, then the secondary once the primary is slower than its recent p95 or fails.
+    // The first successful answer wins and the other call is cancelled
+    private CompletableFuture<RoutedAdvice> hedgedAdvice(AdvisorQueryRequest.LlmProvider primary,
+                                                         AdvisorQueryRequest.LlmProvider secondary,
+                                                         String fullPrompt) {
+        CompletableFuture<RoutedAdvice> result = new CompletableFuture<>();
+        List<CompletableFuture<RoutedAdvice>> attempts = new CopyOnWriteArrayList<>();
+        AtomicInteger outstanding = new AtomicInteger();
+        AtomicBoolean hedgeStarted = new AtomicBoolean();
+        
+        Consumer<AdvisorQueryRequest.LlmProvider> startAttempt = new Consumer<>() {
+            @Override
+            public void accept(AdvisorQueryRequest.LlmProvider provider) {
+                outstanding.incrementAndGet();
+                CompletableFuture<RoutedAdvice> attempt = callAdvice(provider, fullPrompt);
+                attempts.add(attempt);
+                // The hedge timer can start an attempt just as the caller gives up
+                if (result.isCancelled()) {
+                    attempt.cancel(true);
+                }
+                attempt.whenComplete((advice, error) -> {
+                    if (error == null) {
+                        if (result.complete(advice)) {
+                            if (provider == secondary) {
+                                meterRegistry.counter("llm.hedge.won", "provider", provider.name()).increment();
+                                meterRegistry.counter("llm.hedge.lost", "provider", primary.name()).increment();
+                            }
+                            attempts.stream().filter(other -> other != attempt).forEach(other -> other.cancel(true));
+                        }
+                        return;
+                    }
+                    if (result.isDone()) {
+                        return;
+                    }
+                    if (hedgeStarted.compareAndSet(false, true)) {
+                        accept(secondary);
+                    }
+                    if (outstanding.decrementAndGet() == 0) {
+                        result.completeExceptionally(error);
+                    }
+                });
+            }
+        };
+        
+        // A caller that gives up (timeout, client disconnect) cancels both calls and frees their permits
+        result.whenComplete((advice, error) -> {
+            if (result.isCancelled()) {
+                attempts.forEach(attempt -> attempt.cancel(true));
+            }
+        });
+        
+        startAttempt.accept(primary);
+        Duration delay = llmRouter.hedgeDelay(primary);
+        CompletableFuture.delayedExecutor(delay.toMillis(), TimeUnit.MILLISECONDS).execute(() -> {
+            if (!result.isDone() && hedgeStarted.compareAndSet(false, true)) {
+                log.debug("Advice from {} slower than {} ms, hedging on {}", primary, delay.toMillis(), secondary);
+                meterRegistry.counter("llm.hedge.fired", "provider", secondary.name()).increment();
+                startAttempt.accept(secondary);
+            }
+        });
+        
+        return result;
+    }
+    
+    // Streams tokens to the consumer as they arrive and completes with the full text. The advisor bulkhead
+    // permit is held for the whole generation, exactly like a blocking call. Tokens are pulled on the bulkhead
+    // thread so a slow consumer never blocks the HTTP client's event loop
+    public CompletableFuture<String> streamAdviceAsync(String userQuery, String context,
+                                                       AdvisorQueryRequest.LlmProvider provider,
+                                                       Consumer<String> onToken) {
+        AdvisorQueryRequest.LlmProvider resolved = provider != null
+            ? provider
+            : llmRouter.rank(LlmExecutor.Workload.ADVISOR).get(0);
+        log.info("Streaming advice using provider: {}", resolved);
+        
+        ChatClient client = selectChatClient(resolved);
+        String fullPrompt = buildPrompt(userQuery, context);
+        
+        return llmExecutor.submit(LlmExecutor.Workload.ADVISOR, resolved, () -> {
+            long start = System.nanoTime();
+            long firstTokenAt = 0;
+            int tokens = 0;
+            StringBuilder advice = new StringBuilder();
             
-            log.debug("Generated advice successfully");
-            return response;
+            // Closing the stream cancels the upstream subscription, so an early exit stops the generation
+            try (Stream<String> stream = client.prompt()
+                    .system(SYSTEM_PROMPT)
+                    .user(fullPrompt)
+                    .stream()
+                    .content()
+                    .toStream()) {
+                Iterator<String> iterator = stream.iterator();
+                while (iterator.hasNext()) {
+                    String token = iterator.next();
+                    if (firstTokenAt == 0) {
+                        firstTokenAt = System.nanoTime();
+                        timeToFirstToken(resolved).record(firstTokenAt - start, TimeUnit.NANOSECONDS);
+                    }
+                    tokens++;
+                    advice.append(token);
+                    deliver(onToken, token);
+                }
+            } catch (CancellationException e) {
+                throw e;
+            } catch (Exception e) {
+                llmRouter.recordFailure(resolved);
+                log.error("Failed to stream advice", e);
+                throw new LlmProcessingException("Failed to generate financial advice", e);
+            }
             
-        } catch (Exception e) {
-            log.error("Failed to generate advice", e);
-            throw new LlmProcessingException("Failed to generate financial advice", e);
+            llmRouter.recordSuccess(resolved, System.nanoTime() - start);
+            long generationNanos = System.nanoTime() - firstTokenAt;
+            if (firstTokenAt > 0 && generationNanos > 0) {
+                tokensPerSecond(resolved).record(tokens / (generationNanos / 1_000_000_000.0));
+            }
+            log.debug("Streamed advice successfully ({} chunks)", tokens);
+            return advice.toString();
+        });
+    }
+    
+    // A consumer that can no longer accept tokens (the client disconnected) cancels the stream; that says
+    // nothing about the provider, so it is not counted as a failure
+    private static void deliver(Consumer<String> onToken, String token) {
+        try {
+            onToken.accept(token);
+        } catch (RuntimeException e) {
+            CancellationException cancelled = new CancellationException("Advice stream consumer went away");
+            cancelled.initCause(e);
+            throw cancelled;
         }
     }
     
+    private Timer timeToFirstToken(AdvisorQueryRequest.LlmProvider provider) {
+        return Timer.builder("llm.stream.time.to.first.token")
+            .tag("provider", provider.name())
+            .publishPercentiles(0.5, 0.95, 0.99)
+            .register(meterRegistry);
+    }
+    
+    // Streamed chunks are counted as tokens; providers send roughly one token per chunk
+    private DistributionSummary tokensPerSecond(AdvisorQueryRequest.LlmProvider provider) {
+        return DistributionSummary.builder("llm.stream.tokens.per.second")
+            .tag("provider", provider.name())
+            .register(meterRegistry);
+    }
+    
     private ChatClient selectChatClient(AdvisorQueryRequest.LlmProvider provider) {
-        if (provider == null) {
-            provider = AdvisorQueryRequest.LlmProvider.valueOf(defaultProvider.toUpperCase());
-        }
-        
         return switch (provider) {
             case OPENAI -> {
                 log.debug("Using OpenAI chat client");
@@ -79,6 +294,28 @@ public class LlmService {
         };
     }
     
+    // thenApply does not cancel its source; without this a cancelled caller would leave the call running
+    static <T> CompletableFuture<T> propagateCancellation(CompletableFuture<T> derived, CompletableFuture<?> source) {
+        derived.whenComplete((ignored, error) -> {
+            if (derived.isCancelled()) {
+                source.cancel(true);
+            }
+        });
+        return derived;
+    }
+    
+    // Sync entry points still go through the bulkhead; only the wait happens on the caller's thread
+    private <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+    
     private String buildPrompt(String userQuery, String context) {
         if (context != null && !context.isBlank()) {
             return String.format("""
@@ -97,6 +334,53 @@ public class LlmService {
     }
     
     public String analyzeFraudPattern(String transactionDetails) {
+        return await(analyzeFraudPatternAsync(transactionDetails));
+    }
+    
+    // One prompt for many transactions; the caller maps the JSON verdicts back by transaction id
+    public CompletableFuture<String> analyzeFraudPatternsBatchAsync(Map<Long, String> transactionDetailsById) {
+        log.debug("Analyzing {} transactions for fraud patterns in one prompt", transactionDetailsById.size());
+        
+        StringBuilder transactions = new StringBuilder();
+        int number = 1;
+        for (Map.Entry<Long, String> entry : transactionDetailsById.entrySet()) {
+            transactions.append("### ").append(number++)
+                .append(". Transaction ID: ").append(entry.getKey()).append("\n")
+                .append(entry.getValue()).append("\n");
+        }
+        
+        String prompt = String.format("""
+            Analyze each of the following transactions for potential fraud indicators.
+            Consider factors like:
+            - Unusual amount patterns
+            - Location anomalies
+            - Merchant reputation
+            - Transaction timing
+            - Spending patterns
+            
+            Assess every transaction independently using only its own details and history.
+            
+            %s
+            
+            Respond with only a JSON array containing one object per transaction, in any order:
+            [{"id": <Transaction ID>, "risk": "LOW|MEDIUM|HIGH", "explanation": "<short reasoning>"}]
+            Example: [{"id": 42, "risk": "HIGH", "explanation": "Amount is 500%% higher than average monthly spending"}]
+            """, transactions);
+        
+        return llmExecutor.submit(LlmExecutor.Workload.FRAUD, AdvisorQueryRequest.LlmProvider.OLLAMA, () -> {
+            try {
+                return ollamaChatClient.prompt()
+                    .user(prompt)
+                    .call()
+                    .content();
+            } catch (Exception e) {
+                log.error("Failed to analyze fraud patterns in batch", e);
+                throw new LlmProcessingException("Failed to analyze transactions for fraud", e);
+            }
+        });
+    }
+    
+    public CompletableFuture<String> analyzeFraudPatternAsync(String transactionDetails) {
         log.debug("Analyzing transaction for fraud patterns");
         
         String prompt = String.format("""
@@ -116,14 +400,18 @@ public class LlmService {
             Example: HIGH|Transaction amount is 500%% higher than average monthly spending
             """, transactionDetails);
         
-        try {
-            return ollamaChatClient.prompt()
-                .user(prompt)
-                .call()
-                .content();
-        } catch (Exception e) {
-            log.error("Failed to analyze fraud pattern", e);
-            throw new LlmProcessingException("Failed to analyze transaction for fraud", e);
-        }
+        return llmExecutor.submit(LlmExecutor.Workload.FRAUD, AdvisorQueryRequest.LlmProvider.OLLAMA, () -> {
+            try {
+                return ollamaChatClient.prompt()
+                    .user(prompt)
+                    .call()
+                    .content();
+            } catch (Exception e) {
+                log.error("Failed to analyze fraud pattern", e);
+                throw new LlmProcessingException("Failed to analyze transaction for fraud", e);
+            }
+        });
     }
-}
\ No newline at end of file
+    
+    public record RoutedAdvice(String advice, AdvisorQueryRequest.LlmProvider provider) {}
+}
@@ -0,0 +1,49 @@
+package com.niyiment.aifinancetracker.service.ai;
+
+import com.niyiment.aifinancetracker.config.CacheConfig;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Locale;
+
+// Query vectors are cached as packed float[] keyed by model and normalized text; concurrent
+// lookups for the same query share a single embedding call. The model part names both the injected
+// EmbeddingModel implementation and the configured model, so switching either never serves stale vectors
+@Slf4j
+@Component
+public class QueryEmbeddingCache {
+    private final EmbeddingModel embeddingModel;
+    private final Cache cache;
+    private final String modelName;
+
+    public QueryEmbeddingCache(
+            EmbeddingModel embeddingModel,
+            CacheManager cacheManager,
+            @Value("${finance.ai.embedding.model}") String modelName
+    ) {
+        this.embeddingModel = embeddingModel;
+        this.cache = cacheManager.getCache(CacheConfig.EMBEDDINGS_CACHE);
+        this.modelName = embeddingModel.getClass().getSimpleName() + "/" + modelName;
+    }
+
+    public float[] embed(String query) {
+        String normalized = normalize(query);
+        return cache.get(modelName + ":" + normalized, () -> generate(normalized));
+    }
+
+    private float[] generate(String text) {
+        log.debug("Query embedding cache miss, embedding with {}", modelName);
+        EmbeddingResponse response = embeddingModel.embedForResponse(List.of(text));
+        return response.getResults().get(0).getOutput();
+    }
+
+    private static String normalize(String query) {
+        return query.strip().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+}
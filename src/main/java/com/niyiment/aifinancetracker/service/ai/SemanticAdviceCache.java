@@ -0,0 +1,171 @@
+package com.niyiment.aifinancetracker.service.ai;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Reuses earlier advice for near-identical questions. Entries are only compared within a scope made of
+// the provider, whether document context was used and a coarse bucket of the user's financial summary,
+// so an answer written for a very different financial situation is never served
+@Slf4j
+@Component
+public class SemanticAdviceCache {
+    private final Cache<Long, CachedAdvice> entries;
+    private final Map<String, Set<Long>> scopes = new ConcurrentHashMap<>();
+    private final AtomicLong nextId = new AtomicLong();
+    private final boolean enabled;
+    private final double maxDistance;
+    private final double bucketsPerDoubling;
+
+    private final Counter hits;
+    private final Counter misses;
+
+    public SemanticAdviceCache(
+            MeterRegistry meterRegistry,
+            @Value("${finance.ai.advisor.semantic-cache.enabled}") boolean enabled,
+            @Value("${finance.ai.advisor.semantic-cache.max-distance}") double maxDistance,
+            @Value("${finance.ai.advisor.semantic-cache.max-entries}") long maxEntries,
+            @Value("${finance.ai.advisor.semantic-cache.ttl}") Duration ttl,
+            @Value("${finance.ai.advisor.semantic-cache.buckets-per-doubling}") double bucketsPerDoubling
+    ) {
+        this.enabled = enabled;
+        this.maxDistance = maxDistance;
+        this.bucketsPerDoubling = bucketsPerDoubling;
+        this.entries = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .removalListener((Long id, CachedAdvice advice, RemovalCause cause) -> {
+                    if (id != null && advice != null) {
+                        unindex(advice.scope(), id);
+                    }
+                })
+                .build();
+
+        this.hits = Counter.builder("advisor.semantic.cache.requests").tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder("advisor.semantic.cache.requests").tag("result", "miss").register(meterRegistry);
+        Gauge.builder("advisor.semantic.cache.hit.ratio", this, SemanticAdviceCache::hitRatio)
+                .register(meterRegistry);
+        Gauge.builder("advisor.semantic.cache.size", entries, Cache::estimatedSize)
+                .register(meterRegistry);
+        FunctionCounter.builder("advisor.semantic.cache.evictions", entries, c -> c.stats().evictionCount())
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public String scope(String provider, boolean documentContext, Collection<String> documentSources,
+                        Map<String, Object> summary) {
+        return provider + "|" + (documentContext ? "docs" : "no-docs")
+                + (documentSources == null || documentSources.isEmpty()
+                        ? "" : "|src" + new TreeSet<>(documentSources))
+                + "|i" + bucket(summary.get("totalIncome"))
+                + "|e" + bucket(summary.get("totalExpenses"))
+                + "|v" + bucket(summary.get("totalInvestment"))
+                + "|s" + bucket(summary.get("netSavings"));
+    }
+
+    public Optional<CachedAdvice> lookup(String scope, float[] queryEmbedding) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+
+        float[] query = normalize(queryEmbedding);
+        CachedAdvice best = null;
+        double bestDistance = maxDistance;
+
+        for (Long id : scopes.getOrDefault(scope, Set.of())) {
+            CachedAdvice candidate = entries.getIfPresent(id);
+            if (candidate == null) {
+                continue;
+            }
+            double distance = 1.0 - dot(query, candidate.embedding());
+            if (distance <= bestDistance) {
+                best = candidate;
+                bestDistance = distance;
+            }
+        }
+
+        if (best == null) {
+            misses.increment();
+            return Optional.empty();
+        }
+
+        hits.increment();
+        log.debug("Semantic advice cache hit in scope {} (cosine distance {})", scope, bestDistance);
+        return Optional.of(best);
+    }
+
+    public void put(String scope, float[] queryEmbedding, String advice, List<String> relevantDocuments) {
+        if (!enabled || advice == null || advice.isBlank()) {
+            return;
+        }
+
+        long id = nextId.incrementAndGet();
+        scopes.computeIfAbsent(scope, s -> ConcurrentHashMap.newKeySet()).add(id);
+        entries.put(id, new CachedAdvice(scope, normalize(queryEmbedding), advice, List.copyOf(relevantDocuments)));
+    }
+
+    private void unindex(String scope, Long id) {
+        scopes.computeIfPresent(scope, (s, ids) -> {
+            ids.remove(id);
+            return ids.isEmpty() ? null : ids;
+        });
+    }
+
+    // Logarithmic buckets: amounts within the same fraction of a doubling share a bucket, sign is kept
+    private long bucket(Object amount) {
+        double value = amount instanceof BigDecimal decimal ? decimal.doubleValue()
+                : amount instanceof Number number ? number.doubleValue() : 0.0;
+        long magnitude = (long) Math.floor(Math.log(Math.abs(value) + 1.0) / Math.log(2) * bucketsPerDoubling);
+        return value < 0 ? -magnitude : magnitude;
+    }
+
+    private double hitRatio() {
+        double total = hits.count() + misses.count();
+        return total == 0 ? 0.0 : hits.count() / total;
+    }
+
+    private static float[] normalize(float[] vector) {
+        double norm = Math.sqrt(dot(vector, vector));
+        float[] normalized = new float[vector.length];
+        if (norm == 0) {
+            return normalized;
+        }
+        for (int i = 0; i < vector.length; i++) {
+            normalized[i] = (float) (vector[i] / norm);
+        }
+        return normalized;
+    }
+
+    private static double dot(float[] a, float[] b) {
+        int length = Math.min(a.length, b.length);
+        double sum = 0;
+        for (int i = 0; i < length; i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+
+    public record CachedAdvice(String scope, float[] embedding, String advice, List<String> relevantDocuments) {}
+}
@@ -0,0 +1,20 @@
+package com.niyiment.aifinancetracker.service.ai;
+
+import java.util.Set;
+
+public record SpendingBaseline(
+        long sampleCount,
+        double meanAmount,
+        double stdDevAmount,
+        Set<String> merchants,
+        Set<String> locations
+) {
+
+    public boolean isKnownMerchant(String merchant) {
+        return merchant == null || merchants.contains(merchant.toLowerCase());
+    }
+
+    public boolean isKnownLocation(String location) {
+        return location == null || locations.contains(location.toLowerCase());
+    }
+}
@@ -0,0 +1,168 @@
+package com.niyiment.aifinancetracker.service.ai;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.niyiment.aifinancetracker.entity.Transaction;
+import com.niyiment.aifinancetracker.repository.TransactionRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BinaryOperator;
+import java.util.stream.Collectors;
+
+@Slf4j
+@Component
+public class SpendingProfileStore {
+    // Order in which rows enter a profile; a rebuild for a transaction reads only rows sorting before it
+    private static final Comparator<Transaction> HISTORY_ORDER = Comparator
+            .comparing(Transaction::getTransactionDate)
+            .thenComparing(Transaction::getId);
+
+    private final TransactionRepository transactionRepository;
+    private final ObjectMapper objectMapper;
+    private final Cache<String, UserSpendingProfile> profiles;
+    private final int recentSize;
+    private final int knownValuesSize;
+    private final double minAlpha;
+    private final int historyDays;
+    private final int rebuildSize;
+
+    public SpendingProfileStore(
+            TransactionRepository transactionRepository,
+            ObjectMapper objectMapper,
+            MeterRegistry meterRegistry,
+            @Value("${finance.ai.fraud-detection.profile.max-users}") long maxUsers,
+            @Value("${finance.ai.fraud-detection.profile.idle-expiry}") Duration idleExpiry,
+            @Value("${finance.ai.fraud-detection.profile.recent-size}") int recentSize,
+            @Value("${finance.ai.fraud-detection.profile.known-values-size}") int knownValuesSize,
+            @Value("${finance.ai.fraud-detection.profile.min-alpha}") double minAlpha,
+            @Value("${finance.ai.fraud-detection.profile.rebuild-size}") int rebuildSize,
+            @Value("${finance.ai.fraud-detection.history-days}") int historyDays
+    ) {
+        this.transactionRepository = transactionRepository;
+        this.objectMapper = objectMapper;
+        this.recentSize = recentSize;
+        this.knownValuesSize = knownValuesSize;
+        this.minAlpha = minAlpha;
+        this.rebuildSize = rebuildSize;
+        this.historyDays = historyDays;
+        this.profiles = Caffeine.newBuilder()
+                .maximumSize(maxUsers)
+                .expireAfterAccess(idleExpiry)
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, profiles, "spendingProfiles");
+    }
+
+    // Profiles of the users about to be scored. Misses are rebuilt together with one windowed query that
+    // only reads rows older than the user's earliest transaction in the batch, so neither the scored rows
+    // nor anything committed after them leak into the baseline; rows are recorded once their verdict is in.
+    // A cached profile that already holds one of the rows (a redelivered or retried record) is rebuilt too,
+    // so a retry is scored against the same baseline as the first attempt
+    public Map<String, UserSpendingProfile> profilesFor(Collection<Transaction> transactions) {
+        Map<String, Transaction> earliestByUser = transactions.stream()
+                .collect(Collectors.toMap(Transaction::getUserId, t -> t, BinaryOperator.minBy(HISTORY_ORDER)));
+
+        Map<String, UserSpendingProfile> result = new HashMap<>(profiles.getAllPresent(earliestByUser.keySet()));
+        for (Transaction transaction : transactions) {
+            UserSpendingProfile cached = result.get(transaction.getUserId());
+            if (cached != null && cached.contains(transaction.getId())) {
+                result.remove(transaction.getUserId());
+                profiles.asMap().remove(transaction.getUserId(), cached);
+            }
+        }
+        Map<String, Transaction> missing = new HashMap<>(earliestByUser);
+        missing.keySet().removeAll(result.keySet());
+        if (missing.isEmpty()) {
+            return result;
+        }
+
+        log.debug("Rebuilding spending profiles for {} users", missing.size());
+        Map<String, List<Transaction>> historyByUser = transactionRepository
+                .findRecentTransactionsBefore(
+                        toBounds(missing.values()),
+                        LocalDateTime.now().minusDays(historyDays),
+                        rebuildSize)
+                .stream()
+                .collect(Collectors.groupingBy(Transaction::getUserId));
+
+        for (String userId : missing.keySet()) {
+            UserSpendingProfile rebuilt = rebuild(historyByUser.getOrDefault(userId, List.of()));
+            // Another consumer may have rebuilt the same user meanwhile; keep whichever landed first
+            result.put(userId, profiles.asMap().merge(userId, rebuilt, (existing, ignored) -> existing));
+        }
+        return result;
+    }
+
+    public void record(Transaction transaction) {
+        // Absent profiles are not created here: the lazy rebuild will read this row from the database
+        UserSpendingProfile profile = profiles.getIfPresent(transaction.getUserId());
+        if (profile != null) {
+            apply(profile, transaction);
+        }
+    }
+
+    // Edited or deleted rows cannot be taken back out of the running statistics, so the profile is dropped
+    // and rebuilt from the database on next use. Dropped again after commit so a rebuild that raced the
+    // write does not keep the old row
+    public void invalidate(String userId) {
+        profiles.invalidate(userId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    profiles.invalidate(userId);
+                }
+            });
+        }
+    }
+
+    private UserSpendingProfile rebuild(List<Transaction> history) {
+        UserSpendingProfile profile = new UserSpendingProfile(recentSize, knownValuesSize, minAlpha);
+        // Replay oldest first so the ring buffer ends with the newest rows
+        for (int i = history.size() - 1; i >= 0; i--) {
+            apply(profile, history.get(i));
+        }
+        return profile;
+    }
+
+    private void apply(UserSpendingProfile profile, Transaction transaction) {
+        profile.apply(
+                transaction.getId(),
+                transaction.getAmount().doubleValue(),
+                transaction.getCategory(),
+                transaction.getMerchant(),
+                transaction.getLocation(),
+                transaction.getTransactionDate()
+        );
+    }
+
+    private String toBounds(Collection<Transaction> earliest) {
+        List<Map<String, Object>> bounds = earliest.stream()
+                .map(t -> Map.<String, Object>of(
+                        "user_id", t.getUserId(),
+                        "before_date", t.getTransactionDate().toString(),
+                        "before_id", t.getId()))
+                .toList();
+        try {
+            return objectMapper.writeValueAsString(bounds);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize profile rebuild bounds", e);
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package com.niyiment.aifinancetracker.service.ai;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+// Per-user fraud baseline kept in flat arrays so a cached profile costs a few KB instead of a list of entities
+public class UserSpendingProfile {
+    private static final int INITIAL_CATEGORIES = 8;
+
+    private final double minAlpha;
+
+    // Exponentially weighted amount statistics; alpha starts at 1/n so early samples get exact mean/variance
+    private long sampleCount;
+    private double meanAmount;
+    private double varianceAmount;
+
+    private String[] categoryNames = new String[INITIAL_CATEGORIES];
+    private double[] categoryTotals = new double[INITIAL_CATEGORIES];
+    private int categoryCount;
+
+    private final String[] recentMerchants;
+    private final String[] recentLocations;
+    private int merchantCursor;
+    private int locationCursor;
+
+    // Ring buffer of recent transactions, newest at (head - 1)
+    private final long[] ids;
+    private final double[] amounts;
+    private final long[] timestamps;
+    private final String[] merchants;
+    private final String[] categories;
+    private int head;
+    private int size;
+
+    public UserSpendingProfile(int recentSize, int knownValuesSize, double minAlpha) {
+        this.minAlpha = minAlpha;
+        this.recentMerchants = new String[knownValuesSize];
+        this.recentLocations = new String[knownValuesSize];
+        this.ids = new long[recentSize];
+        this.amounts = new double[recentSize];
+        this.timestamps = new long[recentSize];
+        this.merchants = new String[recentSize];
+        this.categories = new String[recentSize];
+    }
+
+    public synchronized boolean apply(long id, double amount, String category, String merchant,
+                                      String location, LocalDateTime transactionDate) {
+        if (containsRecent(id)) {
+            return false;
+        }
+
+        sampleCount++;
+        double alpha = Math.max(1.0 / sampleCount, minAlpha);
+        double diff = amount - meanAmount;
+        double increment = alpha * diff;
+        meanAmount += increment;
+        varianceAmount = (1 - alpha) * (varianceAmount + diff * increment);
+
+        addCategoryTotal(category, amount);
+
+        if (merchant != null) {
+            recentMerchants[merchantCursor] = merchant.toLowerCase();
+            merchantCursor = (merchantCursor + 1) % recentMerchants.length;
+        }
+        if (location != null) {
+            recentLocations[locationCursor] = location.toLowerCase();
+            locationCursor = (locationCursor + 1) % recentLocations.length;
+        }
+
+        ids[head] = id;
+        amounts[head] = amount;
+        timestamps[head] = transactionDate.toEpochSecond(ZoneOffset.UTC);
+        merchants[head] = merchant;
+        categories[head] = category;
+        head = (head + 1) % ids.length;
+        size = Math.min(size + 1, ids.length);
+
+        return true;
+    }
+
+    public synchronized boolean contains(long id) {
+        return containsRecent(id);
+    }
+
+    public synchronized SpendingBaseline toBaseline() {
+        return new SpendingBaseline(
+                sampleCount,
+                meanAmount,
+                Math.sqrt(varianceAmount),
+                distinct(recentMerchants),
+                distinct(recentLocations)
+        );
+    }
+
+    public synchronized List<RecentTransaction> recentTransactions(int limit) {
+        int count = Math.min(limit, size);
+        List<RecentTransaction> recent = new ArrayList<>(count);
+        for (int i = 1; i <= count; i++) {
+            int index = Math.floorMod(head - i, ids.length);
+            recent.add(new RecentTransaction(
+                    ids[index],
+                    amounts[index],
+                    merchants[index],
+                    categories[index],
+                    LocalDateTime.ofEpochSecond(timestamps[index], 0, ZoneOffset.UTC)
+            ));
+        }
+        return recent;
+    }
+
+    public synchronized double categoryTotal(String category) {
+        for (int i = 0; i < categoryCount; i++) {
+            if (categoryNames[i].equals(category)) {
+                return categoryTotals[i];
+            }
+        }
+        return 0;
+    }
+
+    private void addCategoryTotal(String category, double amount) {
+        for (int i = 0; i < categoryCount; i++) {
+            if (categoryNames[i].equals(category)) {
+                categoryTotals[i] += amount;
+                return;
+            }
+        }
+        if (categoryCount == categoryNames.length) {
+            categoryNames = Arrays.copyOf(categoryNames, categoryCount * 2);
+            categoryTotals = Arrays.copyOf(categoryTotals, categoryCount * 2);
+        }
+        categoryNames[categoryCount] = category;
+        categoryTotals[categoryCount] = amount;
+        categoryCount++;
+    }
+
+    private boolean containsRecent(long id) {
+        for (int i = 0; i < size; i++) {
+            if (ids[i] == id) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Set<String> distinct(String[] values) {
+        Set<String> set = new HashSet<>();
+        for (String value : values) {
+            if (value != null) {
+                set.add(value);
+            }
+        }
+        return set;
+    }
+
+    public record RecentTransaction(
+            long id,
+            double amount,
+            String merchant,
+            String category,
+            LocalDateTime transactionDate
+    ) {}
+}
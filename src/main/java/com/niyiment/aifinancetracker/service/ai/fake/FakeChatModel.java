@@ -0,0 +1,133 @@
+package com.niyiment.aifinancetracker.service.ai.fake;
+
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.Prompt;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Answers the prompts LlmService sends with templated, deterministic replies: "RISK_LEVEL|Explanation"
+// for single fraud checks, a JSON verdict array for batched ones, and canned advice for everything else.
+// The same prompt always gets the same reply; only latency and failures are random
+public class FakeChatModel implements ChatModel {
+    private static final Pattern BATCH_ITEM = Pattern.compile("### \\d+\\. Transaction ID: (\\d+)\\n");
+    private static final String[] EXPLANATIONS = {
+            "Amount is in line with the user's recent spending",
+            "Merchant and category match the user's usual pattern",
+            "Amount is noticeably higher than the recent average",
+            "Transaction time and location differ from the usual pattern",
+            "Amount is far above average for an unfamiliar merchant"
+    };
+
+    private final String name;
+    private final SimulatedLatency latency;
+    private final Duration streamChunkDelay;
+
+    public FakeChatModel(String name, SimulatedLatency latency, Duration streamChunkDelay) {
+        this.name = name;
+        this.latency = latency;
+        this.streamChunkDelay = streamChunkDelay;
+    }
+
+    @Override
+    public ChatResponse call(Prompt prompt) {
+        latency.await();
+        return response(reply(prompt.getContents()));
+    }
+
+    // The simulated latency is spent before the first chunk, then words arrive at a steady pace
+    @Override
+    public Flux<ChatResponse> stream(Prompt prompt) {
+        return Flux.defer(() -> {
+                    latency.await();
+                    return Flux.fromArray(reply(prompt.getContents()).split("(?<= )"));
+                })
+                .doOnNext(chunk -> SimulatedLatency.sleep(streamChunkDelay.toMillis()))
+                .map(this::response)
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    private ChatResponse response(String text) {
+        return new ChatResponse(List.of(new Generation(new AssistantMessage(text))));
+    }
+
+    private String reply(String prompt) {
+        if (prompt.contains("Respond with only a JSON array")) {
+            return batchVerdicts(prompt);
+        }
+        if (prompt.contains("RISK_LEVEL|Explanation")) {
+            return verdict(section(prompt, "Transaction Details:", "Provide a fraud risk assessment"));
+        }
+        return advice(prompt);
+    }
+
+    private String batchVerdicts(String prompt) {
+        Matcher matcher = BATCH_ITEM.matcher(prompt);
+        List<BatchItem> items = new ArrayList<>();
+        while (matcher.find()) {
+            items.add(new BatchItem(Long.parseLong(matcher.group(1)), matcher.start(), matcher.end()));
+        }
+
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < items.size(); i++) {
+            BatchItem item = items.get(i);
+            int detailsEnd = i + 1 < items.size()
+                    ? items.get(i + 1).headerStart()
+                    : Math.max(item.detailsStart(), prompt.indexOf("Respond with only a JSON array"));
+            String[] verdict = verdict(prompt.substring(item.detailsStart(), detailsEnd).strip()).split("\\|", 2);
+
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"id\": ").append(item.id())
+                    .append(", \"risk\": \"").append(verdict[0])
+                    .append("\", \"explanation\": \"").append(verdict[1]).append("\"}");
+        }
+        return json.append(']').toString();
+    }
+
+    // The same transaction details get the same verdict whether they were sent alone or in a batch
+    private static String section(String prompt, String startMarker, String endMarker) {
+        int start = prompt.indexOf(startMarker);
+        int end = prompt.indexOf(endMarker);
+        if (start < 0 || end < start) {
+            return prompt;
+        }
+        return prompt.substring(start + startMarker.length(), end).strip();
+    }
+
+    // Mostly LOW, some MEDIUM and a few HIGH, so alerts and Kafka publishing are exercised too
+    private String verdict(String details) {
+        int bucket = Math.floorMod(details.hashCode(), 20);
+        if (bucket == 0) {
+            return "HIGH|" + EXPLANATIONS[4];
+        }
+        if (bucket <= 2) {
+            return "MEDIUM|" + EXPLANATIONS[2 + bucket % 2];
+        }
+        return "LOW|" + EXPLANATIONS[bucket % 2];
+    }
+
+    private String advice(String prompt) {
+        int variant = Math.floorMod(prompt.hashCode(), 3);
+        String focus = switch (variant) {
+            case 0 -> "build an emergency fund covering three to six months of expenses before taking on more risk";
+            case 1 -> "keep your largest spending categories under review and automate a fixed monthly saving";
+            default -> "spread long-term investments across low-cost diversified funds and rebalance once a year";
+        };
+        return "Based on your recent transactions, the most useful next step is to " + focus + ". "
+                + "Review your budget monthly and adjust as your income and goals change. "
+                + "This is educational guidance generated by the " + name + " stand-in model, "
+                + "not professional financial planning.";
+    }
+
+    private record BatchItem(long id, int headerStart, int detailsStart) {}
+}
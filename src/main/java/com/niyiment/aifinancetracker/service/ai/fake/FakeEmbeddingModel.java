@@ -0,0 +1,90 @@
+package com.niyiment.aifinancetracker.service.ai.fake;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.Embedding;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+
+// Deterministic embeddings: every word maps to a hash-seeded random direction and a text is the normalized
+// sum of its words. The same text always gets the same vector and texts sharing words land close together,
+// so retrieval, the query cache and the semantic cache behave much as they do against a real model
+public class FakeEmbeddingModel implements EmbeddingModel {
+    private final int dimensions;
+    private final SimulatedLatency latency;
+
+    public FakeEmbeddingModel(int dimensions, SimulatedLatency latency) {
+        this.dimensions = dimensions;
+        this.latency = latency;
+    }
+
+    @Override
+    public EmbeddingResponse call(EmbeddingRequest request) {
+        // One simulated round trip per request, as with a batched provider call
+        latency.await();
+
+        List<Embedding> embeddings = new ArrayList<>(request.getInstructions().size());
+        for (int i = 0; i < request.getInstructions().size(); i++) {
+            embeddings.add(new Embedding(vector(request.getInstructions().get(i)), i));
+        }
+        return new EmbeddingResponse(embeddings);
+    }
+
+    @Override
+    public float[] embed(Document document) {
+        return call(new EmbeddingRequest(List.of(document.getFormattedContent()), null))
+                .getResult()
+                .getOutput();
+    }
+
+    @Override
+    public int dimensions() {
+        return dimensions;
+    }
+
+    private float[] vector(String text) {
+        double[] sum = new double[dimensions];
+        for (String word : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (word.isEmpty()) {
+                continue;
+            }
+            SplittableRandom random = new SplittableRandom(seed(word));
+            for (int i = 0; i < dimensions; i++) {
+                sum[i] += random.nextGaussian();
+            }
+        }
+
+        double norm = 0;
+        for (double v : sum) {
+            norm += v * v;
+        }
+        norm = Math.sqrt(norm);
+
+        float[] vector = new float[dimensions];
+        if (norm == 0) {
+            // Text without words still needs a valid, stable direction
+            vector[0] = 1.0f;
+            return vector;
+        }
+        for (int i = 0; i < dimensions; i++) {
+            vector[i] = (float) (sum[i] / norm);
+        }
+        return vector;
+    }
+
+    // FNV-1a over the UTF-8 bytes; String.hashCode has too few bits to seed 1536 dimensions well
+    private static long seed(String word) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : word.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b;
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+}
@@ -0,0 +1,49 @@
+package com.niyiment.aifinancetracker.service.ai.fake;
+
+import org.springframework.ai.retry.TransientAiException;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Log-normal latency fitted to a median and a p99, plus an independent failure rate. Real model calls
+// have a long right tail, which is what hedging and the bulkheads have to cope with
+public class SimulatedLatency {
+    private static final double Z_99 = 2.326;
+
+    private final String name;
+    private final double medianMillis;
+    private final double sigma;
+    private final double failureRate;
+
+    public SimulatedLatency(String name, Duration median, Duration p99, double failureRate) {
+        this.name = name;
+        this.medianMillis = Math.max(0, median.toMillis());
+        this.sigma = medianMillis > 0 && p99.toMillis() > medianMillis
+                ? Math.log(p99.toMillis() / medianMillis) / Z_99
+                : 0.0;
+        this.failureRate = failureRate;
+    }
+
+    // Blocks the calling thread like a real HTTP call would, then fails with the configured probability
+    public void await() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long millis = (long) (medianMillis * Math.exp(sigma * random.nextGaussian()));
+        sleep(millis);
+
+        if (random.nextDouble() < failureRate) {
+            throw new TransientAiException("Simulated " + name + " failure after " + millis + " ms");
+        }
+    }
+
+    static void sleep(long millis) {
+        if (millis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TransientAiException("Simulated call interrupted");
+        }
+    }
+}
@@ -2,53 +2,118 @@ package com.niyiment.aifinancetracker.service.command;
 
 
 import com.niyiment.aifinancetracker.dto.request.TransactionRequest;
+import com.niyiment.aifinancetracker.dto.response.BulkTransactionResponse;
 import com.niyiment.aifinancetracker.dto.response.TransactionResponse;
 import com.niyiment.aifinancetracker.entity.Transaction;
 import com.niyiment.aifinancetracker.event.TransactionCreatedEvent;
 import com.niyiment.aifinancetracker.exception.InvalidTransactionException;
 import com.niyiment.aifinancetracker.exception.ResourceNotFoundException;
+import com.niyiment.aifinancetracker.mapper.TransactionMapper;
+import com.niyiment.aifinancetracker.repository.RollupDelta;
 import com.niyiment.aifinancetracker.repository.TransactionRepository;
+import com.niyiment.aifinancetracker.service.ai.SpendingProfileStore;
+import com.niyiment.aifinancetracker.service.outbox.OutboxService;
+import com.niyiment.aifinancetracker.service.query.QueryCacheInvalidator;
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class TransactionCommandService {
     private final TransactionRepository repository;
-    private final KafkaTemplate<String, TransactionCreatedEvent> kafkaTemplate;
+    private final EntityManager entityManager;
+    private final OutboxService outboxService;
+    private final TransactionRollupService rollupService;
+    private final QueryCacheInvalidator cacheInvalidator;
+    private final TransactionMapper transactionMapper;
+    private final SpendingProfileStore spendingProfileStore;
 
     @Value("${finance.kafka.topics.transaction-created}")
     private String transactionCreatedTopic;
 
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size}")
+    private int jdbcBatchSize;
+
+    @Value("${finance.transactions.bulk.max-size}")
+    private int bulkMaxSize;
+
     @Transactional
     public TransactionResponse createTransaction(TransactionRequest request) {
         log.info("Creating transaction: {}", request.userId());
 
         validateTransaction(request);
 
-        Transaction transaction = Transaction.builder()
-                .userId(request.userId())
-                .amount(request.amount())
-                .category(request.category())
-                .transactionType(request.transactionType())
-                .transactionDate(request.transactionDate())
-                .merchant(request.merchant())
-                .location(request.location())
-                .build();
+        Transaction transaction = transactionMapper.toEntity(request);
         Transaction savedTransaction = repository.save(transaction);
         log.debug("Saved transaction with ID: {}", savedTransaction.getId());
+        rollupService.recordCreated(List.of(savedTransaction));
+        cacheInvalidator.transactionsChanged(List.of(savedTransaction.getUserId()), List.of());
 
         // publish event for fraud detection
-        publishTransactionCreatedEvent(request);
+        publishTransactionCreatedEvent(savedTransaction);
 
-        return toResponse(savedTransaction);
+        return transactionMapper.toResponse(savedTransaction);
+    }
+
+    @Transactional
+    public BulkTransactionResponse createTransactions(List<TransactionRequest> requests) {
+        log.info("Creating {} transactions in bulk", requests.size());
+        long start = System.nanoTime();
+
+        if (requests.size() > bulkMaxSize) {
+            throw new InvalidTransactionException(
+                    "Bulk request exceeds maximum size of " + bulkMaxSize + ": " + requests.size());
+        }
+
+        for (int i = 0; i < requests.size(); i++) {
+            try {
+                validateTransaction(requests.get(i));
+            } catch (InvalidTransactionException e) {
+                throw new InvalidTransactionException("Transaction at index " + i + " rejected: " + e.getMessage());
+            }
+        }
+
+        // Flush and clear per JDBC batch so the persistence context stays small
+        List<Long> ids = new ArrayList<>(requests.size());
+        for (int from = 0; from < requests.size(); from += jdbcBatchSize) {
+            List<Transaction> chunk = requests.subList(from, Math.min(from + jdbcBatchSize, requests.size()))
+                    .stream()
+                    .map(transactionMapper::toEntity)
+                    .toList();
+
+            List<Transaction> savedChunk = repository.saveAll(chunk);
+            List<TransactionCreatedEvent> events = new ArrayList<>(savedChunk.size());
+            for (Transaction saved : savedChunk) {
+                ids.add(saved.getId());
+                events.add(transactionMapper.toEvent(saved));
+            }
+            publishTransactionCreatedEvents(events);
+            rollupService.recordCreated(savedChunk);
+            cacheInvalidator.transactionsChanged(
+                    savedChunk.stream().map(Transaction::getUserId).distinct().toList(), List.of());
+
+            entityManager.flush();
+            entityManager.clear();
+        }
+
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        log.info("Bulk created {} transactions in {} ms ({} rows/s)",
+                ids.size(), elapsedMillis, elapsedMillis > 0 ? ids.size() * 1000L / elapsedMillis : ids.size());
+
+        return BulkTransactionResponse.builder()
+                .created(ids.size())
+                .transactionIds(ids)
+                .elapsedMillis(elapsedMillis)
+                .build();
     }
 
     @Transactional
@@ -60,33 +125,34 @@ public class TransactionCommandService {
 
         validateTransaction(request);
 
-        transaction.setAmount(request.amount());
-        transaction.setCategory(request.category());
-        transaction.setTransactionType(request.transactionType());
-        transaction.setTransactionDate(request.transactionDate());
-        transaction.setMerchant(request.merchant());
-        transaction.setLocation(request.location());
+        RollupDelta before = RollupDelta.removed(transaction);
+        transactionMapper.updateEntity(request, transaction);
 
         Transaction updatedTransaction = repository.save(transaction);
         log.debug("Updated transaction with ID: {}", updatedTransaction.getId());
+        rollupService.recordUpdated(before, updatedTransaction);
+        cacheInvalidator.transactionsChanged(List.of(updatedTransaction.getUserId()), List.of(id));
+        spendingProfileStore.invalidate(updatedTransaction.getUserId());
 
-        return toResponse(updatedTransaction);
+        return transactionMapper.toResponse(updatedTransaction);
     }
 
     @Transactional
     public void deleteTransaction(Long id) {
         log.info("Deleting transaction with ID: {}", id);
 
-        if (!repository.existsById(id)) {
-            throw new ResourceNotFoundException("Transaction not found with ID: " + id);
-        }
+        Transaction transaction = repository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Transaction not found with ID: " + id));
 
-        repository.deleteById(id);
+        repository.delete(transaction);
+        rollupService.recordDeleted(transaction);
+        cacheInvalidator.transactionsChanged(List.of(transaction.getUserId()), List.of(id));
+        spendingProfileStore.invalidate(transaction.getUserId());
         log.debug("Deleted transaction with ID: {}", id);
     }
 
     ///  Helper methods
-    private void validateTransaction(TransactionRequest request) {
+    public void validateTransaction(TransactionRequest request) {
         if (request.amount().signum() <= 0) {
             throw new InvalidTransactionException("Invalid transaction amount: " + request.amount());
         }
@@ -96,31 +162,17 @@ public class TransactionCommandService {
         }
     }
 
-    private void publishTransactionCreatedEvent(TransactionRequest request) {
-        TransactionCreatedEvent event = TransactionCreatedEvent.builder()
-                .userId(request.userId())
-                .amount(request.amount())
-                .transactionDate(request.transactionDate())
-                .transactionType(request.transactionType())
-                .category(request.category())
-                .build();
+    private void publishTransactionCreatedEvent(Transaction transaction) {
+        TransactionCreatedEvent event = transactionMapper.toEvent(transaction);
 
-        kafkaTemplate.send(transactionCreatedTopic, event);
-        log.info("Published transaction created event: {}", event);
+        // Written to the outbox in the same transaction; OutboxRelay sends it to Kafka after commit
+        outboxService.enqueue(transactionCreatedTopic, event.userId(), event);
+        log.info("Queued transaction created event: {}", event);
     }
 
-    private TransactionResponse toResponse(Transaction transaction) {
-        return TransactionResponse.builder()
-                .id(transaction.getId())
-                .userId(transaction.getUserId())
-                .amount(transaction.getAmount())
-                .category(transaction.getCategory())
-                .transactionType(transaction.getTransactionType())
-                .transactionDate(transaction.getTransactionDate())
-                .merchant(transaction.getMerchant())
-                .createdAt(transaction.getCreatedAt())
-                .updatedAt(transaction.getUpdatedAt())
-                .build();
+    private void publishTransactionCreatedEvents(List<TransactionCreatedEvent> events) {
+        outboxService.enqueueAll(transactionCreatedTopic, events, TransactionCreatedEvent::userId);
+        log.debug("Queued {} transaction created events", events.size());
     }
 
 }
@@ -0,0 +1,111 @@
+package com.niyiment.aifinancetracker.service.command;
+
+import com.niyiment.aifinancetracker.repository.TransactionDailyRollupRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Rebuilds daily rollups from transactions one month at a time, so each pass holds the rebuild lock
+// only briefly. Backfills existing transactions on startup until that has completed once, repairs recent
+// days nightly and everything weekly
+@Slf4j
+@Component
+public class TransactionRollupReconciler {
+    private final TransactionDailyRollupRepository rollupRepository;
+    private final Counter correctedRows;
+    private final int lookbackDays;
+    // Passes can take minutes, so they run here rather than on the shared scheduler thread the outbox
+    // relay polls on; one thread also keeps the backfill and the scheduled passes from overlapping
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(
+            Thread.ofPlatform().name("rollup-reconciler").daemon().factory());
+
+    public TransactionRollupReconciler(
+            TransactionDailyRollupRepository rollupRepository,
+            MeterRegistry meterRegistry,
+            @Value("${finance.rollups.reconcile.lookback-days}") int lookbackDays
+    ) {
+        this.rollupRepository = rollupRepository;
+        this.correctedRows = Counter.builder("transactions.rollups.corrected").register(meterRegistry);
+        this.lookbackDays = lookbackDays;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillIfIncomplete() {
+        if (!rollupRepository.isBackfillComplete()) {
+            executor.execute(this::backfill);
+        }
+    }
+
+    @Scheduled(cron = "${finance.rollups.reconcile.recent-cron}")
+    public void reconcileRecent() {
+        executor.execute(() -> reconcile(LocalDate.now().minusDays(lookbackDays), false));
+    }
+
+    @Scheduled(cron = "${finance.rollups.reconcile.full-cron}")
+    public void reconcileAll() {
+        executor.execute(() -> {
+            LocalDate firstDay = rollupRepository.findFirstTransactionDay();
+            if (firstDay != null) {
+                reconcile(firstDay, false);
+            }
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    // Resumes after the last month that finished; only a pass that reaches today marks the backfill complete
+    private void backfill() {
+        if (rollupRepository.isBackfillComplete()) {
+            return;
+        }
+        LocalDate firstDay = rollupRepository.findFirstTransactionDay();
+        LocalDate backfilledUntil = rollupRepository.findBackfilledUntil();
+        LocalDate fromDay = backfilledUntil != null && (firstDay == null || backfilledUntil.isAfter(firstDay))
+                ? backfilledUntil
+                : firstDay;
+
+        if (fromDay == null || reconcile(fromDay, true)) {
+            rollupRepository.markBackfillComplete();
+            log.info("Transaction rollup backfill complete");
+        }
+    }
+
+    private boolean reconcile(LocalDate fromDay, boolean backfill) {
+        long start = System.nanoTime();
+        // Transaction dates cannot be in the future, so tomorrow bounds everything written so far
+        LocalDate endDay = LocalDate.now().plusDays(1);
+        int corrected = 0;
+        boolean completed = false;
+        try {
+            for (LocalDate day = fromDay; day.isBefore(endDay); day = day.withDayOfMonth(1).plusMonths(1)) {
+                LocalDate sliceEnd = day.withDayOfMonth(1).plusMonths(1);
+                LocalDate toDay = sliceEnd.isBefore(endDay) ? sliceEnd : endDay;
+                corrected += rollupRepository.rebuild(day, toDay);
+                if (backfill) {
+                    rollupRepository.markBackfilledUntil(toDay);
+                }
+            }
+            completed = true;
+        } catch (Exception e) {
+            log.error("Rollup reconciliation from {} failed: {}", fromDay, e.getMessage(), e);
+        }
+
+        correctedRows.increment(corrected);
+        log.info("Reconciled transaction rollups from {} in {} ms, {} rows corrected",
+                fromDay, (System.nanoTime() - start) / 1_000_000, corrected);
+        return completed;
+    }
+}
@@ -0,0 +1,52 @@
+package com.niyiment.aifinancetracker.service.command;
+
+import com.niyiment.aifinancetracker.entity.Transaction;
+import com.niyiment.aifinancetracker.repository.RollupDelta;
+import com.niyiment.aifinancetracker.repository.TransactionDailyRollupRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Keeps transaction_daily_rollups in step with transactions inside the writing transaction.
+// Deltas for the same rollup row are merged first, so a bulk insert costs one upsert per user-day-category
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TransactionRollupService {
+    private final TransactionDailyRollupRepository rollupRepository;
+
+    @Transactional
+    public void recordCreated(Collection<Transaction> transactions) {
+        apply(transactions.stream().map(RollupDelta::added).toList());
+    }
+
+    @Transactional
+    public void recordDeleted(Transaction transaction) {
+        apply(List.of(RollupDelta.removed(transaction)));
+    }
+
+    // before is the transaction as it was loaded, captured before any setter ran
+    @Transactional
+    public void recordUpdated(RollupDelta before, Transaction after) {
+        apply(List.of(before, RollupDelta.added(after)));
+    }
+
+    private void apply(List<RollupDelta> deltas) {
+        Map<RollupDelta.RollupKey, RollupDelta> merged = new TreeMap<>();
+        for (RollupDelta delta : deltas) {
+            merged.merge(delta.key(), delta, RollupDelta::plus);
+        }
+
+        List<RollupDelta> changes = merged.values().stream()
+                .filter(delta -> !delta.isZero())
+                .toList();
+        rollupRepository.applyDeltas(changes);
+        log.debug("Applied {} rollup changes for {} transaction changes", changes.size(), deltas.size());
+    }
+}
@@ -0,0 +1,179 @@
+package com.niyiment.aifinancetracker.service.importer;
+
+import com.niyiment.aifinancetracker.dto.request.TransactionRequest;
+import com.niyiment.aifinancetracker.entity.Transaction;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@Component
+public class CsvStatementParser implements StatementParser {
+    private static final int MAX_RECORD_LENGTH = 16 * 1024;
+    private static final String DEFAULT_CATEGORY = "Uncategorized";
+
+    @Override
+    public StatementFormat format() {
+        return StatementFormat.CSV;
+    }
+
+    @Override
+    public void parse(Reader reader, String userId, StatementRowHandler handler) throws IOException {
+        BufferedReader lines = reader instanceof BufferedReader buffered ? buffered : new BufferedReader(reader);
+
+        String header = lines.readLine();
+        if (header == null) {
+            return;
+        }
+        Map<String, Integer> columns = indexColumns(splitRecord(stripBom(header)));
+        if (!columns.containsKey("date") || !columns.containsKey("amount")) {
+            throw new IOException("CSV header must contain at least 'date' and 'amount' columns");
+        }
+
+        long lineNumber = 1;
+        String record;
+        while ((record = lines.readLine()) != null) {
+            lineNumber++;
+            long recordLine = lineNumber;
+
+            // Quoted fields may span physical lines
+            while (countQuotes(record) % 2 != 0 && record.length() < MAX_RECORD_LENGTH) {
+                String next = lines.readLine();
+                if (next == null) {
+                    break;
+                }
+                lineNumber++;
+                record = record + "\n" + next;
+            }
+
+            if (record.isBlank()) {
+                continue;
+            }
+            if (record.length() >= MAX_RECORD_LENGTH) {
+                handler.onReject(recordLine, record.substring(0, 200), "Record exceeds maximum length");
+                continue;
+            }
+
+            // Only parse errors reject the row; a failure writing it is the handler's to surface
+            TransactionRequest request;
+            try {
+                request = toRequest(userId, splitRecord(record), columns);
+            } catch (RuntimeException e) {
+                handler.onReject(recordLine, record, e.getMessage());
+                continue;
+            }
+            handler.onRow(recordLine, record, request);
+        }
+    }
+
+    private TransactionRequest toRequest(String userId, List<String> fields, Map<String, Integer> columns) {
+        BigDecimal amount = new BigDecimal(field(fields, columns, "amount").replace(",", ""));
+        String type = field(fields, columns, "type");
+
+        Transaction.TransactionType transactionType;
+        if (type.isEmpty()) {
+            transactionType = amount.signum() < 0
+                    ? Transaction.TransactionType.EXPENSE
+                    : Transaction.TransactionType.INCOME;
+        } else {
+            transactionType = Transaction.TransactionType.valueOf(type.toUpperCase());
+        }
+
+        String category = field(fields, columns, "category");
+
+        return new TransactionRequest(
+                userId,
+                amount.abs(),
+                category.isEmpty() ? DEFAULT_CATEGORY : category,
+                emptyToNull(field(fields, columns, "description")),
+                transactionType,
+                parseDate(field(fields, columns, "date")),
+                emptyToNull(field(fields, columns, "merchant")),
+                emptyToNull(field(fields, columns, "location"))
+        );
+    }
+
+    private Map<String, Integer> indexColumns(List<String> header) {
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            String name = header.get(i).trim().toLowerCase();
+            switch (name) {
+                case "date", "transactiondate", "transaction_date" -> columns.put("date", i);
+                case "type", "transactiontype", "transaction_type" -> columns.put("type", i);
+                default -> columns.put(name, i);
+            }
+        }
+        return columns;
+    }
+
+    private String field(List<String> fields, Map<String, Integer> columns, String name) {
+        Integer index = columns.get(name);
+        if (index == null || index >= fields.size()) {
+            return "";
+        }
+        return fields.get(index).trim();
+    }
+
+    private LocalDateTime parseDate(String value) {
+        if (value.length() == 10) {
+            return LocalDate.parse(value).atStartOfDay();
+        }
+        return LocalDateTime.parse(value.replace(' ', 'T'));
+    }
+
+    private List<String> splitRecord(String record) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+
+        for (int i = 0; i < record.length(); i++) {
+            char c = record.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < record.length() && record.charAt(i + 1) == '"') {
+                    current.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        fields.add(current.toString());
+
+        return fields;
+    }
+
+    private int countQuotes(String record) {
+        int count = 0;
+        for (int i = 0; i < record.length(); i++) {
+            if (record.charAt(i) == '"') {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private String stripBom(String header) {
+        return !header.isEmpty() && header.charAt(0) == '\uFEFF' ? header.substring(1) : header;
+    }
+
+    private String emptyToNull(String value) {
+        return value.isEmpty() ? null : value;
+    }
+}
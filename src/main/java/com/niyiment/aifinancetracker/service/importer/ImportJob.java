@@ -0,0 +1,57 @@
+package com.niyiment.aifinancetracker.service.importer;
+
+import lombok.Getter;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Getter
+public class ImportJob {
+    private final String id;
+    private final String userId;
+    private final String fileName;
+    private final StatementFormat format;
+    private final Path rejectReport;
+    private final LocalDateTime createdAt = LocalDateTime.now();
+
+    private final AtomicLong rowsRead = new AtomicLong();
+    private final AtomicLong rowsImported = new AtomicLong();
+    private final AtomicLong rowsRejected = new AtomicLong();
+
+    private volatile ImportStatus status = ImportStatus.QUEUED;
+    private volatile String failureReason;
+    private volatile LocalDateTime startedAt;
+    private volatile LocalDateTime completedAt;
+
+    public ImportJob(String id, String userId, String fileName, StatementFormat format, Path rejectReport) {
+        this.id = id;
+        this.userId = userId;
+        this.fileName = fileName;
+        this.format = format;
+        this.rejectReport = rejectReport;
+    }
+
+    void markRunning() {
+        startedAt = LocalDateTime.now();
+        status = ImportStatus.RUNNING;
+    }
+
+    void markCompleted() {
+        completedAt = LocalDateTime.now();
+        status = ImportStatus.COMPLETED;
+    }
+
+    void markFailed(String reason) {
+        failureReason = reason;
+        completedAt = LocalDateTime.now();
+        status = ImportStatus.FAILED;
+    }
+
+    public enum ImportStatus {
+        QUEUED,
+        RUNNING,
+        COMPLETED,
+        FAILED
+    }
+}
@@ -0,0 +1,144 @@
+package com.niyiment.aifinancetracker.service.importer;
+
+import com.niyiment.aifinancetracker.dto.request.TransactionRequest;
+import com.niyiment.aifinancetracker.entity.Transaction;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.Map;
+
+@Component
+public class OfxStatementParser implements StatementParser {
+    private static final int MAX_VALUE_LENGTH = 4096;
+    private static final String TRANSACTION_TAG = "STMTTRN";
+    private static final String DEFAULT_CATEGORY = "Uncategorized";
+    private static final DateTimeFormatter OFX_DATE_TIME = DateTimeFormatter.ofPattern("yyyyMMddHHmmss");
+
+    @Override
+    public StatementFormat format() {
+        return StatementFormat.OFX;
+    }
+
+    @Override
+    public void parse(Reader reader, String userId, StatementRowHandler handler) throws IOException {
+        Reader input = reader instanceof BufferedReader ? reader : new BufferedReader(reader);
+
+        // OFX 1.x is SGML with optional closing tags, so tokenize on '<' and '>' instead of using an XML parser
+        StringBuilder tag = new StringBuilder();
+        StringBuilder text = new StringBuilder();
+        boolean inTag = false;
+        String currentElement = null;
+        Map<String, String> fields = null;
+        long ordinal = 0;
+
+        int c;
+        while ((c = input.read()) != -1) {
+            if (c == '<') {
+                if (fields != null && currentElement != null) {
+                    String value = text.toString().trim();
+                    if (!value.isEmpty()) {
+                        fields.put(currentElement, value);
+                    }
+                }
+                text.setLength(0);
+                tag.setLength(0);
+                inTag = true;
+            } else if (c == '>' && inTag) {
+                inTag = false;
+                String name = tag.toString().trim().toUpperCase();
+
+                if (name.equals(TRANSACTION_TAG)) {
+                    fields = new HashMap<>();
+                    ordinal++;
+                    currentElement = null;
+                } else if (name.equals("/" + TRANSACTION_TAG)) {
+                    if (fields != null) {
+                        emit(ordinal, userId, fields, handler);
+                    }
+                    fields = null;
+                    currentElement = null;
+                } else if (name.startsWith("/")) {
+                    currentElement = null;
+                } else {
+                    currentElement = name;
+                }
+            } else if (inTag) {
+                if (tag.length() < MAX_VALUE_LENGTH) {
+                    tag.append((char) c);
+                }
+            } else if (currentElement != null && text.length() < MAX_VALUE_LENGTH) {
+                text.append((char) c);
+            }
+        }
+    }
+
+    private void emit(long ordinal, String userId, Map<String, String> fields, StatementRowHandler handler) {
+        String raw = fields.toString();
+        // Only parse errors reject the row; a failure writing it is the handler's to surface
+        TransactionRequest request;
+        try {
+            request = toRequest(userId, fields);
+        } catch (RuntimeException e) {
+            handler.onReject(ordinal, raw, e.getMessage());
+            return;
+        }
+        handler.onRow(ordinal, raw, request);
+    }
+
+    private TransactionRequest toRequest(String userId, Map<String, String> fields) {
+        String amountValue = fields.get("TRNAMT");
+        String postedValue = fields.get("DTPOSTED");
+        if (amountValue == null || postedValue == null) {
+            throw new IllegalArgumentException("Transaction is missing TRNAMT or DTPOSTED");
+        }
+
+        BigDecimal amount = new BigDecimal(amountValue.replace(',', '.'));
+
+        return new TransactionRequest(
+                userId,
+                amount.abs(),
+                DEFAULT_CATEGORY,
+                fields.get("MEMO"),
+                resolveType(fields.get("TRNTYPE"), amount),
+                parseDate(postedValue),
+                fields.get("NAME"),
+                null
+        );
+    }
+
+    private Transaction.TransactionType resolveType(String trnType, BigDecimal amount) {
+        if (trnType != null) {
+            switch (trnType.toUpperCase()) {
+                case "CREDIT", "DEP", "INT", "DIV", "DIRECTDEP" -> {
+                    return Transaction.TransactionType.INCOME;
+                }
+                case "XFER" -> {
+                    return Transaction.TransactionType.TRANSFER;
+                }
+                case "DEBIT", "POS", "ATM", "PAYMENT", "CHECK", "FEE", "SRVCHG", "DIRECTDEBIT", "REPEATPMT" -> {
+                    return Transaction.TransactionType.EXPENSE;
+                }
+                default -> {
+                    // fall through to sign-based detection
+                }
+            }
+        }
+        return amount.signum() < 0 ? Transaction.TransactionType.EXPENSE : Transaction.TransactionType.INCOME;
+    }
+
+    private LocalDateTime parseDate(String value) {
+        // DTPOSTED looks like 20240115120000.000[-5:EST]; only the leading digits matter here
+        String digits = value.replaceAll("[^0-9].*$", "");
+        if (digits.length() < 8) {
+            throw new IllegalArgumentException("Invalid DTPOSTED: " + value);
+        }
+        String padded = (digits.length() >= 14 ? digits.substring(0, 14) : (digits + "000000").substring(0, 14));
+        return LocalDateTime.parse(padded, OFX_DATE_TIME);
+    }
+}
@@ -0,0 +1,16 @@
+package com.niyiment.aifinancetracker.service.importer;
+
+public enum StatementFormat {
+    CSV,
+    OFX;
+
+    public static StatementFormat fromFileName(String fileName) {
+        if (fileName != null) {
+            String lower = fileName.toLowerCase();
+            if (lower.endsWith(".ofx") || lower.endsWith(".qfx")) {
+                return OFX;
+            }
+        }
+        return CSV;
+    }
+}
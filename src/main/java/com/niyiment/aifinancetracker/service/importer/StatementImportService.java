@@ -0,0 +1,298 @@
+package com.niyiment.aifinancetracker.service.importer;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.niyiment.aifinancetracker.dto.request.TransactionRequest;
+import com.niyiment.aifinancetracker.dto.response.ImportJobResponse;
+import com.niyiment.aifinancetracker.exception.ImportQueueFullException;
+import com.niyiment.aifinancetracker.exception.InvalidTransactionException;
+import com.niyiment.aifinancetracker.exception.ResourceNotFoundException;
+import com.niyiment.aifinancetracker.exception.StatementImportException;
+import com.niyiment.aifinancetracker.service.command.TransactionCommandService;
+import jakarta.annotation.PreDestroy;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.ConstraintViolationException;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+@Slf4j
+@Service
+public class StatementImportService {
+    private final TransactionCommandService commandService;
+    private final Validator validator;
+    private final Map<StatementFormat, StatementParser> parsers = new EnumMap<>(StatementFormat.class);
+    private final Cache<String, ImportJob> jobs;
+    private final ThreadPoolExecutor executor;
+    private final Path workDir;
+    private final int batchSize;
+    private final Duration retryAfter;
+
+    public StatementImportService(
+            TransactionCommandService commandService,
+            Validator validator,
+            List<StatementParser> parsers,
+            @Value("${finance.import.work-dir}") Path workDir,
+            @Value("${finance.import.batch-size}") int batchSize,
+            @Value("${finance.import.worker-threads}") int workerThreads,
+            @Value("${finance.import.queue-capacity}") int queueCapacity,
+            @Value("${finance.import.job-retention}") Duration jobRetention,
+            @Value("${finance.import.retry-after}") Duration retryAfter
+    ) {
+        this.commandService = commandService;
+        this.validator = validator;
+        parsers.forEach(parser -> this.parsers.put(parser.format(), parser));
+        this.workDir = workDir;
+        this.batchSize = batchSize;
+        this.retryAfter = retryAfter;
+        this.jobs = Caffeine.newBuilder()
+                .expireAfterWrite(jobRetention)
+                .removalListener((String id, ImportJob job, RemovalCause cause) -> {
+                    if (job != null) {
+                        deleteQuietly(job.getRejectReport());
+                    }
+                })
+                .build();
+        this.executor = new ThreadPoolExecutor(
+                workerThreads, workerThreads,
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                Thread.ofPlatform().name("statement-import-", 0).factory()
+        );
+    }
+
+    public ImportJobResponse submit(MultipartFile file, String userId, StatementFormat format) {
+        StatementFormat resolvedFormat = format != null ? format : StatementFormat.fromFileName(file.getOriginalFilename());
+        String jobId = UUID.randomUUID().toString();
+        log.info("Submitting {} statement import {} for user: {}", resolvedFormat, jobId, userId);
+
+        Path upload;
+        Path rejectReport;
+        try {
+            Files.createDirectories(workDir);
+            upload = workDir.resolve(jobId + ".upload");
+            rejectReport = workDir.resolve(jobId + "-rejects.csv");
+            // Multipart uploads are spooled to disk, so this is a file move rather than an in-memory copy
+            file.transferTo(upload);
+        } catch (IOException e) {
+            throw new StatementImportException("Failed to store uploaded statement", e);
+        }
+
+        ImportJob job = new ImportJob(jobId, userId, file.getOriginalFilename(), resolvedFormat, rejectReport);
+        jobs.put(jobId, job);
+
+        try {
+            executor.execute(() -> runImport(job, upload));
+        } catch (RejectedExecutionException e) {
+            jobs.invalidate(jobId);
+            deleteQuietly(upload);
+            throw new ImportQueueFullException("Import queue is full, please retry later", retryAfter);
+        }
+
+        return toResponse(job);
+    }
+
+    public ImportJobResponse getJob(String jobId) {
+        return toResponse(findJob(jobId));
+    }
+
+    public Path getRejectReport(String jobId) {
+        ImportJob job = findJob(jobId);
+        if (!Files.exists(job.getRejectReport())) {
+            throw new ResourceNotFoundException("Reject report not available for import job: " + jobId);
+        }
+        return job.getRejectReport();
+    }
+
+    private ImportJob findJob(String jobId) {
+        ImportJob job = jobs.getIfPresent(jobId);
+        if (job == null) {
+            throw new ResourceNotFoundException("Import job not found with ID: " + jobId);
+        }
+        return job;
+    }
+
+    private void runImport(ImportJob job, Path upload) {
+        job.markRunning();
+        log.info("Starting statement import {} ({})", job.getId(), job.getFileName());
+
+        try (BufferedReader reader = Files.newBufferedReader(upload, StandardCharsets.UTF_8);
+             BufferedWriter rejects = Files.newBufferedWriter(job.getRejectReport(), StandardCharsets.UTF_8)) {
+            rejects.write("line,reason,raw");
+            rejects.newLine();
+
+            BatchingRowHandler handler = new BatchingRowHandler(job, rejects);
+            parsers.get(job.getFormat()).parse(reader, job.getUserId(), handler);
+            handler.flush();
+
+            job.markCompleted();
+            log.info("Finished statement import {}: {} imported, {} rejected",
+                    job.getId(), job.getRowsImported().get(), job.getRowsRejected().get());
+        } catch (Exception e) {
+            log.error("Statement import {} failed", job.getId(), e);
+            job.markFailed(e.getMessage());
+        } finally {
+            deleteQuietly(upload);
+        }
+    }
+
+    private ImportJobResponse toResponse(ImportJob job) {
+        return ImportJobResponse.builder()
+                .jobId(job.getId())
+                .userId(job.getUserId())
+                .fileName(job.getFileName())
+                .format(job.getFormat())
+                .status(job.getStatus())
+                .rowsRead(job.getRowsRead().get())
+                .rowsImported(job.getRowsImported().get())
+                .rowsRejected(job.getRowsRejected().get())
+                .failureReason(job.getFailureReason())
+                .createdAt(job.getCreatedAt())
+                .startedAt(job.getStartedAt())
+                .completedAt(job.getCompletedAt())
+                .build();
+    }
+
+    private void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("Failed to delete import file: {}", path, e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    // Holds at most one batch of rows, so memory stays flat regardless of statement size
+    private class BatchingRowHandler implements StatementRowHandler {
+        private final ImportJob job;
+        private final BufferedWriter rejects;
+        private final List<TransactionRequest> requests = new ArrayList<>(batchSize);
+        private final List<String> raws = new ArrayList<>(batchSize);
+        private final long[] lineNumbers = new long[batchSize];
+
+        BatchingRowHandler(ImportJob job, BufferedWriter rejects) {
+            this.job = job;
+            this.rejects = rejects;
+        }
+
+        @Override
+        public void onRow(long lineNumber, String raw, TransactionRequest request) {
+            job.getRowsRead().incrementAndGet();
+
+            Set<ConstraintViolation<TransactionRequest>> violations = validator.validate(request);
+            if (!violations.isEmpty()) {
+                writeReject(lineNumber, raw, violations.stream()
+                        .map(v -> v.getPropertyPath() + ": " + v.getMessage())
+                        .collect(Collectors.joining("; ")));
+                return;
+            }
+
+            try {
+                commandService.validateTransaction(request);
+            } catch (InvalidTransactionException e) {
+                writeReject(lineNumber, raw, e.getMessage());
+                return;
+            }
+
+            lineNumbers[requests.size()] = lineNumber;
+            requests.add(request);
+            raws.add(raw);
+
+            if (requests.size() == batchSize) {
+                flush();
+            }
+        }
+
+        @Override
+        public void onReject(long lineNumber, String raw, String reason) {
+            job.getRowsRead().incrementAndGet();
+            writeReject(lineNumber, raw, reason);
+        }
+
+        void flush() {
+            if (requests.isEmpty()) {
+                return;
+            }
+
+            write(0, requests.size());
+
+            requests.clear();
+            raws.clear();
+        }
+
+        // A batch rejected for its data is split in halves and retried, so only the offending rows end up in
+        // the reject file. Any other failure (database down, pool timeout) fails the whole job instead, since
+        // splitting would only repeat it for every row
+        private void write(int from, int to) {
+            try {
+                commandService.createTransactions(requests.subList(from, to));
+                job.getRowsImported().addAndGet(to - from);
+            } catch (RuntimeException e) {
+                if (!isDataError(e)) {
+                    throw e;
+                }
+                if (to - from == 1) {
+                    writeReject(lineNumbers[from], raws.get(from), "Write failed: " + e.getMessage());
+                    return;
+                }
+
+                log.debug("Import {} failed to write lines {}-{}, retrying in halves", job.getId(),
+                        lineNumbers[from], lineNumbers[to - 1], e);
+                int middle = (from + to) >>> 1;
+                write(from, middle);
+                write(middle, to);
+            }
+        }
+
+        private boolean isDataError(RuntimeException e) {
+            return e instanceof DataIntegrityViolationException
+                    || e instanceof InvalidTransactionException
+                    || e instanceof ConstraintViolationException;
+        }
+
+        private void writeReject(long lineNumber, String raw, String reason) {
+            job.getRowsRejected().incrementAndGet();
+            try {
+                rejects.write(lineNumber + "," + quote(reason) + "," + quote(raw));
+                rejects.newLine();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private String quote(String value) {
+            if (value == null) {
+                return "";
+            }
+            return "\"" + value.replace("\"", "\"\"") + "\"";
+        }
+    }
+}
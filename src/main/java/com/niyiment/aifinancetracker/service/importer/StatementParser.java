@@ -0,0 +1,12 @@
+package com.niyiment.aifinancetracker.service.importer;
+
+import java.io.IOException;
+import java.io.Reader;
+
+public interface StatementParser {
+
+    StatementFormat format();
+
+    // Implementations must hand rows to the handler as they are read and never buffer the whole statement
+    void parse(Reader reader, String userId, StatementRowHandler handler) throws IOException;
+}
@@ -0,0 +1,10 @@
+package com.niyiment.aifinancetracker.service.importer;
+
+import com.niyiment.aifinancetracker.dto.request.TransactionRequest;
+
+public interface StatementRowHandler {
+
+    void onRow(long lineNumber, String raw, TransactionRequest request);
+
+    void onReject(long lineNumber, String raw, String reason);
+}
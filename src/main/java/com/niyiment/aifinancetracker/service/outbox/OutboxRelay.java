@@ -0,0 +1,42 @@
+package com.niyiment.aifinancetracker.service.outbox;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class OutboxRelay {
+    private final OutboxService outboxService;
+
+    @Value("${finance.outbox.batch-size}")
+    private int batchSize;
+
+    @Value("${finance.outbox.retention}")
+    private Duration retention;
+
+    @Scheduled(fixedDelayString = "${finance.outbox.poll-interval-ms}")
+    public void drain() {
+        try {
+            // Keep draining while batches come back full so a backlog clears without waiting for the next tick
+            int relayed;
+            do {
+                relayed = outboxService.relayBatch();
+            } while (relayed == batchSize);
+        } catch (Exception e) {
+            log.error("Outbox relay failed: {}", e.getMessage(), e);
+        }
+    }
+
+    @Scheduled(cron = "${finance.outbox.purge-cron}")
+    public void purge() {
+        int deleted = outboxService.purgeSentBefore(LocalDateTime.now().minus(retention));
+        log.info("Purged {} relayed outbox events", deleted);
+    }
+}
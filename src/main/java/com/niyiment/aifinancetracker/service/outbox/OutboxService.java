@@ -0,0 +1,154 @@
+package com.niyiment.aifinancetracker.service.outbox;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.niyiment.aifinancetracker.entity.OutboxEvent;
+import com.niyiment.aifinancetracker.repository.OutboxEventRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class OutboxService {
+    private static final String EVENT_PACKAGE = "com.niyiment.aifinancetracker.event.";
+
+    private final OutboxEventRepository repository;
+    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${finance.outbox.batch-size}")
+    private int batchSize;
+
+    @Value("${finance.outbox.send-timeout-ms}")
+    private long sendTimeoutMs;
+
+    @Value("${finance.outbox.max-attempts}")
+    private int maxAttempts;
+
+    // Must join the caller's transaction so the event commits or rolls back with the business write
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueue(String topic, String key, Object event) {
+        repository.save(toOutboxEvent(topic, key, event));
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public <T> void enqueueAll(String topic, List<T> events, Function<T, String> keyExtractor) {
+        repository.saveAll(events.stream()
+                .map(event -> toOutboxEvent(topic, keyExtractor.apply(event), event))
+                .toList());
+    }
+
+    // Claim, send and finish run separately so row locks and the pooled connection are only held for
+    // the two short updates, not while waiting for Kafka acks. A claim is a lease: rows of a relay that
+    // died mid-send become claimable again once it expires
+    public int relayBatch() {
+        LocalDateTime claimedUntil = LocalDateTime.now().plus(Duration.ofMillis(sendTimeoutMs * 2));
+        List<OutboxEvent> batch = transactionTemplate.execute(status -> {
+            List<OutboxEvent> claimed = repository.lockClaimableBatch(batchSize);
+            if (!claimed.isEmpty()) {
+                repository.claim(claimed.stream().map(OutboxEvent::getId).toList(), claimedUntil);
+            }
+            return claimed;
+        });
+        if (batch == null || batch.isEmpty()) {
+            return 0;
+        }
+
+        // Fire the whole batch before waiting so the producer can pack records into large requests
+        List<CompletableFuture<?>> futures = new ArrayList<>(batch.size());
+        for (OutboxEvent outboxEvent : batch) {
+            futures.add(send(outboxEvent));
+        }
+
+        List<Long> sent = new ArrayList<>(batch.size());
+        List<Long> failed = new ArrayList<>();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(sendTimeoutMs);
+        for (int i = 0; i < batch.size(); i++) {
+            try {
+                long remaining = Math.max(0, deadline - System.nanoTime());
+                futures.get(i).get(remaining, TimeUnit.NANOSECONDS);
+                sent.add(batch.get(i).getId());
+            } catch (Exception e) {
+                if (e instanceof InterruptedException) {
+                    Thread.currentThread().interrupt();
+                }
+                log.warn("Failed to relay outbox event {} to {}", batch.get(i).getId(), batch.get(i).getTopic(), e);
+                failed.add(batch.get(i).getId());
+            }
+        }
+
+        // attempts was already incremented by the claim, so a row that keeps failing (an unreadable payload,
+        // an unknown event class) is parked after max-attempts instead of blocking the head of the outbox
+        int parked = transactionTemplate.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            if (!sent.isEmpty()) {
+                repository.markSent(sent, now);
+            }
+            if (failed.isEmpty()) {
+                return 0;
+            }
+            int parkedRows = repository.parkExhausted(failed, maxAttempts, now);
+            repository.release(failed);
+            return parkedRows;
+        });
+
+        if (parked > 0) {
+            meterRegistry.counter("outbox.events.parked").increment(parked);
+            log.error("Parked {} outbox events after {} failed attempts; clear parked_at to retry them",
+                    parked, maxAttempts);
+        }
+
+        log.debug("Relayed {} outbox events ({} failed)", sent.size(), failed.size());
+        return sent.size();
+    }
+
+    @Transactional
+    public int purgeSentBefore(LocalDateTime cutoff) {
+        return repository.deleteSentBefore(cutoff);
+    }
+
+    private CompletableFuture<?> send(OutboxEvent outboxEvent) {
+        try {
+            Object event = objectMapper.readValue(outboxEvent.getPayload(), Class.forName(outboxEvent.getEventType()));
+            return kafkaTemplate.send(outboxEvent.getTopic(), outboxEvent.getMessageKey(), event);
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private OutboxEvent toOutboxEvent(String topic, String key, Object event) {
+        String eventType = event.getClass().getName();
+        if (!eventType.startsWith(EVENT_PACKAGE)) {
+            throw new IllegalArgumentException("Unsupported outbox event type: " + eventType);
+        }
+
+        try {
+            return OutboxEvent.builder()
+                    .topic(topic)
+                    .messageKey(key)
+                    .eventType(eventType)
+                    .payload(objectMapper.writeValueAsString(event))
+                    .build();
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize outbox event: " + eventType, e);
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.niyiment.aifinancetracker.service.query;
+
+import com.niyiment.aifinancetracker.config.CacheConfig;
+import com.niyiment.aifinancetracker.config.UserScopedCaffeineCache;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.Set;
+
+// Evicts what a transaction write makes stale: the written transactions by id and every userStats entry
+// of the affected users, and nothing else. Eviction runs again after commit, so a read that raced the
+// write cannot leave the pre-commit value cached
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class QueryCacheInvalidator {
+    private final CacheManager cacheManager;
+
+    public void transactionsChanged(Collection<String> userIds, Collection<Long> transactionIds) {
+        Set<String> users = Set.copyOf(userIds);
+        Set<Long> ids = Set.copyOf(transactionIds);
+
+        evict(users, ids);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evict(users, ids);
+                }
+            });
+        }
+    }
+
+    private void evict(Set<String> users, Set<Long> ids) {
+        Cache transactions = cacheManager.getCache(CacheConfig.TRANSACTION_CACHE);
+        if (transactions != null) {
+            ids.forEach(transactions::evict);
+        }
+
+        // Only the affected users' entries, found through the region's per-user key index
+        if (cacheManager.getCache(CacheConfig.USER_STATS_CACHE) instanceof UserScopedCaffeineCache userStats) {
+            users.forEach(userStats::evictUser);
+        }
+        log.debug("Evicted cached query results for {} users and {} transactions", users.size(), ids.size());
+    }
+}
@@ -0,0 +1,32 @@
+package com.niyiment.aifinancetracker.service.query;
+
+import com.niyiment.aifinancetracker.exception.InvalidTransactionException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+// Position after the last row of a page in (transaction_date DESC, id DESC) order. Clients only see the
+// encoded token, so the format can change without breaking them beyond one page
+public record TransactionCursor(LocalDateTime transactionDate, long id) {
+    private static final String SEPARATOR = "|";
+
+    public String encode() {
+        String raw = transactionDate + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static TransactionCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf(SEPARATOR);
+            return new TransactionCursor(
+                    LocalDateTime.parse(raw.substring(0, separator)),
+                    Long.parseLong(raw.substring(separator + 1))
+            );
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+            throw new InvalidTransactionException("Invalid page cursor: " + token);
+        }
+    }
+}
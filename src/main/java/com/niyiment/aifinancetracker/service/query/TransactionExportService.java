@@ -0,0 +1,161 @@
+package com.niyiment.aifinancetracker.service.query;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.niyiment.aifinancetracker.dto.response.TransactionResponse;
+import com.niyiment.aifinancetracker.entity.Transaction;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+// Streams a user's transactions for a date range straight from a forward-only JDBC cursor to the response.
+// No entities are created and only one row is in memory at a time, so heap use does not grow with the export
+@Slf4j
+@Service
+public class TransactionExportService {
+    private static final String CSV_HEADER =
+            "id,userId,amount,category,description,transactionType,transactionDate,merchant,location,createdAt,updatedAt";
+    private static final int WRITE_BUFFER_CHARS = 64 * 1024;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final int fetchSize;
+
+    public TransactionExportService(
+            JdbcTemplate jdbcTemplate,
+            ObjectMapper objectMapper,
+            @Value("${finance.transactions.export.fetch-size}") int fetchSize
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.fetchSize = fetchSize;
+    }
+
+    // The PostgreSQL driver only honours the fetch size with auto-commit off, hence the transaction
+    @Transactional(readOnly = true)
+    public long export(String userId, LocalDateTime startDate, LocalDateTime endDate,
+                       ExportFormat format, OutputStream out) throws IOException {
+        long start = System.nanoTime();
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), WRITE_BUFFER_CHARS);
+        RowWriter rowWriter = format == ExportFormat.CSV ? csvWriter(writer) : ndjsonWriter(writer);
+
+        long[] rows = {0};
+        try {
+            jdbcTemplate.query(connection -> {
+                PreparedStatement statement = connection.prepareStatement(
+                        "SELECT id, user_id, amount, category, description, transaction_type, transaction_date, " +
+                        "merchant, location, created_at, updated_at FROM transactions " +
+                        "WHERE user_id = ? AND transaction_date BETWEEN ? AND ? ORDER BY transaction_date, id",
+                        ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                statement.setFetchSize(fetchSize);
+                statement.setString(1, userId);
+                statement.setTimestamp(2, Timestamp.valueOf(startDate));
+                statement.setTimestamp(3, Timestamp.valueOf(endDate));
+                return statement;
+            }, resultSet -> {
+                try {
+                    rowWriter.write(toResponse(resultSet));
+                    rows[0]++;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            rowWriter.finish();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        log.info("Exported {} transactions for user {} as {} in {} ms",
+                rows[0], userId, format, (System.nanoTime() - start) / 1_000_000);
+        return rows[0];
+    }
+
+    private RowWriter ndjsonWriter(Writer writer) throws IOException {
+        SequenceWriter sequence = objectMapper.writer()
+                .withRootValueSeparator("\n")
+                .writeValues(writer);
+        return new RowWriter() {
+            private boolean empty = true;
+
+            @Override
+            public void write(TransactionResponse row) throws IOException {
+                sequence.write(row);
+                empty = false;
+            }
+
+            @Override
+            public void finish() throws IOException {
+                sequence.flush();
+                if (!empty) {
+                    writer.write('\n');
+                }
+                writer.flush();
+            }
+        };
+    }
+
+    private RowWriter csvWriter(Writer writer) throws IOException {
+        writer.write(CSV_HEADER);
+        writer.write('\n');
+        return new RowWriter() {
+            @Override
+            public void write(TransactionResponse row) throws IOException {
+                writer.write(row.id() + "," + quote(row.userId()) + "," + row.amount().toPlainString() + "," +
+                        quote(row.category()) + "," + quote(row.description()) + "," + row.transactionType() + "," +
+                        row.transactionDate() + "," + quote(row.merchant()) + "," + quote(row.location()) + "," +
+                        row.createdAt() + "," + (row.updatedAt() != null ? row.updatedAt() : ""));
+                writer.write('\n');
+            }
+
+            @Override
+            public void finish() throws IOException {
+                writer.flush();
+            }
+        };
+    }
+
+    private TransactionResponse toResponse(ResultSet rs) throws SQLException {
+        Timestamp updatedAt = rs.getTimestamp("updated_at");
+        return TransactionResponse.builder()
+                .id(rs.getLong("id"))
+                .userId(rs.getString("user_id"))
+                .amount(rs.getBigDecimal("amount"))
+                .category(rs.getString("category"))
+                .description(rs.getString("description"))
+                .transactionType(Transaction.TransactionType.valueOf(rs.getString("transaction_type")))
+                .transactionDate(rs.getTimestamp("transaction_date").toLocalDateTime())
+                .merchant(rs.getString("merchant"))
+                .location(rs.getString("location"))
+                .createdAt(rs.getTimestamp("created_at").toLocalDateTime())
+                .updatedAt(updatedAt != null ? updatedAt.toLocalDateTime() : null)
+                .build();
+    }
+
+    private static String quote(String value) {
+        if (value == null) {
+            return "";
+        }
+        return "\"" + value.replace("\"", "\"\"") + "\"";
+    }
+
+    private interface RowWriter {
+        void write(TransactionResponse row) throws IOException;
+
+        void finish() throws IOException;
+    }
+}
@@ -1,20 +1,31 @@
 package com.niyiment.aifinancetracker.service.query;
 
 import com.niyiment.aifinancetracker.config.CacheConfig;
+import com.niyiment.aifinancetracker.config.CacheRegionLoader;
+import com.niyiment.aifinancetracker.dto.response.TransactionPageResponse;
 import com.niyiment.aifinancetracker.dto.response.TransactionResponse;
 import com.niyiment.aifinancetracker.entity.Transaction;
 import com.niyiment.aifinancetracker.exception.ResourceNotFoundException;
+import com.niyiment.aifinancetracker.repository.RollupTotal;
+import com.niyiment.aifinancetracker.repository.TransactionDailyRollupRepository;
 import com.niyiment.aifinancetracker.repository.TransactionRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -22,23 +33,55 @@ import java.util.Map;
 @Service
 @RequiredArgsConstructor
 @Transactional(readOnly = true)
-public class TransactionQueryService {
+public class TransactionQueryService implements CacheRegionLoader {
     private final TransactionRepository repository;
+    private final TransactionDailyRollupRepository rollupRepository;
+
+    private volatile boolean rollupsBackfilled;
+
+    @Value("${finance.transactions.page.default-size}")
+    private int defaultPageSize;
+
+    @Value("${finance.transactions.page.max-size}")
+    private int maxPageSize;
 
     @Cacheable(value = CacheConfig.TRANSACTION_CACHE, key = "#id")
     public TransactionResponse getTransactionById(Long id) {
         log.info("Fetching transaction with ID: {}", id);
 
-        return repository.findById(id)
-                .map(this::toResponse)
+        return repository.findResponseById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Transaction not found with id: " + id));
     }
 
     public Page<TransactionResponse> getTransactionsByUser(String userId, Pageable pageable) {
         log.debug("Fetching transactions for user with ID: {}", userId);
 
-        return repository.findByUserId(userId, pageable)
-                .map(this::toResponse);
+        return repository.findResponsesByUserId(userId, pageable);
+    }
+
+    // Newest first; pass the previous page's nextCursor to continue
+    public TransactionPageResponse getTransactionPage(String userId, String cursor, Integer limit) {
+        int pageSize = limit == null ? defaultPageSize : Math.max(1, Math.min(limit, maxPageSize));
+        log.debug("Fetching {} transactions for user with ID: {} after cursor {}", pageSize, userId, cursor);
+
+        // One extra row tells whether another page exists
+        List<TransactionResponse> rows;
+        if (cursor == null || cursor.isBlank()) {
+            rows = repository.findFirstResponsePageByUser(userId, Limit.of(pageSize + 1));
+        } else {
+            TransactionCursor after = TransactionCursor.decode(cursor);
+            rows = repository.findResponsePageByUserAfter(
+                    userId, after.transactionDate(), after.id(), Limit.of(pageSize + 1));
+        }
+
+        boolean hasMore = rows.size() > pageSize;
+        List<TransactionResponse> page = hasMore ? rows.subList(0, pageSize) : rows;
+        TransactionResponse last = page.isEmpty() ? null : page.get(page.size() - 1);
+
+        return TransactionPageResponse.builder()
+                .transactions(List.copyOf(page))
+                .nextCursor(hasMore ? new TransactionCursor(last.transactionDate(), last.id()).encode() : null)
+                .build();
     }
 
     public List<TransactionResponse> getTransactionsByDateRange(
@@ -48,46 +91,55 @@ public class TransactionQueryService {
     ) {
         log.debug("Fetching transactions for user with ID: {} between dates: {} and {}", userId, startDate, endDate);
 
-        return repository
-                .findByUserIdAndTransactionDateBetween(userId, startDate, endDate)
-                .stream()
-                .map(this::toResponse)
-                .toList();
+        return repository.findResponsesByUserIdAndDateRange(userId, startDate, endDate);
     }
 
-    @Cacheable(value = CacheConfig.USER_STATS_CACHE, key = "#userId + '-recent'")
+    @Cacheable(value = CacheConfig.USER_STATS_CACHE, key = "#userId + ':recent:' + #days")
     public List<TransactionResponse> getRecentTransactions(String userId, int days) {
         log.debug("Fetching recent transactions for user with ID: {} (last {} days)", userId, days);
 
         LocalDateTime startDate = LocalDateTime.now().minusDays(days);
 
-        return repository
-                .findRecentTransactionsByUser(userId, startDate)
-                .stream()
-                .map(this::toResponse)
-                .toList();
+        return repository.findRecentResponsesByUser(userId, startDate);
     }
 
-    @Cacheable(value = CacheConfig.USER_STATS_CACHE, key = "#userId + '-summary'")
+    // Whole days come from the daily rollups and only the partial first day from raw transactions,
+    // so the cost stays flat as the window grows from weeks to years. Until the rollups have been
+    // backfilled the whole window is read from raw transactions, so a summary is never short
+    @Cacheable(value = CacheConfig.USER_STATS_CACHE, key = "#userId + ':summary:' + #days")
     public Map<String, Object> getUserFinancialSummary(String userId, int days) {
         log.debug("Fetching financial summary for user with ID: {} (last {} days)", userId, days);
 
-        LocalDateTime startDate = LocalDateTime.now().minusDays(days);
         LocalDateTime endDate = LocalDateTime.now();
-
-        BigDecimal totalIncome = repository.sumAmountByUserAndTypeAndDateRange(
-                userId, Transaction.TransactionType.INCOME, startDate, endDate
-        );
-
-        BigDecimal totalExpenses = repository.sumAmountByUserAndTypeAndDateRange(
-                userId, Transaction.TransactionType.EXPENSE, startDate, endDate
-        );
-
-        BigDecimal totalInvestment = repository.sumAmountByUserAndTypeAndDateRange(
-                userId, Transaction.TransactionType.INVESTMENT, startDate, endDate
-        );
-
-        List<Object[]> categoryStats = repository.getCategoryStatistics(userId, startDate);
+        LocalDateTime startDate = endDate.minusDays(days);
+        LocalDate firstWholeDay = startDate.toLocalDate().plusDays(1);
+
+        List<RollupTotal> totals;
+        if (rollupsBackfilled()) {
+            totals = new ArrayList<>(repository.sumByTypeAndCategory(userId, startDate, firstWholeDay.atStartOfDay()));
+            totals.addAll(rollupRepository.sumByTypeAndCategory(userId, firstWholeDay, endDate.toLocalDate()));
+        } else {
+            totals = repository.sumByTypeAndCategory(userId, startDate, endDate);
+        }
+
+        Map<Transaction.TransactionType, BigDecimal> totalsByType = new EnumMap<>(Transaction.TransactionType.class);
+        Map<String, RollupTotal> totalsByCategory = new HashMap<>();
+        for (RollupTotal total : totals) {
+            totalsByType.merge(total.transactionType(), total.totalAmount(), BigDecimal::add);
+            totalsByCategory.merge(total.category(), total, (a, b) -> new RollupTotal(null, a.category(),
+                    a.transactionCount() + b.transactionCount(), a.totalAmount().add(b.totalAmount())));
+        }
+
+        BigDecimal totalIncome = totalsByType.get(Transaction.TransactionType.INCOME);
+        BigDecimal totalExpenses = totalsByType.get(Transaction.TransactionType.EXPENSE);
+        BigDecimal totalInvestment = totalsByType.get(Transaction.TransactionType.INVESTMENT);
+
+        // category, count, amount; largest amount first, as the raw aggregate query returned them
+        List<Object[]> categoryStats = totalsByCategory.values().stream()
+                .filter(total -> total.transactionCount() > 0)
+                .sorted(Comparator.comparing(RollupTotal::totalAmount).reversed())
+                .map(total -> new Object[]{total.category(), total.transactionCount(), total.totalAmount()})
+                .toList();
 
         return Map.of(
                 "totalIncome", totalIncome != null ? totalIncome : BigDecimal.ZERO,
@@ -99,24 +151,39 @@ public class TransactionQueryService {
         );
     }
 
+    @Override
+    public String region() {
+        return CacheConfig.USER_STATS_CACHE;
+    }
+
+    // Rebuilds a userStats entry from its "userId:kind:days" key when the region refreshes it
+    @Override
+    public Object load(Object key) {
+        String value = key.toString();
+        int daysAt = value.lastIndexOf(CacheConfig.USER_KEY_SEPARATOR);
+        int kindAt = value.lastIndexOf(CacheConfig.USER_KEY_SEPARATOR, daysAt - 1);
+        String userId = value.substring(0, kindAt);
+        int days = Integer.parseInt(value.substring(daysAt + 1));
+
+        return switch (value.substring(kindAt + 1, daysAt)) {
+            case "summary" -> getUserFinancialSummary(userId, days);
+            case "recent" -> getRecentTransactions(userId, days);
+            default -> throw new IllegalArgumentException("Unknown userStats cache key: " + key);
+        };
+    }
+
+    // Completion is permanent, so once seen it is not looked up again
+    private boolean rollupsBackfilled() {
+        if (!rollupsBackfilled) {
+            rollupsBackfilled = rollupRepository.isBackfillComplete();
+        }
+        return rollupsBackfilled;
+    }
+
     private BigDecimal calculateNetSavings(BigDecimal income, BigDecimal expense) {
         BigDecimal totalIncome = income != null ? income : BigDecimal.ZERO;
         BigDecimal totalExpenses = expense != null ? expense : BigDecimal.ZERO;
 
         return totalIncome.subtract(totalExpenses);
     }
-
-    private TransactionResponse toResponse(Transaction transaction) {
-        return TransactionResponse.builder()
-                .id(transaction.getId())
-                .userId(transaction.getUserId())
-                .amount(transaction.getAmount())
-                .category(transaction.getCategory())
-                .transactionType(transaction.getTransactionType())
-                .transactionDate(transaction.getTransactionDate())
-                .merchant(transaction.getMerchant())
-                .createdAt(transaction.getCreatedAt())
-                .updatedAt(transaction.getUpdatedAt())
-                .build();
-    }
 }
@@ -0,0 +1,15 @@
+package com.niyiment.aifinancetracker.service.vector;
+
+import com.niyiment.aifinancetracker.entity.DocumentEmbedding;
+
+import java.util.List;
+
+// Published inside the indexing transaction; in-process engines apply it after commit. Reused rows kept
+// their embedding but carry updated metadata (chunkIndex, totalChunks)
+public record DocumentIndexedEvent(
+        String documentName,
+        List<DocumentEmbedding> embedded,
+        List<DocumentEmbedding> reused,
+        List<Long> removedIds
+) {
+}
@@ -0,0 +1,424 @@
+package com.niyiment.aifinancetracker.service.vector;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Hierarchical navigable small world graph over unit-normalized vectors, using cosine distance like the
+// pgvector index. Vectors live off-heap in direct buffers; only the graph links are kept on the heap.
+// Removals are tombstones: removed nodes still route searches but are never returned, until compact()
+// rebuilds the graph from the live nodes
+public class HnswIndex {
+    private static final int VECTORS_PER_BLOCK = 1024;
+
+    private final int dimensions;
+    private final int m;
+    private final int efConstruction;
+    private final double levelMultiplier;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final List<FloatBuffer> blocks = new ArrayList<>();
+    private final Map<Long, Integer> nodesByExternalId = new HashMap<>();
+    private final BitSet deleted = new BitSet();
+    private int deletedCount;
+    // links[node][level] = [count, neighbour...]
+    private int[][][] links = new int[VECTORS_PER_BLOCK][][];
+    private long[] externalIds = new long[VECTORS_PER_BLOCK];
+    private int size;
+    private int entryPoint = -1;
+    private int maxLevel = -1;
+    private volatile int efSearch;
+
+    public HnswIndex(int dimensions, int m, int efConstruction, int efSearch) {
+        this.dimensions = dimensions;
+        this.m = m;
+        this.efConstruction = efConstruction;
+        this.efSearch = efSearch;
+        this.levelMultiplier = 1.0 / Math.log(m);
+    }
+
+    public void add(long id, float[] vector) {
+        if (vector.length != dimensions) {
+            throw new IllegalArgumentException(
+                    "Expected a vector of " + dimensions + " dimensions but got " + vector.length);
+        }
+
+        lock.writeLock().lock();
+        try {
+            // Ids come from a sequence and are never reused, so a known id is a duplicate delivery
+            if (nodesByExternalId.containsKey(id)) {
+                return;
+            }
+
+            float[] normalized = normalize(vector);
+            int node = size++;
+            ensureCapacity(node);
+            storeVector(node, normalized);
+            externalIds[node] = id;
+            nodesByExternalId.put(id, node);
+
+            int level = randomLevel();
+            links[node] = new int[level + 1][];
+            for (int l = 0; l <= level; l++) {
+                links[node][l] = new int[maxLinks(l) + 1];
+            }
+
+            if (entryPoint < 0) {
+                entryPoint = node;
+                maxLevel = level;
+                return;
+            }
+
+            int current = entryPoint;
+            for (int l = maxLevel; l > level; l--) {
+                current = greedyClosest(normalized, current, l);
+            }
+            for (int l = Math.min(level, maxLevel); l >= 0; l--) {
+                List<Candidate> nearest = searchLayer(normalized, current, efConstruction, l);
+                for (Candidate neighbour : selectNeighbours(nearest, m)) {
+                    connect(node, neighbour.node(), l);
+                    connect(neighbour.node(), node, l);
+                }
+                current = nearest.get(0).node();
+            }
+
+            if (level > maxLevel) {
+                maxLevel = level;
+                entryPoint = node;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(long id) {
+        lock.writeLock().lock();
+        try {
+            Integer node = nodesByExternalId.get(id);
+            if (node != null && !deleted.get(node)) {
+                deleted.set(node);
+                deletedCount++;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public List<SearchHit> search(float[] query, int k) {
+        return search(query, k, efSearch);
+    }
+
+    public List<SearchHit> search(float[] query, int k, int ef) {
+        lock.readLock().lock();
+        try {
+            if (entryPoint < 0) {
+                return List.of();
+            }
+
+            float[] normalized = normalize(query);
+            int current = entryPoint;
+            for (int l = maxLevel; l > 0; l--) {
+                current = greedyClosest(normalized, current, l);
+            }
+
+            // Tombstones take up candidate slots, so widen the beam by their count to still find k live hits
+            int beam = Math.min(size, Math.max(ef, k) + deletedCount);
+            List<SearchHit> hits = new ArrayList<>(k);
+            for (Candidate candidate : searchLayer(normalized, current, beam, 0)) {
+                if (!deleted.get(candidate.node())) {
+                    hits.add(new SearchHit(externalIds[candidate.node()], candidate.distance()));
+                    if (hits.size() == k) {
+                        break;
+                    }
+                }
+            }
+            return hits;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Brute-force scan, used as ground truth when measuring recall
+    public List<SearchHit> exactSearch(float[] query, int k) {
+        lock.readLock().lock();
+        try {
+            float[] normalized = normalize(query);
+            PriorityQueue<Candidate> results = new PriorityQueue<>(Comparator.comparingDouble(Candidate::distance).reversed());
+            for (int node = 0; node < size; node++) {
+                if (deleted.get(node)) {
+                    continue;
+                }
+                results.add(new Candidate(node, distance(normalized, node)));
+                if (results.size() > k) {
+                    results.poll();
+                }
+            }
+
+            List<SearchHit> hits = new ArrayList<>(results.size());
+            results.stream()
+                    .sorted(Comparator.comparingDouble(Candidate::distance))
+                    .forEach(c -> hits.add(new SearchHit(externalIds[c.node()], c.distance())));
+            return hits;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // A new graph holding only the live nodes. Built outside the lock, so searches on this index keep
+    // running meanwhile; the caller must hold back writes until it has swapped in the result
+    public HnswIndex compact() {
+        long[] ids;
+        float[][] vectors;
+        lock.readLock().lock();
+        try {
+            int live = size - deletedCount;
+            ids = new long[live];
+            vectors = new float[live][];
+            int i = 0;
+            for (int node = 0; node < size; node++) {
+                if (!deleted.get(node)) {
+                    ids[i] = externalIds[node];
+                    vectors[i] = readVector(node);
+                    i++;
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        HnswIndex compacted = new HnswIndex(dimensions, m, efConstruction, efSearch);
+        for (int i = 0; i < ids.length; i++) {
+            compacted.add(ids[i], vectors[i]);
+        }
+        return compacted;
+    }
+
+    public double deletedRatio() {
+        lock.readLock().lock();
+        try {
+            return size == 0 ? 0 : (double) deletedCount / size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void setEfSearch(int efSearch) {
+        this.efSearch = efSearch;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size - deletedCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long offHeapBytes() {
+        lock.readLock().lock();
+        try {
+            return (long) blocks.size() * VECTORS_PER_BLOCK * dimensions * Float.BYTES;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private int greedyClosest(float[] query, int start, int level) {
+        int current = start;
+        float currentDistance = distance(query, current);
+        boolean improved = true;
+        while (improved) {
+            improved = false;
+            int[] neighbours = links[current][level];
+            for (int i = 1; i <= neighbours[0]; i++) {
+                float d = distance(query, neighbours[i]);
+                if (d < currentDistance) {
+                    current = neighbours[i];
+                    currentDistance = d;
+                    improved = true;
+                }
+            }
+        }
+        return current;
+    }
+
+    // Returns up to ef nodes closest to the query on one level, nearest first
+    private List<Candidate> searchLayer(float[] query, int entry, int ef, int level) {
+        BitSet visited = new BitSet(size);
+        PriorityQueue<Candidate> candidates = new PriorityQueue<>(Comparator.comparingDouble(Candidate::distance));
+        PriorityQueue<Candidate> results = new PriorityQueue<>(Comparator.comparingDouble(Candidate::distance).reversed());
+
+        Candidate start = new Candidate(entry, distance(query, entry));
+        candidates.add(start);
+        results.add(start);
+        visited.set(entry);
+
+        while (!candidates.isEmpty()) {
+            Candidate closest = candidates.poll();
+            if (results.size() >= ef && closest.distance() > results.peek().distance()) {
+                break;
+            }
+
+            int[] neighbours = links[closest.node()][level];
+            for (int i = 1; i <= neighbours[0]; i++) {
+                int neighbour = neighbours[i];
+                if (visited.get(neighbour)) {
+                    continue;
+                }
+                visited.set(neighbour);
+
+                float d = distance(query, neighbour);
+                if (results.size() < ef || d < results.peek().distance()) {
+                    Candidate candidate = new Candidate(neighbour, d);
+                    candidates.add(candidate);
+                    results.add(candidate);
+                    if (results.size() > ef) {
+                        results.poll();
+                    }
+                }
+            }
+        }
+
+        List<Candidate> nearest = new ArrayList<>(results);
+        nearest.sort(Comparator.comparingDouble(Candidate::distance));
+        return nearest;
+    }
+
+    // Adds a link; once the level is full the links are re-selected with the diversity heuristic
+    private void connect(int from, int to, int level) {
+        int[] neighbours = links[from][level];
+        int count = neighbours[0];
+        if (count < neighbours.length - 1) {
+            neighbours[++count] = to;
+            neighbours[0] = count;
+            return;
+        }
+
+        float[] origin = readVector(from);
+        List<Candidate> all = new ArrayList<>(count + 1);
+        for (int i = 1; i <= count; i++) {
+            all.add(new Candidate(neighbours[i], distance(origin, neighbours[i])));
+        }
+        all.add(new Candidate(to, distance(origin, to)));
+        all.sort(Comparator.comparingDouble(Candidate::distance));
+
+        List<Candidate> selected = selectNeighbours(all, count);
+        for (int i = 0; i < selected.size(); i++) {
+            neighbours[i + 1] = selected.get(i).node();
+        }
+        neighbours[0] = selected.size();
+    }
+
+    // Prefers candidates that are closer to the base node than to any neighbour already chosen, so links
+    // spread across directions instead of all pointing into one cluster; remaining slots take the closest rest
+    private List<Candidate> selectNeighbours(List<Candidate> sortedCandidates, int limit) {
+        List<Candidate> selected = new ArrayList<>(limit);
+        List<Candidate> pruned = new ArrayList<>();
+        for (Candidate candidate : sortedCandidates) {
+            if (selected.size() >= limit) {
+                break;
+            }
+            float[] vector = readVector(candidate.node());
+            boolean diverse = true;
+            for (Candidate chosen : selected) {
+                if (distance(vector, chosen.node()) < candidate.distance()) {
+                    diverse = false;
+                    break;
+                }
+            }
+            if (diverse) {
+                selected.add(candidate);
+            } else {
+                pruned.add(candidate);
+            }
+        }
+        for (int i = 0; i < pruned.size() && selected.size() < limit; i++) {
+            selected.add(pruned.get(i));
+        }
+        return selected;
+    }
+
+    private int maxLinks(int level) {
+        return level == 0 ? 2 * m : m;
+    }
+
+    private int randomLevel() {
+        double r = 1.0 - ThreadLocalRandom.current().nextDouble();
+        return (int) Math.floor(-Math.log(r) * levelMultiplier);
+    }
+
+    private void ensureCapacity(int node) {
+        if (node >= externalIds.length) {
+            int capacity = externalIds.length * 2;
+            externalIds = Arrays.copyOf(externalIds, capacity);
+            links = Arrays.copyOf(links, capacity);
+        }
+        if (node / VECTORS_PER_BLOCK >= blocks.size()) {
+            blocks.add(ByteBuffer.allocateDirect(VECTORS_PER_BLOCK * dimensions * Float.BYTES)
+                    .order(ByteOrder.nativeOrder())
+                    .asFloatBuffer());
+        }
+    }
+
+    private void storeVector(int node, float[] vector) {
+        blocks.get(node / VECTORS_PER_BLOCK).put((node % VECTORS_PER_BLOCK) * dimensions, vector);
+    }
+
+    private float[] readVector(int node) {
+        float[] vector = new float[dimensions];
+        blocks.get(node / VECTORS_PER_BLOCK).get((node % VECTORS_PER_BLOCK) * dimensions, vector);
+        return vector;
+    }
+
+    private float distance(float[] query, int node) {
+        FloatBuffer block = blocks.get(node / VECTORS_PER_BLOCK);
+        int offset = (node % VECTORS_PER_BLOCK) * dimensions;
+        // Four independent accumulators let the JIT pipeline the multiply-adds
+        float dot0 = 0;
+        float dot1 = 0;
+        float dot2 = 0;
+        float dot3 = 0;
+        int i = 0;
+        for (int bound = dimensions & ~3; i < bound; i += 4) {
+            dot0 += query[i] * block.get(offset + i);
+            dot1 += query[i + 1] * block.get(offset + i + 1);
+            dot2 += query[i + 2] * block.get(offset + i + 2);
+            dot3 += query[i + 3] * block.get(offset + i + 3);
+        }
+        for (; i < dimensions; i++) {
+            dot0 += query[i] * block.get(offset + i);
+        }
+        return 1.0f - (dot0 + dot1 + dot2 + dot3);
+    }
+
+    private static float[] normalize(float[] vector) {
+        double norm = 0;
+        for (float v : vector) {
+            norm += v * v;
+        }
+        norm = Math.sqrt(norm);
+
+        float[] normalized = new float[vector.length];
+        if (norm > 0) {
+            for (int i = 0; i < vector.length; i++) {
+                normalized[i] = (float) (vector[i] / norm);
+            }
+        }
+        return normalized;
+    }
+
+    private record Candidate(int node, float distance) {}
+
+    public record SearchHit(long id, float distance) {}
+}
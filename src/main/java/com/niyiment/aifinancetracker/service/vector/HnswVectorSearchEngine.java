@@ -0,0 +1,192 @@
+package com.niyiment.aifinancetracker.service.vector;
+
+import com.niyiment.aifinancetracker.entity.DocumentEmbedding;
+import com.niyiment.aifinancetracker.repository.DocumentEmbeddingRepository;
+import com.niyiment.aifinancetracker.repository.SimilarityFilter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Serves retrieval from memory: vectors sit in an off-heap HNSW graph and chunk text in a heap map,
+// so a search never touches the database. Until the startup load finishes, callers fall back to pgvector
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "finance.ai.vector-search.engine", havingValue = HnswVectorSearchEngine.NAME)
+public class HnswVectorSearchEngine implements VectorSearchEngine {
+    public static final String NAME = "hnsw";
+    // Filtered searches over-fetch this many candidates per requested result before applying the filter
+    private static final int FILTER_OVERFETCH = 4;
+
+    private final DocumentEmbeddingRepository repository;
+    // Replaced wholesale by compaction; writers hold writeLock so none land on the index being replaced
+    private volatile HnswIndex index;
+    private final Object writeLock = new Object();
+    private final double compactThreshold;
+    private final Map<Long, DocumentEmbedding> chunks = new ConcurrentHashMap<>();
+    // Lets the startup load skip rows it read before their deletion was applied
+    private final Set<Long> removedIds = ConcurrentHashMap.newKeySet();
+    private final int loadPageSize;
+    private final int efSearch;
+    private final Timer searchTimer;
+
+    private volatile boolean ready;
+
+    public HnswVectorSearchEngine(
+            DocumentEmbeddingRepository repository,
+            MeterRegistry meterRegistry,
+            @Value("${spring.ai.vectorstore.pgvector.dimensions}") int dimensions,
+            @Value("${finance.ai.vector-search.hnsw.m}") int m,
+            @Value("${finance.ai.vector-search.hnsw.ef-construction}") int efConstruction,
+            @Value("${finance.ai.vector-search.hnsw.ef-search}") int efSearch,
+            @Value("${finance.ai.vector-search.hnsw.load-page-size}") int loadPageSize,
+            @Value("${finance.ai.vector-search.hnsw.compact-threshold}") double compactThreshold
+    ) {
+        this.repository = repository;
+        this.index = new HnswIndex(dimensions, m, efConstruction, efSearch);
+        this.loadPageSize = loadPageSize;
+        this.efSearch = efSearch;
+        this.compactThreshold = compactThreshold;
+        this.searchTimer = Timer.builder("vector.search")
+                .tag("engine", NAME)
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+
+        Gauge.builder("vector.hnsw.size", this, engine -> engine.index.size()).register(meterRegistry);
+        Gauge.builder("vector.hnsw.offheap.bytes", this, engine -> engine.index.offHeapBytes()).register(meterRegistry);
+        Gauge.builder("vector.hnsw.deleted.ratio", this, engine -> engine.index.deletedRatio()).register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void startLoading() {
+        Thread.ofPlatform()
+                .name("hnsw-loader")
+                .daemon()
+                .start(this::load);
+    }
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public boolean isReady() {
+        return ready;
+    }
+
+    @Override
+    public List<DocumentEmbedding> search(float[] queryEmbedding, int limit, SimilarityFilter filter, Integer efSearch) {
+        int ef = efSearch != null ? efSearch : this.efSearch;
+        boolean filtered = filter != null && !filter.isEmpty();
+        // The graph knows nothing about metadata, so a filter is applied to a wider candidate set. A very
+        // selective filter can still return fewer than limit chunks
+        int candidates = filtered ? Math.max(ef, limit * FILTER_OVERFETCH) : limit;
+
+        return searchTimer.record(() -> {
+            List<DocumentEmbedding> results = new ArrayList<>(limit);
+            for (HnswIndex.SearchHit hit : index.search(queryEmbedding, candidates, ef)) {
+                DocumentEmbedding chunk = chunks.get(hit.id());
+                if (chunk != null && (!filtered || filter.matches(chunk.getMetadata()))) {
+                    results.add(chunk);
+                    if (results.size() == limit) {
+                        break;
+                    }
+                }
+            }
+            return results;
+        });
+    }
+
+    @TransactionalEventListener
+    public void onDocumentIndexed(DocumentIndexedEvent event) {
+        synchronized (writeLock) {
+            event.removedIds().forEach(id -> {
+                removedIds.add(id);
+                index.remove(id);
+                chunks.remove(id);
+            });
+            event.embedded().forEach(this::add);
+            // Reused rows keep their vector but may have moved, so their chunkIndex metadata is refreshed
+            event.reused().forEach(row -> chunks.computeIfPresent(row.getId(), (id, chunk) -> toChunk(row)));
+
+            compactIfNeeded();
+        }
+
+        log.debug("Applied {} new, {} reused and {} removed chunks of {} to the HNSW index",
+                event.embedded().size(), event.reused().size(), event.removedIds().size(), event.documentName());
+    }
+
+    private void load() {
+        long start = System.nanoTime();
+        try {
+            Page<DocumentEmbedding> page = repository.findAll(PageRequest.of(0, loadPageSize, Sort.by("id")));
+            while (true) {
+                synchronized (writeLock) {
+                    page.forEach(this::add);
+                }
+                if (!page.hasNext()) {
+                    break;
+                }
+                page = repository.findAll(page.nextPageable());
+            }
+
+            ready = true;
+            log.info("Loaded {} document chunks into the HNSW index in {} ms ({} bytes off-heap)",
+                    index.size(), (System.nanoTime() - start) / 1_000_000, index.offHeapBytes());
+        } catch (Exception e) {
+            log.error("Failed to load the HNSW index, retrieval stays on pgvector", e);
+        }
+    }
+
+    private void add(DocumentEmbedding row) {
+        if (row.getEmbedding() == null || removedIds.contains(row.getId())) {
+            return;
+        }
+
+        index.add(row.getId(), row.getEmbedding().toArray());
+        chunks.put(row.getId(), toChunk(row));
+    }
+
+    // Tombstoned nodes keep their off-heap vector and links; past the threshold the live nodes are
+    // rebuilt into a fresh graph while searches continue on the old one
+    private void compactIfNeeded() {
+        double deletedRatio = index.deletedRatio();
+        if (deletedRatio <= compactThreshold) {
+            return;
+        }
+
+        long start = System.nanoTime();
+        long offHeapBefore = index.offHeapBytes();
+        index = index.compact();
+        log.info("Compacted the HNSW index ({}% deleted) in {} ms, off-heap {} -> {} bytes",
+                Math.round(deletedRatio * 100), (System.nanoTime() - start) / 1_000_000,
+                offHeapBefore, index.offHeapBytes());
+    }
+
+    // The vector lives in the index; keep only what a search result needs
+    private static DocumentEmbedding toChunk(DocumentEmbedding row) {
+        return DocumentEmbedding.builder()
+                .id(row.getId())
+                .documentName(row.getDocumentName())
+                .content(row.getContent())
+                .metadata(row.getMetadata())
+                .createdAt(row.getCreatedAt())
+                .build();
+    }
+}
@@ -0,0 +1,124 @@
+package com.niyiment.aifinancetracker.service.vector;
+
+import com.niyiment.aifinancetracker.entity.DocumentEmbedding;
+import com.niyiment.aifinancetracker.repository.DocumentEmbeddingRepository;
+import com.niyiment.aifinancetracker.repository.SimilarDocumentChunk;
+import com.niyiment.aifinancetracker.repository.SimilarityFilter;
+import com.niyiment.aifinancetracker.repository.VectorStorage;
+import com.pgvector.PGvector;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+
+@Slf4j
+@Component
+public class PgVectorSearchEngine implements VectorSearchEngine {
+    public static final String NAME = "pgvector";
+
+    private final DocumentEmbeddingRepository repository;
+    private final int dimensions;
+    private final VectorStorage storage;
+    private final int efSearch;
+    private final boolean createIndex;
+    private final boolean verifyIndex;
+
+    public PgVectorSearchEngine(
+            DocumentEmbeddingRepository repository,
+            @Value("${spring.ai.vectorstore.pgvector.dimensions}") int dimensions,
+            @Value("${finance.ai.vector-search.pgvector.ef-search}") int efSearch,
+            @Value("${finance.ai.vector-search.pgvector.storage.mode}") VectorStorage.Mode storageMode,
+            @Value("${finance.ai.vector-search.pgvector.storage.dimensions}") int storageDimensions,
+            @Value("${finance.ai.vector-search.pgvector.storage.rescore-factor}") int rescoreFactor,
+            @Value("${finance.ai.vector-search.pgvector.create-index}") boolean createIndex,
+            @Value("${finance.ai.vector-search.pgvector.verify-index}") boolean verifyIndex
+    ) {
+        this.repository = repository;
+        this.dimensions = dimensions;
+        this.storage = new VectorStorage(storageMode, Math.min(storageDimensions, dimensions), dimensions, rescoreFactor);
+        this.efSearch = efSearch;
+        this.createIndex = createIndex;
+        this.verifyIndex = verifyIndex;
+    }
+
+    // Off the startup thread: a concurrent index build waits for in-flight writes and can take minutes
+    @EventListener(ApplicationReadyEvent.class)
+    public void startPreparingIndex() {
+        Thread.ofPlatform()
+                .name("pgvector-index")
+                .daemon()
+                .start(this::prepareIndex);
+    }
+
+    private void prepareIndex() {
+        try {
+            if (createIndex) {
+                repository.createVectorIndexIfMissing(storage);
+            }
+            if (verifyIndex) {
+                verifyIndexUsage();
+            }
+        } catch (Exception e) {
+            log.warn("Could not prepare the pgvector index: {}", e.getMessage());
+        }
+    }
+
+    public VectorStorage storage() {
+        return storage;
+    }
+
+    public int efSearch() {
+        return efSearch;
+    }
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public boolean isReady() {
+        return true;
+    }
+
+    @Override
+    public List<DocumentEmbedding> search(float[] queryEmbedding, int limit, SimilarityFilter filter, Integer efSearch) {
+        return search(queryEmbedding, limit, efSearch != null ? efSearch : this.efSearch, filter, storage);
+    }
+
+    public List<DocumentEmbedding> search(float[] queryEmbedding, int limit, int efSearch, SimilarityFilter filter,
+                                          VectorStorage storage) {
+        return repository.findSimilarChunks(new PGvector(queryEmbedding), limit, efSearch, filter, storage)
+                .stream()
+                .map(this::toDocumentEmbedding)
+                .toList();
+    }
+
+    // The planner may still pick a sequential scan on a tiny table; that is expected until the knowledge base grows
+    private void verifyIndexUsage() {
+        List<String> plan = repository.explainSimilarChunks(new PGvector(new float[dimensions]), 5, efSearch, storage);
+        boolean usesIndex = plan.stream().anyMatch(line -> line.contains(storage.indexName()));
+
+        if (usesIndex) {
+            log.info("Similarity search uses the {} index ({} storage, {} dimensions)",
+                    storage.indexName(), storage.mode(), storage.dimensions());
+        } else {
+            log.warn("Similarity search does not use the HNSW index, plan:\n{}", String.join("\n", plan));
+        }
+    }
+
+    private DocumentEmbedding toDocumentEmbedding(SimilarDocumentChunk chunk) {
+        return DocumentEmbedding.builder()
+                .id(chunk.id())
+                .documentName(chunk.documentName())
+                .content(chunk.content())
+                .metadata(chunk.chunkIndex() != null
+                        ? Map.of("chunkIndex", chunk.chunkIndex(), "distance", chunk.distance())
+                        : Map.of("distance", chunk.distance()))
+                .build();
+    }
+}
@@ -0,0 +1,21 @@
+package com.niyiment.aifinancetracker.service.vector;
+
+import com.niyiment.aifinancetracker.entity.DocumentEmbedding;
+import com.niyiment.aifinancetracker.repository.SimilarityFilter;
+
+import java.util.List;
+
+// Nearest-neighbour search over document chunks, nearest first
+public interface VectorSearchEngine {
+
+    String name();
+
+    boolean isReady();
+
+    default List<DocumentEmbedding> search(float[] queryEmbedding, int limit) {
+        return search(queryEmbedding, limit, SimilarityFilter.NONE, null);
+    }
+
+    // A null efSearch keeps the engine's configured search width
+    List<DocumentEmbedding> search(float[] queryEmbedding, int limit, SimilarityFilter filter, Integer efSearch);
+}
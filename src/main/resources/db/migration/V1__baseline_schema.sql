@@ -0,0 +1,37 @@
+-- Schema as it stood before versioned migrations. Databases created earlier are baselined at this
+-- version (spring.flyway.baseline-on-migrate), so this only runs on an empty database
+CREATE EXTENSION IF NOT EXISTS vector;
+
+CREATE TABLE IF NOT EXISTS transactions (
+    id               BIGSERIAL PRIMARY KEY,
+    user_id          VARCHAR(255)   NOT NULL,
+    amount           NUMERIC(15, 2) NOT NULL,
+    category         VARCHAR(100)   NOT NULL,
+    description      TEXT,
+    transaction_type VARCHAR(20)    NOT NULL,
+    transaction_date TIMESTAMP      NOT NULL,
+    merchant         VARCHAR(255),
+    location         VARCHAR(255),
+    created_at       TIMESTAMP      NOT NULL,
+    updated_at       TIMESTAMP
+);
+
+CREATE TABLE IF NOT EXISTS fraud_alerts (
+    id             BIGSERIAL PRIMARY KEY,
+    transaction_id BIGINT REFERENCES transactions (id),
+    user_id        VARCHAR(255) NOT NULL,
+    fraud_score    NUMERIC(5, 2) NOT NULL,
+    reason         TEXT         NOT NULL,
+    status         VARCHAR(20)  NOT NULL,
+    detected_at    TIMESTAMP    NOT NULL,
+    resolved_at    TIMESTAMP
+);
+
+CREATE TABLE IF NOT EXISTS document_embeddings (
+    id            BIGSERIAL PRIMARY KEY,
+    document_name VARCHAR(500) NOT NULL,
+    content       TEXT         NOT NULL,
+    embedding     vector(1536),
+    metadata      JSONB,
+    created_at    TIMESTAMP    NOT NULL
+);
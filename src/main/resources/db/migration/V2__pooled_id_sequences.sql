@@ -0,0 +1,22 @@
+-- Ids come from Hibernate's pooled optimizer (allocationSize = 50): each nextval reserves a block of
+-- 50 ids, so the sequences must step by 50 and start past every existing id
+CREATE SEQUENCE IF NOT EXISTS transactions_seq INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS fraud_alerts_seq INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS document_embeddings_seq INCREMENT BY 50;
+
+SELECT setval('transactions_seq', COALESCE((SELECT max(id) FROM transactions), 0) + 50);
+SELECT setval('fraud_alerts_seq', COALESCE((SELECT max(id) FROM fraud_alerts), 0) + 50);
+SELECT setval('document_embeddings_seq', COALESCE((SELECT max(id) FROM document_embeddings), 0) + 50);
+
+-- A column default drawing from the old step-1 sequence would hand out ids inside Hibernate's blocks.
+-- Older databases may have serial or identity columns, so both are removed
+ALTER TABLE transactions ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE transactions ALTER COLUMN id DROP DEFAULT;
+ALTER TABLE fraud_alerts ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE fraud_alerts ALTER COLUMN id DROP DEFAULT;
+ALTER TABLE document_embeddings ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE document_embeddings ALTER COLUMN id DROP DEFAULT;
+
+DROP SEQUENCE IF EXISTS transactions_id_seq;
+DROP SEQUENCE IF EXISTS fraud_alerts_id_seq;
+DROP SEQUENCE IF EXISTS document_embeddings_id_seq;
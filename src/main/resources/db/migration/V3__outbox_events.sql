@@ -0,0 +1,18 @@
+CREATE SEQUENCE IF NOT EXISTS outbox_events_seq INCREMENT BY 50;
+
+CREATE TABLE IF NOT EXISTS outbox_events (
+    id            BIGINT PRIMARY KEY,
+    topic         VARCHAR(255) NOT NULL,
+    message_key   VARCHAR(255),
+    event_type    VARCHAR(255) NOT NULL,
+    payload       TEXT         NOT NULL,
+    attempts      INTEGER      NOT NULL DEFAULT 0,
+    created_at    TIMESTAMP    NOT NULL,
+    sent_at       TIMESTAMP,
+    claimed_until TIMESTAMP,
+    parked_at     TIMESTAMP
+);
+
+-- Only rows still waiting to be relayed, so the index stays small however much sent history is retained
+CREATE INDEX IF NOT EXISTS idx_outbox_events_unsent ON outbox_events (id)
+    WHERE sent_at IS NULL AND parked_at IS NULL;
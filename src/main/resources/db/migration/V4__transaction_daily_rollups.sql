@@ -0,0 +1,28 @@
+-- Steps by 50 to match the entity's allocationSize. The JDBC upserts call nextval directly, so each of
+-- their rows skips a block of ids, which only leaves gaps
+CREATE SEQUENCE IF NOT EXISTS transaction_daily_rollups_seq INCREMENT BY 50;
+
+CREATE TABLE IF NOT EXISTS transaction_daily_rollups (
+    id                BIGINT PRIMARY KEY,
+    user_id           VARCHAR(255)   NOT NULL,
+    day               DATE           NOT NULL,
+    transaction_type  VARCHAR(20)    NOT NULL,
+    category          VARCHAR(100)   NOT NULL,
+    transaction_count BIGINT         NOT NULL,
+    total_amount      NUMERIC(19, 2) NOT NULL,
+    updated_at        TIMESTAMP      NOT NULL,
+    -- The arbiter of the upserts' ON CONFLICT (user_id, day, transaction_type, category)
+    CONSTRAINT uk_transaction_daily_rollups_key UNIQUE (user_id, day, transaction_type, category)
+);
+
+CREATE INDEX IF NOT EXISTS idx_transaction_daily_rollups_user_day ON transaction_daily_rollups (user_id, day);
+
+-- Progress of the one-off backfill from existing transactions. Summaries read raw transactions until
+-- backfill_completed_at is set; backfilled_until lets an interrupted backfill resume
+CREATE TABLE IF NOT EXISTS transaction_rollup_state (
+    id                    SMALLINT PRIMARY KEY CHECK (id = 1),
+    backfilled_until      DATE,
+    backfill_completed_at TIMESTAMP
+);
+
+INSERT INTO transaction_rollup_state (id) VALUES (1) ON CONFLICT (id) DO NOTHING;
@@ -0,0 +1,3 @@
+-- Serves keyset pagination of a user's transactions, newest first: the first page and every page after a
+-- (transaction_date, id) cursor read the same few index entries however deep the cursor is
+CREATE INDEX IF NOT EXISTS idx_transactions_user_date_id ON transactions (user_id, transaction_date, id);
@@ -0,0 +1,14 @@
+package com.niyiment.aifinancetracker.benchmark;
+
+// Shared by the benchmark harnesses, which only run under the "benchmark" Maven profile
+public final class Percentiles {
+
+    private Percentiles() {
+    }
+
+    // Nearest-rank percentile of an ascending array
+    public static long of(long[] sorted, double quantile) {
+        int index = (int) Math.ceil(quantile * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+    }
+}
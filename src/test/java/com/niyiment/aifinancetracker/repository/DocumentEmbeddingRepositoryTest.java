@@ -0,0 +1,116 @@
+package com.niyiment.aifinancetracker.repository;
+
+import com.pgvector.PGvector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Runs the native similarity queries against a real pgvector database migrated by Flyway.
+// Test transactions are off because the HNSW index is built with CREATE INDEX CONCURRENTLY
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Testcontainers(disabledWithoutDocker = true)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class DocumentEmbeddingRepositoryTest {
+    private static final int DIMENSIONS = 1536;
+    private static final int DOCUMENTS = 10;
+    private static final int CHUNKS_PER_DOCUMENT = 300;
+
+    @Container
+    @ServiceConnection
+    static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>(
+            DockerImageName.parse("pgvector/pgvector:pg16").asCompatibleSubstituteFor("postgres"));
+
+    private static final VectorStorage STORAGE = VectorStorage.full(DIMENSIONS);
+
+    @Autowired
+    private DocumentEmbeddingRepository repository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void loadEmbeddings() {
+        if (repository.count() > 0) {
+            return;
+        }
+
+        Random random = new Random(7);
+        List<Object[]> rows = new ArrayList<>(CHUNKS_PER_DOCUMENT);
+        for (int document = 0; document < DOCUMENTS; document++) {
+            String name = "doc-" + document + ".pdf";
+            rows.clear();
+            for (int chunk = 0; chunk < CHUNKS_PER_DOCUMENT; chunk++) {
+                rows.add(new Object[]{
+                        name,
+                        "chunk " + chunk + " of " + name,
+                        new PGvector(randomVector(random)),
+                        "{\"source\": \"" + name + "\", \"chunkIndex\": " + chunk + "}"
+                });
+            }
+            jdbcTemplate.batchUpdate("INSERT INTO document_embeddings (id, document_name, content, embedding, metadata, created_at) " +
+                    "VALUES (nextval('document_embeddings_seq'), ?, ?, ?, CAST(? AS jsonb), now())", rows);
+        }
+
+        repository.createVectorIndexIfMissing(STORAGE);
+        jdbcTemplate.execute("ANALYZE document_embeddings");
+    }
+
+    @Test
+    void similaritySearchUsesTheHnswIndex() {
+        List<String> plan = repository.explainSimilarChunks(query(), 5, 40, STORAGE);
+
+        assertThat(plan).anyMatch(line -> line.contains(STORAGE.indexName()));
+    }
+
+    @Test
+    void returnsNearestChunksFirst() {
+        List<SimilarDocumentChunk> chunks = repository.findSimilarChunks(query(), 10, 100, SimilarityFilter.NONE, STORAGE);
+
+        assertThat(chunks).hasSize(10);
+        for (int i = 1; i < chunks.size(); i++) {
+            assertThat(chunks.get(i).distance()).isGreaterThanOrEqualTo(chunks.get(i - 1).distance());
+        }
+    }
+
+    @Test
+    void filtersOnSourceAndChunkRangeMetadata() {
+        SimilarityFilter filter = new SimilarityFilter(List.of("doc-3.pdf"), 20, 60);
+
+        List<SimilarDocumentChunk> chunks = repository.findSimilarChunks(query(), 10, 100, filter, STORAGE);
+
+        assertThat(chunks).hasSize(10);
+        assertThat(chunks).allSatisfy(chunk -> {
+            assertThat(chunk.documentName()).isEqualTo("doc-3.pdf");
+            assertThat(chunk.chunkIndex()).isBetween(20, 60);
+        });
+    }
+
+    private static PGvector query() {
+        return new PGvector(randomVector(new Random(11)));
+    }
+
+    private static float[] randomVector(Random random) {
+        float[] vector = new float[DIMENSIONS];
+        for (int i = 0; i < DIMENSIONS; i++) {
+            vector[i] = (float) random.nextGaussian();
+        }
+        return vector;
+    }
+}
@@ -0,0 +1,94 @@
+package com.niyiment.aifinancetracker.repository;
+
+import com.niyiment.aifinancetracker.entity.Transaction;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RollupDeltaTest {
+    private static final LocalDateTime LATE_EVENING = LocalDateTime.of(2024, 1, 15, 23, 59);
+
+    @Test
+    void addedTransactionCountsOnceOnItsCalendarDay() {
+        RollupDelta delta = RollupDelta.added(transaction("user-1", "Food", "12.50", LATE_EVENING));
+
+        assertThat(delta.day()).isEqualTo(LocalDate.of(2024, 1, 15));
+        assertThat(delta.countDelta()).isEqualTo(1);
+        assertThat(delta.amountDelta()).isEqualByComparingTo("12.50");
+        assertThat(delta.key()).isEqualTo(new RollupDelta.RollupKey(
+                "user-1", LocalDate.of(2024, 1, 15), Transaction.TransactionType.EXPENSE, "Food"));
+    }
+
+    @Test
+    void removedTransactionSubtractsItsCountAndAmount() {
+        RollupDelta delta = RollupDelta.removed(transaction("user-1", "Food", "12.50", LATE_EVENING));
+
+        assertThat(delta.countDelta()).isEqualTo(-1);
+        assertThat(delta.amountDelta()).isEqualByComparingTo("-12.50");
+    }
+
+    @Test
+    void deltasForTheSameRowAddUp() {
+        RollupDelta merged = RollupDelta.added(transaction("user-1", "Food", "12.50", LATE_EVENING))
+                .plus(RollupDelta.added(transaction("user-1", "Food", "7.50", LATE_EVENING)));
+
+        assertThat(merged.countDelta()).isEqualTo(2);
+        assertThat(merged.amountDelta()).isEqualByComparingTo("20.00");
+        assertThat(merged.isZero()).isFalse();
+    }
+
+    @Test
+    void removingWhatWasAddedCancelsOut() {
+        Transaction transaction = transaction("user-1", "Food", "12.50", LATE_EVENING);
+
+        RollupDelta merged = RollupDelta.added(transaction).plus(RollupDelta.removed(transaction));
+
+        assertThat(merged.isZero()).isTrue();
+    }
+
+    @Test
+    void amountEditKeepsTheCountButNotTheAmount() {
+        RollupDelta merged = RollupDelta.removed(transaction("user-1", "Food", "12.50", LATE_EVENING))
+                .plus(RollupDelta.added(transaction("user-1", "Food", "15.00", LATE_EVENING)));
+
+        assertThat(merged.countDelta()).isEqualTo(0);
+        assertThat(merged.amountDelta()).isEqualByComparingTo("2.50");
+        assertThat(merged.isZero()).isFalse();
+    }
+
+    @Test
+    void keysSortByUserThenDayThenTypeThenCategory() {
+        RollupDelta.RollupKey first = key("user-1", 14, Transaction.TransactionType.INCOME, "Salary");
+        RollupDelta.RollupKey second = key("user-1", 15, Transaction.TransactionType.INCOME, "Salary");
+        RollupDelta.RollupKey third = key("user-1", 15, Transaction.TransactionType.EXPENSE, "Food");
+        RollupDelta.RollupKey fourth = key("user-1", 15, Transaction.TransactionType.EXPENSE, "Rent");
+        RollupDelta.RollupKey fifth = key("user-2", 1, Transaction.TransactionType.INCOME, "Salary");
+        List<RollupDelta.RollupKey> keys = new ArrayList<>(List.of(fifth, fourth, third, second, first));
+
+        Collections.sort(keys);
+
+        // INCOME before EXPENSE follows the enum's declaration order
+        assertThat(keys).containsExactly(first, second, third, fourth, fifth);
+    }
+
+    private static RollupDelta.RollupKey key(String userId, int day, Transaction.TransactionType type, String category) {
+        return new RollupDelta.RollupKey(userId, LocalDate.of(2024, 1, day), type, category);
+    }
+
+    private static Transaction transaction(String userId, String category, String amount, LocalDateTime date) {
+        return Transaction.builder()
+                .userId(userId)
+                .category(category)
+                .amount(new BigDecimal(amount))
+                .transactionType(Transaction.TransactionType.EXPENSE)
+                .transactionDate(date)
+                .build();
+    }
+}
@@ -0,0 +1,133 @@
+package com.niyiment.aifinancetracker.service.ai;
+
+import com.niyiment.aifinancetracker.dto.request.AdvisorQueryRequest;
+import com.niyiment.aifinancetracker.entity.DocumentEmbedding;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ContextPackerTest {
+    private static final AdvisorQueryRequest.LlmProvider PROVIDER = AdvisorQueryRequest.LlmProvider.OPENAI;
+    // Same window and overlap as DocumentEmbeddingService
+    private static final int CHUNK_SIZE = 1000;
+    private static final int CHUNK_OVERLAP = 200;
+
+    private final String guide = document("Budgeting", 120);
+    private final ContextPacker packer = packer(100_000);
+
+    @Test
+    void adjacentChunksAreStitchedWithoutRepeatingTheOverlap() {
+        ContextPacker.PackedContext packed = packer.pack(
+                List.of(chunk("guide.pdf", guide, 0), chunk("guide.pdf", guide, 1), chunk("guide.pdf", guide, 2)),
+                PROVIDER, 0);
+
+        assertThat(packed.text()).isEqualTo("Source: guide.pdf\n" + span(guide, 0, 2));
+        assertThat(packed.documentNames()).containsExactly("guide.pdf");
+    }
+
+    @Test
+    void chunksArrivingInReverseOrderAreStitchedTheSameWay() {
+        ContextPacker.PackedContext packed = packer.pack(
+                List.of(chunk("guide.pdf", guide, 2), chunk("guide.pdf", guide, 1), chunk("guide.pdf", guide, 0)),
+                PROVIDER, 0);
+
+        assertThat(packed.text()).isEqualTo("Source: guide.pdf\n" + span(guide, 0, 2));
+    }
+
+    @Test
+    void chunkBridgingTwoPassagesJoinsThemIntoOne() {
+        ContextPacker.PackedContext packed = packer.pack(
+                List.of(chunk("guide.pdf", guide, 0), chunk("guide.pdf", guide, 2), chunk("guide.pdf", guide, 1)),
+                PROVIDER, 0);
+
+        assertThat(packed.text()).isEqualTo("Source: guide.pdf\n" + span(guide, 0, 2));
+    }
+
+    @Test
+    void bridgedPassageKeepsTheBetterRank() {
+        String taxes = document("Taxes", 20);
+        ContextPacker.PackedContext packed = packer.pack(
+                List.of(chunk("guide.pdf", guide, 3), chunk("taxes.pdf", taxes, 0),
+                        chunk("guide.pdf", guide, 5), chunk("guide.pdf", guide, 4)),
+                PROVIDER, 0);
+
+        assertThat(packed.text()).isEqualTo("Source: guide.pdf\n" + span(guide, 3, 5)
+                + "\n\n---\n\n" + "Source: taxes.pdf\n" + span(taxes, 0, 0));
+        assertThat(packed.documentNames()).containsExactly("guide.pdf", "taxes.pdf");
+    }
+
+    @Test
+    void duplicateContentIsPackedOnce() {
+        DocumentEmbedding original = chunk("guide.pdf", guide, 0);
+        DocumentEmbedding copy = chunk("guide-copy.pdf", guide, 0);
+        DocumentEmbedding unindexed = DocumentEmbedding.builder()
+                .documentName("notes.pdf")
+                .content(span(guide, 0, 0).substring(0, 300))
+                .build();
+
+        ContextPacker.PackedContext packed = packer.pack(List.of(original, copy, unindexed), PROVIDER, 0);
+
+        assertThat(packed.text()).isEqualTo("Source: guide.pdf\n" + span(guide, 0, 0));
+        assertThat(packed.documentNames()).containsExactly("guide.pdf");
+    }
+
+    @Test
+    void passagesAreTruncatedAtTheBudget() {
+        // 4 chars per token: 500 tokens less the 100 already used leaves room for 1600 characters
+        ContextPacker small = packer(500);
+        String savings = document("Savings", 20);
+        String debt = document("Debt", 20);
+
+        ContextPacker.PackedContext packed = small.pack(
+                List.of(chunk("guide.pdf", guide, 0), chunk("savings.pdf", savings, 0), chunk("debt.pdf", debt, 0)),
+                PROVIDER, 100);
+
+        assertThat(packed.estimatedTokens()).isLessThanOrEqualTo(400);
+        assertThat(packed.text()).startsWith("Source: guide.pdf\n" + span(guide, 0, 0));
+        assertThat(packed.text()).contains("Source: savings.pdf\n").endsWith(".");
+        assertThat(packed.text()).doesNotContain(span(savings, 0, 0)).doesNotContain("Debt");
+        assertThat(packed.documentNames()).containsExactly("guide.pdf", "savings.pdf");
+    }
+
+    @Test
+    void passagesThatDoNotFitAreDroppedOnceTheBudgetIsSpent() {
+        ContextPacker small = packer(300);
+
+        ContextPacker.PackedContext packed = small.pack(
+                List.of(chunk("guide.pdf", guide, 0), chunk("guide.pdf", guide, 4)),
+                PROVIDER, 0);
+
+        assertThat(packed.text()).isEqualTo("Source: guide.pdf\n" + span(guide, 0, 0));
+        assertThat(packed.estimatedTokens()).isLessThanOrEqualTo(300);
+    }
+
+    private static ContextPacker packer(int openAiTokenBudget) {
+        return new ContextPacker("openai", 0, 2048, 3.5, openAiTokenBudget, 4.0);
+    }
+
+    private static String document(String topic, int sentences) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < sentences; i++) {
+            text.append(topic).append(" sentence ").append(i).append(" explains one more rule of thumb. ");
+        }
+        return text.toString().strip();
+    }
+
+    private static DocumentEmbedding chunk(String documentName, String text, int index) {
+        return DocumentEmbedding.builder()
+                .documentName(documentName)
+                .content(span(text, index, index))
+                .metadata(Map.of("chunkIndex", index))
+                .build();
+    }
+
+    // The text covered by chunks first..last, as the packer should reassemble it
+    private static String span(String text, int first, int last) {
+        int start = first * (CHUNK_SIZE - CHUNK_OVERLAP);
+        int end = Math.min(text.length(), last * (CHUNK_SIZE - CHUNK_OVERLAP) + CHUNK_SIZE);
+        return text.substring(start, end).strip();
+    }
+}
@@ -0,0 +1,131 @@
+package com.niyiment.aifinancetracker.service.ai;
+
+import com.niyiment.aifinancetracker.entity.Transaction;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class FraudPreFilterTest {
+    // Mean 100 and standard deviation 20: 140 is 2 deviations above, 170 is 3.5
+    private static final SpendingBaseline BASELINE =
+            new SpendingBaseline(50, 100, 20, Set.of("grocer"), Set.of("lagos"));
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private FraudPreFilter preFilter;
+
+    @BeforeEach
+    void setUp() {
+        preFilter = new FraudPreFilter(meterRegistry);
+        // Same bands and thresholds as application.yaml, with a night window that wraps midnight
+        ReflectionTestUtils.setField(preFilter, "enabled", true);
+        ReflectionTestUtils.setField(preFilter, "lowBand", 0.15);
+        ReflectionTestUtils.setField(preFilter, "highBand", 0.7);
+        ReflectionTestUtils.setField(preFilter, "minSamples", 5L);
+        ReflectionTestUtils.setField(preFilter, "zScoreModerate", 2.0);
+        ReflectionTestUtils.setField(preFilter, "zScoreExtreme", 3.5);
+        ReflectionTestUtils.setField(preFilter, "nightStartHour", 22);
+        ReflectionTestUtils.setField(preFilter, "nightEndHour", 5);
+    }
+
+    @Test
+    void usualTransactionIsDecidedLow() {
+        FraudPreFilter.Verdict verdict = preFilter.evaluate(transaction("110", "Grocer", "Lagos", 14), BASELINE);
+
+        assertThat(verdict.decision()).isEqualTo(FraudPreFilter.Decision.LOW);
+        assertThat(verdict.score()).isEqualTo(0.0);
+        assertThat(verdict.reason()).isEqualTo("Consistent with the user's usual amount, merchants and locations");
+    }
+
+    @Test
+    void extremeAmountAtANewMerchantAndLocationIsDecidedHigh() {
+        FraudPreFilter.Verdict verdict = preFilter.evaluate(transaction("170", "Jeweller", "Paris", 14), BASELINE);
+
+        assertThat(verdict.decision()).isEqualTo(FraudPreFilter.Decision.HIGH);
+        assertThat(verdict.score()).isCloseTo(0.85, within(1e-9));
+        assertThat(verdict.reason()).contains("3.5 standard deviations", "merchant is new", "location is new");
+    }
+
+    @Test
+    void scoreBetweenTheBandsIsLeftToTheLlm() {
+        FraudPreFilter.Verdict verdict = preFilter.evaluate(transaction("140", "Jeweller", "Lagos", 14), BASELINE);
+
+        assertThat(verdict.decision()).isEqualTo(FraudPreFilter.Decision.UNCERTAIN);
+        assertThat(verdict.score()).isCloseTo(0.4, within(1e-9));
+    }
+
+    @Test
+    void shortHistoryIsLeftToTheLlmWithoutScoring() {
+        SpendingBaseline newUser = new SpendingBaseline(4, 100, 20, Set.of(), Set.of());
+
+        FraudPreFilter.Verdict verdict = preFilter.evaluate(transaction("5000", "Jeweller", "Paris", 3), newUser);
+
+        assertThat(verdict.decision()).isEqualTo(FraudPreFilter.Decision.UNCERTAIN);
+        assertThat(verdict.score()).isEqualTo(0.0);
+    }
+
+    @Test
+    void jumpFromAConstantAmountScoresWithoutADeviation() {
+        SpendingBaseline constant = new SpendingBaseline(10, 50, 0, Set.of("gym"), Set.of("lagos"));
+
+        assertThat(preFilter.evaluate(transaction("100", "Gym", "Lagos", 14), constant).score()).isEqualTo(0.0);
+        assertThat(preFilter.evaluate(transaction("101", "Gym", "Lagos", 14), constant).score())
+                .isCloseTo(0.25, within(1e-9));
+    }
+
+    @Test
+    void nightWindowWrapsMidnight() {
+        assertThat(nightScore(21)).isEqualTo(0.0);
+        assertThat(nightScore(22)).isCloseTo(0.1, within(1e-9));
+        assertThat(nightScore(23)).isCloseTo(0.1, within(1e-9));
+        assertThat(nightScore(0)).isCloseTo(0.1, within(1e-9));
+        assertThat(nightScore(4)).isCloseTo(0.1, within(1e-9));
+        assertThat(nightScore(5)).isEqualTo(0.0);
+    }
+
+    @Test
+    void nightWindowWithinOneDay() {
+        ReflectionTestUtils.setField(preFilter, "nightStartHour", 0);
+        ReflectionTestUtils.setField(preFilter, "nightEndHour", 5);
+
+        assertThat(nightScore(23)).isEqualTo(0.0);
+        assertThat(nightScore(0)).isCloseTo(0.1, within(1e-9));
+        assertThat(nightScore(4)).isCloseTo(0.1, within(1e-9));
+        assertThat(nightScore(5)).isEqualTo(0.0);
+    }
+
+    @Test
+    void avoidanceRatioCountsDecisionsMadeWithoutTheLlm() {
+        preFilter.evaluate(transaction("110", "Grocer", "Lagos", 14), BASELINE);
+        preFilter.evaluate(transaction("170", "Jeweller", "Paris", 14), BASELINE);
+        preFilter.evaluate(transaction("140", "Jeweller", "Lagos", 14), BASELINE);
+
+        assertThat(meterRegistry.get("fraud.prefilter.llm.avoidance.ratio").gauge().value())
+                .isCloseTo(2.0 / 3, within(1e-9));
+        assertThat(meterRegistry.get("fraud.prefilter.decisions").tag("decision", "UNCERTAIN").counter().count())
+                .isEqualTo(1.0);
+    }
+
+    private double nightScore(int hour) {
+        return preFilter.evaluate(transaction("100", "Grocer", "Lagos", hour), BASELINE).score();
+    }
+
+    private static Transaction transaction(String amount, String merchant, String location, int hour) {
+        return Transaction.builder()
+                .id(1L)
+                .userId("user-1")
+                .amount(new BigDecimal(amount))
+                .merchant(merchant)
+                .location(location)
+                .transactionType(Transaction.TransactionType.EXPENSE)
+                .transactionDate(LocalDateTime.of(2024, 1, 15, hour, 30))
+                .build();
+    }
+}
@@ -0,0 +1,162 @@
+package com.niyiment.aifinancetracker.service.ai;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.niyiment.aifinancetracker.exception.LlmProcessingException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class FraudPromptBatcherTest {
+    private static final String SINGLE_VERDICT = "LOW|Checked on its own";
+
+    private final LlmService llmService = mock(LlmService.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private FraudPromptBatcher batcher;
+
+    @BeforeEach
+    void setUp() {
+        when(llmService.analyzeFraudPatternAsync(anyString()))
+                .thenReturn(CompletableFuture.completedFuture(SINGLE_VERDICT));
+        // Three to a batch; the wait is long enough that only a full batch dispatches during a test
+        batcher = batcher(true, 3, 60_000);
+    }
+
+    @Test
+    void batchResponseIsSplitByTransactionId() throws Exception {
+        batchRespondsWith("""
+                Here are the verdicts:
+                [{"id": 2, "risk": "HIGH", "explanation": "New location"},
+                 {"id": 1, "risk": "low", "explanation": "Usual grocer"},
+                 {"id": 3, "risk": "MEDIUM", "explanation": "  Odd hour  "}]
+                Let me know if you need more.""");
+
+        List<CompletableFuture<String>> results = analyzeThree();
+
+        assertThat(results.get(0).get()).isEqualTo("LOW|Usual grocer");
+        assertThat(results.get(1).get()).isEqualTo("HIGH|New location");
+        assertThat(results.get(2).get()).isEqualTo("MEDIUM|Odd hour");
+        verify(llmService, never()).analyzeFraudPatternAsync(anyString());
+        assertThat(meterRegistry.get("fraud.llm.batch.items").counter().count()).isEqualTo(3.0);
+    }
+
+    @Test
+    void malformedAndMissingVerdictsFallBackToSinglePrompts() throws Exception {
+        batchRespondsWith("""
+                [{"id": 1, "risk": "LOW", "explanation": "Usual grocer"},
+                 {"id": 2, "risk": "SEVERE", "explanation": "Not a known level"},
+                 {"id": "x", "risk": "HIGH", "explanation": "No usable id"}]""");
+
+        List<CompletableFuture<String>> results = analyzeThree();
+
+        assertThat(results.get(0).get()).isEqualTo("LOW|Usual grocer");
+        assertThat(results.get(1).get()).isEqualTo(SINGLE_VERDICT);
+        assertThat(results.get(2).get()).isEqualTo(SINGLE_VERDICT);
+        verify(llmService, never()).analyzeFraudPatternAsync("details 1");
+        verify(llmService).analyzeFraudPatternAsync("details 2");
+        verify(llmService).analyzeFraudPatternAsync("details 3");
+        assertThat(meterRegistry.get("fraud.llm.batch.fallbacks").counter().count()).isEqualTo(2.0);
+    }
+
+    @Test
+    void verdictWithoutExplanationFallsBack() throws Exception {
+        batchRespondsWith("""
+                [{"id": 1, "risk": "LOW", "explanation": "Usual grocer"},
+                 {"id": 2, "risk": "HIGH", "explanation": " "},
+                 {"id": 3, "risk": "HIGH"}]""");
+
+        List<CompletableFuture<String>> results = analyzeThree();
+
+        assertThat(results.get(1).get()).isEqualTo(SINGLE_VERDICT);
+        assertThat(results.get(2).get()).isEqualTo(SINGLE_VERDICT);
+    }
+
+    @Test
+    void responseWithoutAJsonArrayFallsBackForEveryTransaction() throws Exception {
+        batchRespondsWith("I cannot assess these transactions.");
+
+        List<CompletableFuture<String>> results = analyzeThree();
+
+        for (CompletableFuture<String> result : results) {
+            assertThat(result.get()).isEqualTo(SINGLE_VERDICT);
+        }
+    }
+
+    @Test
+    void unparsableArrayFallsBackForEveryTransaction() throws Exception {
+        batchRespondsWith("[{\"id\": 1, \"risk\": \"LOW\", ]");
+
+        List<CompletableFuture<String>> results = analyzeThree();
+
+        for (CompletableFuture<String> result : results) {
+            assertThat(result.get()).isEqualTo(SINGLE_VERDICT);
+        }
+    }
+
+    @Test
+    void failedBatchCallFailsEveryCallerWithoutRetryingSingly() {
+        when(llmService.analyzeFraudPatternsBatchAsync(anyMap()))
+                .thenReturn(CompletableFuture.failedFuture(new LlmProcessingException("Bulkhead is full")));
+
+        List<CompletableFuture<String>> results = analyzeThree();
+
+        for (CompletableFuture<String> result : results) {
+            assertThatThrownBy(result::get)
+                    .isInstanceOf(ExecutionException.class)
+                    .hasCauseInstanceOf(LlmProcessingException.class);
+        }
+        verify(llmService, never()).analyzeFraudPatternAsync(anyString());
+    }
+
+    @Test
+    void loneTransactionIsSentAsASinglePromptAfterTheWait() throws Exception {
+        FraudPromptBatcher shortWait = batcher(true, 3, 10);
+
+        CompletableFuture<String> result = shortWait.analyze(1, "details 1");
+
+        assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo(SINGLE_VERDICT);
+        verify(llmService, never()).analyzeFraudPatternsBatchAsync(anyMap());
+    }
+
+    @Test
+    void disabledBatchingSendsEachTransactionSingly() throws Exception {
+        FraudPromptBatcher disabled = batcher(false, 3, 60_000);
+
+        assertThat(disabled.analyze(1, "details 1").get()).isEqualTo(SINGLE_VERDICT);
+        verify(llmService).analyzeFraudPatternAsync("details 1");
+        verify(llmService, never()).analyzeFraudPatternsBatchAsync(anyMap());
+    }
+
+    private FraudPromptBatcher batcher(boolean enabled, int maxSize, long maxWaitMs) {
+        return new FraudPromptBatcher(llmService, new ObjectMapper(), meterRegistry, enabled, maxSize, maxWaitMs);
+    }
+
+    private void batchRespondsWith(String response) {
+        when(llmService.analyzeFraudPatternsBatchAsync(anyMap()))
+                .thenReturn(CompletableFuture.completedFuture(response));
+    }
+
+    // The third call fills the batch, which dispatches on the calling thread
+    private List<CompletableFuture<String>> analyzeThree() {
+        List<CompletableFuture<String>> results = List.of(
+                batcher.analyze(1, "details 1"),
+                batcher.analyze(2, "details 2"),
+                batcher.analyze(3, "details 3"));
+        verify(llmService).analyzeFraudPatternsBatchAsync(Map.of(1L, "details 1", 2L, "details 2", 3L, "details 3"));
+        return results;
+    }
+}
@@ -0,0 +1,165 @@
+package com.niyiment.aifinancetracker.service.ai;
+
+import com.niyiment.aifinancetracker.dto.request.AdvisorQueryRequest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static com.niyiment.aifinancetracker.dto.request.AdvisorQueryRequest.LlmProvider.OLLAMA;
+import static com.niyiment.aifinancetracker.dto.request.AdvisorQueryRequest.LlmProvider.OPENAI;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class LlmRouterTest {
+    private static final LlmExecutor.Workload ADVISOR = LlmExecutor.Workload.ADVISOR;
+
+    private final LlmExecutor llmExecutor = mock(LlmExecutor.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void staticModeAlwaysUsesTheDefaultProvider() {
+        LlmRouter router = router("static", 100);
+        recordMillis(router, OPENAI, 10);
+
+        assertThat(router.rank(ADVISOR)).containsExactly(OLLAMA);
+        assertThat(router.isHedgeEnabled()).isFalse();
+    }
+
+    @Test
+    void fasterProviderIsRankedFirst() {
+        LlmRouter router = router("latency", 100);
+        recordMillis(router, OLLAMA, 200);
+        recordMillis(router, OPENAI, 50);
+
+        assertThat(router.rank(ADVISOR)).containsExactly(OPENAI, OLLAMA);
+        assertThat(router.isHedgeEnabled()).isTrue();
+    }
+
+    @Test
+    void queueDepthScalesTheExpectedLatency() {
+        LlmRouter router = router("latency", 100);
+        recordMillis(router, OLLAMA, 200);
+        recordMillis(router, OPENAI, 50);
+        when(llmExecutor.queueDepthRatio(ADVISOR, OPENAI)).thenReturn(4.0);
+
+        assertThat(router.rank(ADVISOR)).containsExactly(OLLAMA, OPENAI);
+    }
+
+    @Test
+    void providerOverTheErrorRateIsRankedLastUntilItRecovers() {
+        LlmRouter router = router("latency", 100);
+        recordMillis(router, OLLAMA, 200);
+        recordMillis(router, OPENAI, 50);
+        for (int i = 0; i < 10; i++) {
+            router.recordFailure(OPENAI);
+        }
+
+        // 1 - 0.9^10 after ten failures in a row
+        assertThat(errorRate(OPENAI)).isCloseTo(1 - Math.pow(0.9, 10), within(1e-9));
+        assertThat(router.isHealthy(OPENAI)).isFalse();
+        assertThat(router.rank(ADVISOR)).containsExactly(OLLAMA, OPENAI);
+
+        recordMillis(router, OPENAI, 50);
+        recordMillis(router, OPENAI, 50);
+        recordMillis(router, OPENAI, 50);
+
+        assertThat(router.isHealthy(OPENAI)).isTrue();
+        assertThat(router.rank(ADVISOR)).containsExactly(OPENAI, OLLAMA);
+    }
+
+    @Test
+    void windowKeepsOnlyTheMostRecentSamples() {
+        LlmRouter router = router("latency", 4);
+        for (int i = 0; i < 4; i++) {
+            recordMillis(router, OPENAI, 1_000);
+        }
+        for (int i = 0; i < 4; i++) {
+            recordMillis(router, OPENAI, 10);
+        }
+
+        assertThat(p95(OPENAI)).isEqualTo(10.0);
+    }
+
+    @Test
+    void failuresDoNotAddLatencySamples() {
+        LlmRouter router = router("latency", 100);
+        recordMillis(router, OPENAI, 100);
+        router.recordFailure(OPENAI);
+
+        assertThat(p95(OPENAI)).isEqualTo(100.0);
+    }
+
+    @Test
+    void hedgeDelayIsTheRecentP95WithinTheConfiguredBounds() {
+        LlmRouter router = router("latency", 20);
+
+        // No samples yet, so the minimum
+        assertThat(router.hedgeDelay(OPENAI)).isEqualTo(Duration.ofMillis(500));
+
+        for (int i = 1; i <= 20; i++) {
+            recordMillis(router, OPENAI, i * 100);
+        }
+        // The 19th of 20 sorted samples
+        assertThat(router.hedgeDelay(OPENAI)).isEqualTo(Duration.ofMillis(1_900));
+
+        for (int i = 0; i < 20; i++) {
+            recordMillis(router, OPENAI, 30_000);
+        }
+        assertThat(router.hedgeDelay(OPENAI)).isEqualTo(Duration.ofSeconds(10));
+    }
+
+    @Test
+    void censoredLatencyBelowTheMedianIsIgnored() {
+        LlmRouter router = router("latency", 100);
+        recordMillis(router, OLLAMA, 80);
+        recordMillis(router, OPENAI, 100);
+
+        router.recordCensored(OPENAI, Duration.ofMillis(50).toNanos());
+
+        // Kept as a sample, 50 ms would have made OPENAI look faster than OLLAMA
+        assertThat(router.rank(ADVISOR)).containsExactly(OLLAMA, OPENAI);
+        assertThat(p95(OPENAI)).isEqualTo(100.0);
+    }
+
+    @Test
+    void censoredLatencyAboveTheMedianSlowsTheProviderWithoutCountingAsAnError() {
+        LlmRouter router = router("latency", 100);
+        recordMillis(router, OPENAI, 100);
+
+        router.recordCensored(OPENAI, Duration.ofMillis(400).toNanos());
+        router.recordCensored(OPENAI, Duration.ofMillis(400).toNanos());
+
+        assertThat(p95(OPENAI)).isEqualTo(400.0);
+        assertThat(errorRate(OPENAI)).isEqualTo(0.0);
+    }
+
+    @Test
+    void censoredLatencyIsKeptWhenThereAreNoSamples() {
+        LlmRouter router = router("latency", 100);
+
+        router.recordCensored(OPENAI, Duration.ofMillis(300).toNanos());
+
+        assertThat(p95(OPENAI)).isEqualTo(300.0);
+    }
+
+    // No exploration, so the ranking is deterministic; hedge bounds as in application.yaml
+    private LlmRouter router(String mode, int windowSize) {
+        return new LlmRouter(llmExecutor, meterRegistry, "ollama", mode, windowSize, 0.5, 0.0,
+                true, Duration.ofMillis(500), Duration.ofSeconds(10));
+    }
+
+    private static void recordMillis(LlmRouter router, AdvisorQueryRequest.LlmProvider provider, long millis) {
+        router.recordSuccess(provider, Duration.ofMillis(millis).toNanos());
+    }
+
+    private double p95(AdvisorQueryRequest.LlmProvider provider) {
+        return meterRegistry.get("llm.routing.latency.p95").tag("provider", provider.name()).gauge().value();
+    }
+
+    private double errorRate(AdvisorQueryRequest.LlmProvider provider) {
+        return meterRegistry.get("llm.routing.error.rate").tag("provider", provider.name()).gauge().value();
+    }
+}
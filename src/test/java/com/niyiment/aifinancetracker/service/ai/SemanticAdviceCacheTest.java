@@ -0,0 +1,122 @@
+package com.niyiment.aifinancetracker.service.ai;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class SemanticAdviceCacheTest {
+    private static final String SCOPE = "openai|no-docs|i24|e23|v0|s21";
+    private static final float[] QUESTION = {1f, 0f, 0f};
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    // Same distance threshold and buckets as application.yaml
+    private final SemanticAdviceCache cache = cache(true);
+
+    @Test
+    void nearIdenticalQuestionInTheSameScopeIsServed() {
+        cache.put(SCOPE, QUESTION, "Build an emergency fund first.", List.of("budgeting.pdf"));
+
+        // Cosine distance of about 0.005, and the length of the query vector does not matter
+        assertThat(cache.lookup(SCOPE, new float[]{3f, 0.3f, 0f}))
+                .map(SemanticAdviceCache.CachedAdvice::advice)
+                .contains("Build an emergency fund first.");
+    }
+
+    @Test
+    void questionBeyondTheDistanceThresholdMisses() {
+        cache.put(SCOPE, QUESTION, "Build an emergency fund first.", List.of());
+
+        // Cosine distance of about 0.11
+        assertThat(cache.lookup(SCOPE, new float[]{1f, 0.5f, 0f})).isEmpty();
+    }
+
+    @Test
+    void sameQuestionInAnotherScopeMisses() {
+        cache.put(SCOPE, QUESTION, "Build an emergency fund first.", List.of());
+
+        assertThat(cache.lookup("ollama|no-docs|i24|e23|v0|s21", QUESTION)).isEmpty();
+    }
+
+    @Test
+    void closestEntryWithinTheThresholdWins() {
+        cache.put(SCOPE, QUESTION, "first", List.of());
+        cache.put(SCOPE, new float[]{1f, 0.2f, 0f}, "second", List.of());
+
+        assertThat(cache.lookup(SCOPE, new float[]{1f, 0.15f, 0f}))
+                .map(SemanticAdviceCache.CachedAdvice::advice)
+                .contains("second");
+    }
+
+    @Test
+    void blankAdviceIsNotCached() {
+        cache.put(SCOPE, QUESTION, " ", List.of());
+
+        assertThat(cache.lookup(SCOPE, QUESTION)).isEmpty();
+    }
+
+    @Test
+    void disabledCacheNeitherStoresNorServes() {
+        SemanticAdviceCache disabled = cache(false);
+        disabled.put(SCOPE, QUESTION, "Build an emergency fund first.", List.of());
+
+        assertThat(disabled.isEnabled()).isFalse();
+        assertThat(disabled.lookup(SCOPE, QUESTION)).isEmpty();
+    }
+
+    @Test
+    void similarSummariesShareAScope() {
+        String scope = cache.scope("openai", false, null, summary("5000", "3000", "0", "2000"));
+
+        assertThat(scope).isEqualTo("openai|no-docs|i24|e23|v0|s21");
+        assertThat(cache.scope("openai", false, List.of(), summary("5100", "3050", "0", "2040"))).isEqualTo(scope);
+    }
+
+    @Test
+    void differentFinancialSituationsGetDifferentScopes() {
+        String scope = cache.scope("openai", false, null, summary("5000", "3000", "0", "2000"));
+
+        assertThat(cache.scope("openai", false, null, summary("8000", "3000", "0", "5000"))).isNotEqualTo(scope);
+        // Overspending keeps the sign, so it never shares a bucket with the same amount saved
+        assertThat(cache.scope("openai", false, null, summary("5000", "7000", "0", "-2000")))
+                .isEqualTo("openai|no-docs|i24|e25|v0|s-21");
+    }
+
+    @Test
+    void documentContextAndSourcesArePartOfTheScope() {
+        Map<String, Object> summary = summary("5000", "3000", "0", "2000");
+
+        String withSources = cache.scope("openai", true, List.of("taxes.pdf", "budgeting.pdf"), summary);
+
+        assertThat(withSources).startsWith("openai|docs|src[budgeting.pdf, taxes.pdf]|");
+        assertThat(cache.scope("openai", true, List.of("budgeting.pdf", "taxes.pdf"), summary)).isEqualTo(withSources);
+        assertThat(cache.scope("openai", true, null, summary)).startsWith("openai|docs|i");
+    }
+
+    @Test
+    void hitRatioCountsLookups() {
+        cache.put(SCOPE, QUESTION, "Build an emergency fund first.", List.of());
+        cache.lookup(SCOPE, QUESTION);
+        cache.lookup(SCOPE, new float[]{0f, 1f, 0f});
+
+        assertThat(meterRegistry.get("advisor.semantic.cache.hit.ratio").gauge().value()).isCloseTo(0.5, within(1e-9));
+    }
+
+    private SemanticAdviceCache cache(boolean enabled) {
+        return new SemanticAdviceCache(meterRegistry, enabled, 0.05, 100, Duration.ofHours(6), 2);
+    }
+
+    private static Map<String, Object> summary(String income, String expenses, String investment, String savings) {
+        return Map.of(
+                "totalIncome", new BigDecimal(income),
+                "totalExpenses", new BigDecimal(expenses),
+                "totalInvestment", new BigDecimal(investment),
+                "netSavings", new BigDecimal(savings));
+    }
+}
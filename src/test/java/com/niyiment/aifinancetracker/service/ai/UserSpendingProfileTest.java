@@ -0,0 +1,105 @@
+package com.niyiment.aifinancetracker.service.ai;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class UserSpendingProfileTest {
+    private static final LocalDateTime NOON = LocalDateTime.of(2024, 1, 15, 12, 0);
+
+    @Test
+    void earlySamplesGiveTheExactMeanAndVariance() {
+        UserSpendingProfile profile = new UserSpendingProfile(10, 10, 0.01);
+        apply(profile, 1, 10);
+        apply(profile, 2, 20);
+        apply(profile, 3, 30);
+        apply(profile, 4, 40);
+
+        SpendingBaseline baseline = profile.toBaseline();
+
+        assertThat(baseline.sampleCount()).isEqualTo(4);
+        assertThat(baseline.meanAmount()).isCloseTo(25, within(1e-9));
+        // Population variance of 10, 20, 30 and 40 is 125
+        assertThat(baseline.stdDevAmount()).isCloseTo(Math.sqrt(125), within(1e-9));
+    }
+
+    @Test
+    void minimumAlphaWeightsRecentSamplesOnceHistoryGrows() {
+        UserSpendingProfile profile = new UserSpendingProfile(10, 10, 0.5);
+        apply(profile, 1, 100);
+        apply(profile, 2, 0);
+        apply(profile, 3, 0);
+
+        // 1/3 would give the exact mean of 33.3; alpha 0.5 halves the old mean of 50 instead
+        assertThat(profile.toBaseline().meanAmount()).isCloseTo(25, within(1e-9));
+    }
+
+    @Test
+    void transactionAlreadyInTheRingIsNotCountedTwice() {
+        UserSpendingProfile profile = new UserSpendingProfile(10, 10, 0.01);
+
+        assertThat(apply(profile, 1, 40)).isTrue();
+        assertThat(apply(profile, 1, 40)).isFalse();
+
+        assertThat(profile.toBaseline().sampleCount()).isEqualTo(1);
+        assertThat(profile.categoryTotal("Food")).isEqualTo(40.0);
+        assertThat(profile.recentTransactions(10)).hasSize(1);
+    }
+
+    @Test
+    void ringKeepsTheNewestTransactionsAndForgetsEvictedIds() {
+        UserSpendingProfile profile = new UserSpendingProfile(3, 10, 0.01);
+        for (long id = 1; id <= 4; id++) {
+            apply(profile, id, id * 10);
+        }
+
+        assertThat(profile.contains(1)).isFalse();
+        assertThat(profile.contains(4)).isTrue();
+        assertThat(profile.recentTransactions(10))
+                .extracting(UserSpendingProfile.RecentTransaction::id)
+                .containsExactly(4L, 3L, 2L);
+        assertThat(profile.recentTransactions(2))
+                .extracting(UserSpendingProfile.RecentTransaction::id)
+                .containsExactly(4L, 3L);
+        assertThat(profile.recentTransactions(1).get(0).transactionDate()).isEqualTo(NOON);
+
+        // Once evicted, an id is no longer recognised as a duplicate
+        assertThat(apply(profile, 1, 10)).isTrue();
+        assertThat(profile.toBaseline().sampleCount()).isEqualTo(5);
+    }
+
+    @Test
+    void knownMerchantsAndLocationsAreBoundedAndCaseInsensitive() {
+        UserSpendingProfile profile = new UserSpendingProfile(10, 2, 0.01);
+        profile.apply(1, 10, "Food", "Grocer", "Lagos", NOON);
+        profile.apply(2, 10, "Food", "Bakery", null, NOON);
+        profile.apply(3, 10, "Food", "Cafe", "Abuja", NOON);
+
+        SpendingBaseline baseline = profile.toBaseline();
+
+        assertThat(baseline.merchants()).containsExactlyInAnyOrder("bakery", "cafe");
+        assertThat(baseline.locations()).containsExactlyInAnyOrder("lagos", "abuja");
+        assertThat(baseline.isKnownMerchant("CAFE")).isTrue();
+        assertThat(baseline.isKnownMerchant("Grocer")).isFalse();
+    }
+
+    @Test
+    void categoryTotalsGrowPastTheInitialCapacity() {
+        UserSpendingProfile profile = new UserSpendingProfile(20, 10, 0.01);
+        for (int i = 0; i < 12; i++) {
+            profile.apply(i, 5, "Category " + i, null, null, NOON);
+        }
+        profile.apply(12, 7, "Category 0", null, null, NOON);
+
+        assertThat(profile.categoryTotal("Category 0")).isEqualTo(12.0);
+        assertThat(profile.categoryTotal("Category 11")).isEqualTo(5.0);
+        assertThat(profile.categoryTotal("Unknown")).isEqualTo(0.0);
+    }
+
+    private static boolean apply(UserSpendingProfile profile, long id, double amount) {
+        return profile.apply(id, amount, "Food", "Grocer", "Lagos", NOON);
+    }
+}
@@ -0,0 +1,93 @@
+package com.niyiment.aifinancetracker.service.command;
+
+import com.niyiment.aifinancetracker.entity.Transaction;
+import com.niyiment.aifinancetracker.repository.RollupDelta;
+import com.niyiment.aifinancetracker.repository.TransactionDailyRollupRepository;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+class TransactionRollupServiceTest {
+    private static final LocalDateTime MORNING = LocalDateTime.of(2024, 1, 15, 9, 0);
+    private static final LocalDateTime NEXT_MORNING = MORNING.plusDays(1);
+
+    private final TransactionDailyRollupRepository rollupRepository = mock(TransactionDailyRollupRepository.class);
+    private final TransactionRollupService rollupService = new TransactionRollupService(rollupRepository);
+
+    @Test
+    void bulkInsertIsMergedIntoOneSortedDeltaPerRow() {
+        rollupService.recordCreated(List.of(
+                transaction("Rent", "900.00", MORNING),
+                transaction("Food", "12.50", NEXT_MORNING),
+                transaction("Food", "7.50", MORNING),
+                transaction("Food", "2.50", MORNING)));
+
+        verify(rollupRepository).applyDeltas(List.of(
+                delta(MORNING, "Food", 2, "10.00"),
+                delta(MORNING, "Rent", 1, "900.00"),
+                delta(NEXT_MORNING, "Food", 1, "12.50")));
+    }
+
+    @Test
+    void deletionSubtractsFromItsRow() {
+        rollupService.recordDeleted(transaction("Food", "12.50", MORNING));
+
+        verify(rollupRepository).applyDeltas(List.of(delta(MORNING, "Food", -1, "-12.50")));
+    }
+
+    @Test
+    void updateThatOnlyTouchesTheDescriptionChangesNothing() {
+        Transaction transaction = transaction("Food", "12.50", MORNING);
+        RollupDelta before = RollupDelta.removed(transaction);
+        transaction.setDescription("Lunch");
+
+        rollupService.recordUpdated(before, transaction);
+
+        verify(rollupRepository).applyDeltas(List.of());
+    }
+
+    @Test
+    void updateWithinTheSameRowOnlyMovesTheAmount() {
+        Transaction transaction = transaction("Food", "12.50", MORNING);
+        RollupDelta before = RollupDelta.removed(transaction);
+        transaction.setAmount(new BigDecimal("15.00"));
+
+        rollupService.recordUpdated(before, transaction);
+
+        verify(rollupRepository).applyDeltas(List.of(delta(MORNING, "Food", 0, "2.50")));
+    }
+
+    @Test
+    void updateToAnotherDayAndCategoryMovesTheTransactionBetweenRows() {
+        Transaction transaction = transaction("Rent", "900.00", NEXT_MORNING);
+        RollupDelta before = RollupDelta.removed(transaction);
+        transaction.setCategory("Food");
+        transaction.setTransactionDate(MORNING);
+
+        rollupService.recordUpdated(before, transaction);
+
+        verify(rollupRepository).applyDeltas(List.of(
+                delta(MORNING, "Food", 1, "900.00"),
+                delta(NEXT_MORNING, "Rent", -1, "-900.00")));
+    }
+
+    private static Transaction transaction(String category, String amount, LocalDateTime date) {
+        return Transaction.builder()
+                .userId("user-1")
+                .category(category)
+                .amount(new BigDecimal(amount))
+                .transactionType(Transaction.TransactionType.EXPENSE)
+                .transactionDate(date)
+                .build();
+    }
+
+    private static RollupDelta delta(LocalDateTime date, String category, long count, String amount) {
+        return new RollupDelta("user-1", date.toLocalDate(), Transaction.TransactionType.EXPENSE, category,
+                count, new BigDecimal(amount));
+    }
+}
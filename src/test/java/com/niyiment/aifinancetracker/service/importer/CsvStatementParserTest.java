@@ -0,0 +1,100 @@
+package com.niyiment.aifinancetracker.service.importer;
+
+import com.niyiment.aifinancetracker.dto.request.TransactionRequest;
+import com.niyiment.aifinancetracker.entity.Transaction;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CsvStatementParserTest {
+    private static final String HEADER = "date,amount,category,description,merchant\n";
+
+    private final CsvStatementParser parser = new CsvStatementParser();
+
+    @Test
+    void quotedFieldsKeepCommasAndEscapedQuotes() throws IOException {
+        RecordingRowHandler handler = parse(HEADER
+                + "2024-01-15,-12.50,Food,\"Lunch, with \"\"friends\"\"\",\"Cafe, Main St\"\n");
+
+        assertThat(handler.rejects).isEmpty();
+        assertThat(handler.rows).hasSize(1);
+        TransactionRequest request = handler.rows.get(0).request();
+        assertThat(request.description()).isEqualTo("Lunch, with \"friends\"");
+        assertThat(request.merchant()).isEqualTo("Cafe, Main St");
+        assertThat(request.amount()).isEqualByComparingTo(new BigDecimal("12.50"));
+        assertThat(request.transactionType()).isEqualTo(Transaction.TransactionType.EXPENSE);
+        assertThat(request.transactionDate()).isEqualTo(LocalDateTime.of(2024, 1, 15, 0, 0));
+    }
+
+    @Test
+    void quotedFieldMaySpanLines() throws IOException {
+        RecordingRowHandler handler = parse(HEADER
+                + "2024-01-15,2500,Salary,\"January pay\nincludes bonus\",Acme\n"
+                + "2024-01-16,-3.20,Transport,Bus,\n");
+
+        assertThat(handler.rows).hasSize(2);
+        assertThat(handler.rows.get(0).lineNumber()).isEqualTo(2);
+        assertThat(handler.rows.get(0).request().description()).isEqualTo("January pay\nincludes bonus");
+        assertThat(handler.rows.get(1).lineNumber()).isEqualTo(4);
+        assertThat(handler.rows.get(1).request().merchant()).isNull();
+    }
+
+    @Test
+    void unterminatedQuoteIsRejectedAtTheRecordCap() throws IOException {
+        // The opening line is 31 characters and each joined line adds 100, so 164 lines cross 16 KB
+        StringBuilder csv = new StringBuilder(HEADER).append("2024-01-15,1,Food,\"never closed\n");
+        for (int i = 0; i < 164; i++) {
+            csv.append("x".repeat(99)).append('\n');
+        }
+        csv.append("2024-01-16,2,Food,After the runaway quote,\n");
+
+        RecordingRowHandler handler = parse(csv.toString());
+
+        assertThat(handler.rejects).hasSize(1);
+        assertThat(handler.rejects.get(0).lineNumber()).isEqualTo(2);
+        assertThat(handler.rejects.get(0).reason()).isEqualTo("Record exceeds maximum length");
+        assertThat(handler.rows).hasSize(1);
+        assertThat(handler.rows.get(0).lineNumber()).isEqualTo(167);
+        assertThat(handler.rows.get(0).request().description()).isEqualTo("After the runaway quote");
+    }
+
+    @Test
+    void unparsableRowIsRejectedAndParsingContinues() throws IOException {
+        RecordingRowHandler handler = parse(HEADER
+                + "not-a-date,10,Food,,\n"
+                + "2024-01-15,ten,Food,,\n"
+                + "2024-01-15 08:30:00,10,,,\n");
+
+        assertThat(handler.rejects).extracting(RecordingRowHandler.Reject::lineNumber).containsExactly(2L, 3L);
+        assertThat(handler.rows).hasSize(1);
+        assertThat(handler.rows.get(0).request().category()).isEqualTo("Uncategorized");
+        assertThat(handler.rows.get(0).request().transactionDate()).isEqualTo(LocalDateTime.of(2024, 1, 15, 8, 30));
+    }
+
+    @Test
+    void headerAliasesAndByteOrderMarkAreAccepted() throws IOException {
+        RecordingRowHandler handler = parse("\uFEFFTransaction_Date,Amount,Type\n2024-01-15,40,transfer\n");
+
+        assertThat(handler.rows).hasSize(1);
+        assertThat(handler.rows.get(0).request().transactionType()).isEqualTo(Transaction.TransactionType.TRANSFER);
+    }
+
+    @Test
+    void headerWithoutAmountIsRefused() {
+        assertThatThrownBy(() -> parse("date,category\n2024-01-15,Food\n"))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("'amount'");
+    }
+
+    private RecordingRowHandler parse(String csv) throws IOException {
+        RecordingRowHandler handler = new RecordingRowHandler();
+        parser.parse(new StringReader(csv), "user-1", handler);
+        return handler;
+    }
+}
@@ -0,0 +1,86 @@
+package com.niyiment.aifinancetracker.service.importer;
+
+import com.niyiment.aifinancetracker.dto.request.TransactionRequest;
+import com.niyiment.aifinancetracker.entity.Transaction;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OfxStatementParserTest {
+    private final OfxStatementParser parser = new OfxStatementParser();
+
+    @Test
+    void sgmlElementsWithoutClosingTagsAreRead() throws IOException {
+        RecordingRowHandler handler = parse("""
+                OFXHEADER:100
+                DATA:OFXSGML
+                <OFX>
+                <BANKMSGSRSV1><STMTTRNRS><STMTRS><BANKTRANLIST>
+                <STMTTRN>
+                <TRNTYPE>DEBIT
+                <DTPOSTED>20240115120000.000[-5:EST]
+                <TRNAMT>-42.10
+                <NAME>Corner Grocer
+                <MEMO>Weekly shop
+                </STMTTRN>
+                </BANKTRANLIST></STMTRS></STMTTRNRS></BANKMSGSRSV1>
+                </OFX>
+                """);
+
+        assertThat(handler.rejects).isEmpty();
+        assertThat(handler.rows).hasSize(1);
+        TransactionRequest request = handler.rows.get(0).request();
+        assertThat(request.amount()).isEqualByComparingTo(new BigDecimal("42.10"));
+        assertThat(request.transactionType()).isEqualTo(Transaction.TransactionType.EXPENSE);
+        assertThat(request.transactionDate()).isEqualTo(LocalDateTime.of(2024, 1, 15, 12, 0));
+        assertThat(request.merchant()).isEqualTo("Corner Grocer");
+        assertThat(request.description()).isEqualTo("Weekly shop");
+        assertThat(request.category()).isEqualTo("Uncategorized");
+    }
+
+    @Test
+    void closedLowercaseElementsAreReadTheSameWay() throws IOException {
+        RecordingRowHandler handler = parse("<stmttrn><trntype>XFER</trntype><dtposted>20240201</dtposted>"
+                + "<trnamt>250,00</trnamt><name>Savings</name></stmttrn>");
+
+        assertThat(handler.rows).hasSize(1);
+        TransactionRequest request = handler.rows.get(0).request();
+        assertThat(request.transactionType()).isEqualTo(Transaction.TransactionType.TRANSFER);
+        assertThat(request.amount()).isEqualByComparingTo(new BigDecimal("250.00"));
+        assertThat(request.transactionDate()).isEqualTo(LocalDateTime.of(2024, 2, 1, 0, 0));
+    }
+
+    @Test
+    void elementsOutsideTransactionsAreIgnored() throws IOException {
+        RecordingRowHandler handler = parse("<SONRS><NAME>Bank login<DTSERVER>20240101</SONRS>"
+                + "<STMTTRN><TRNTYPE>OTHER<DTPOSTED>20240115<TRNAMT>12.00</STMTTRN>");
+
+        assertThat(handler.rows).hasSize(1);
+        TransactionRequest request = handler.rows.get(0).request();
+        assertThat(request.merchant()).isNull();
+        // An unknown TRNTYPE falls back to the sign of the amount
+        assertThat(request.transactionType()).isEqualTo(Transaction.TransactionType.INCOME);
+    }
+
+    @Test
+    void transactionMissingRequiredFieldsIsRejectedByOrdinal() throws IOException {
+        RecordingRowHandler handler = parse("<STMTTRN><TRNTYPE>DEBIT<TRNAMT>-5.00</STMTTRN>"
+                + "<STMTTRN><DTPOSTED>2024<TRNAMT>-5.00</STMTTRN>"
+                + "<STMTTRN><TRNTYPE>POS<DTPOSTED>20240115<TRNAMT>-5.00</STMTTRN>");
+
+        assertThat(handler.rejects).extracting(RecordingRowHandler.Reject::lineNumber).containsExactly(1L, 2L);
+        assertThat(handler.rejects.get(0).reason()).isEqualTo("Transaction is missing TRNAMT or DTPOSTED");
+        assertThat(handler.rows).extracting(RecordingRowHandler.Row::lineNumber).containsExactly(3L);
+    }
+
+    private RecordingRowHandler parse(String ofx) throws IOException {
+        RecordingRowHandler handler = new RecordingRowHandler();
+        parser.parse(new StringReader(ofx), "user-1", handler);
+        return handler;
+    }
+}
@@ -0,0 +1,26 @@
+package com.niyiment.aifinancetracker.service.importer;
+
+import com.niyiment.aifinancetracker.dto.request.TransactionRequest;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Collects what a parser hands over, in order
+class RecordingRowHandler implements StatementRowHandler {
+    final List<Row> rows = new ArrayList<>();
+    final List<Reject> rejects = new ArrayList<>();
+
+    @Override
+    public void onRow(long lineNumber, String raw, TransactionRequest request) {
+        rows.add(new Row(lineNumber, request));
+    }
+
+    @Override
+    public void onReject(long lineNumber, String raw, String reason) {
+        rejects.add(new Reject(lineNumber, reason));
+    }
+
+    record Row(long lineNumber, TransactionRequest request) {}
+
+    record Reject(long lineNumber, String reason) {}
+}
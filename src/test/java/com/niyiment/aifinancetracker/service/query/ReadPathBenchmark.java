@@ -0,0 +1,105 @@
+package com.niyiment.aifinancetracker.service.query;
+
+import com.niyiment.aifinancetracker.benchmark.Percentiles;
+import com.niyiment.aifinancetracker.dto.response.TransactionResponse;
+import com.niyiment.aifinancetracker.mapper.TransactionMapper;
+import com.niyiment.aifinancetracker.repository.TransactionRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.management.ManagementFactory;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Supplier;
+
+// Compares the old entity-plus-mapper list read with the projection query on live data for one user.
+// Reports latency and bytes allocated per request on the calling thread, which is what GC pressure tracks.
+// Runs against the configured database: mvn test -Pbenchmark -Dtest=ReadPathBenchmark
+@Slf4j
+@SpringBootTest
+@ActiveProfiles("benchmark")
+class ReadPathBenchmark {
+    private static final int WARMUP_ITERATIONS = 50;
+
+    @Autowired
+    private TransactionRepository repository;
+
+    @Autowired
+    private TransactionMapper transactionMapper;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${finance.transactions.read-benchmark.user-id}")
+    private String userId;
+
+    @Value("${finance.transactions.read-benchmark.days}")
+    private int days;
+
+    @Value("${finance.transactions.read-benchmark.iterations}")
+    private int iterations;
+
+    private final com.sun.management.ThreadMXBean threadMXBean =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    private TransactionTemplate readOnlyTransaction;
+
+    @BeforeEach
+    void setUp() {
+        readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+    }
+
+    @Test
+    void compareEntityAndProjectionReads() {
+        LocalDateTime startDate = LocalDateTime.now().minusDays(days);
+
+        Result entities = measure(() -> repository.findRecentTransactionsByUser(userId, startDate)
+                .stream()
+                .map(transactionMapper::toResponse)
+                .toList());
+        Result projections = measure(() -> repository.findRecentResponsesByUser(userId, startDate));
+
+        log.info("Read path benchmark for user {} over {} days ({} rows, {} iterations)",
+                userId, days, projections.rows(), iterations);
+        log.info("  entities + mapper: p50={}us p99={}us allocated={} KB/request",
+                entities.p50Micros(), entities.p99Micros(), entities.allocatedKb());
+        log.info("  projection:        p50={}us p99={}us allocated={} KB/request",
+                projections.p50Micros(), projections.p99Micros(), projections.allocatedKb());
+    }
+
+    private Result measure(Supplier<List<TransactionResponse>> read) {
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            readOnlyTransaction.execute(status -> read.get());
+        }
+
+        long[] latencies = new long[iterations];
+        long allocated = 0;
+        int rows = 0;
+        for (int i = 0; i < iterations; i++) {
+            long bytesBefore = threadMXBean.getCurrentThreadAllocatedBytes();
+            long start = System.nanoTime();
+            List<TransactionResponse> result = readOnlyTransaction.execute(status -> read.get());
+            latencies[i] = System.nanoTime() - start;
+            allocated += threadMXBean.getCurrentThreadAllocatedBytes() - bytesBefore;
+            rows = result != null ? result.size() : 0;
+        }
+
+        Arrays.sort(latencies);
+        return new Result(
+                rows,
+                Percentiles.of(latencies, 0.50) / 1_000,
+                Percentiles.of(latencies, 0.99) / 1_000,
+                allocated / iterations / 1024
+        );
+    }
+
+    private record Result(int rows, long p50Micros, long p99Micros, long allocatedKb) {}
+}
@@ -0,0 +1,64 @@
+package com.niyiment.aifinancetracker.service.query;
+
+import com.niyiment.aifinancetracker.exception.InvalidTransactionException;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TransactionCursorTest {
+
+    @Test
+    void encodedCursorDecodesToTheSamePosition() {
+        TransactionCursor cursor = new TransactionCursor(LocalDateTime.of(2024, 1, 15, 9, 30), 42);
+
+        assertThat(TransactionCursor.decode(cursor.encode())).isEqualTo(cursor);
+    }
+
+    @Test
+    void fractionalSecondsSurviveTheRoundTrip() {
+        TransactionCursor cursor = new TransactionCursor(LocalDateTime.of(2024, 1, 15, 9, 30, 5, 123_456_000), 7);
+
+        assertThat(TransactionCursor.decode(cursor.encode())).isEqualTo(cursor);
+    }
+
+    @Test
+    void tokenIsUrlSafeWithoutPadding() {
+        for (long id = 0; id < 64; id++) {
+            String token = new TransactionCursor(LocalDateTime.of(2024, 12, 31, 23, 59, 59), id * 997).encode();
+
+            assertThat(token).matches("[A-Za-z0-9_-]+");
+        }
+    }
+
+    @Test
+    void tokenThatIsNotBase64IsRejected() {
+        assertInvalid("not a cursor!");
+    }
+
+    @Test
+    void tokenWithoutASeparatorIsRejected() {
+        assertInvalid(token("2024-01-15T09:30"));
+        assertInvalid("");
+    }
+
+    @Test
+    void tokenWithABadDateOrIdIsRejected() {
+        assertInvalid(token("yesterday|42"));
+        assertInvalid(token("2024-01-15T09:30|forty-two"));
+    }
+
+    private static void assertInvalid(String token) {
+        assertThatThrownBy(() -> TransactionCursor.decode(token))
+                .isInstanceOf(InvalidTransactionException.class)
+                .hasMessage("Invalid page cursor: " + token);
+    }
+
+    private static String token(String raw) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
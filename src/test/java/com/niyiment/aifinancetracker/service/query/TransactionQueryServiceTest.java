@@ -0,0 +1,126 @@
+package com.niyiment.aifinancetracker.service.query;
+
+import com.niyiment.aifinancetracker.entity.Transaction;
+import com.niyiment.aifinancetracker.repository.RollupTotal;
+import com.niyiment.aifinancetracker.repository.TransactionDailyRollupRepository;
+import com.niyiment.aifinancetracker.repository.TransactionRepository;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TransactionQueryServiceTest {
+    private static final String USER_ID = "user-1";
+
+    private final TransactionRepository repository = mock(TransactionRepository.class);
+    private final TransactionDailyRollupRepository rollupRepository = mock(TransactionDailyRollupRepository.class);
+    private final TransactionQueryService queryService = new TransactionQueryService(repository, rollupRepository);
+
+    @Test
+    void wholeDaysComeFromRollupsAndOnlyThePartialFirstDayFromTransactions() {
+        when(rollupRepository.isBackfillComplete()).thenReturn(true);
+        when(repository.sumByTypeAndCategory(eq(USER_ID), any(), any()))
+                .thenReturn(List.of(total(Transaction.TransactionType.EXPENSE, "Food", 1, "10.00")));
+        when(rollupRepository.sumByTypeAndCategory(eq(USER_ID), any(), any()))
+                .thenReturn(List.of(
+                        total(Transaction.TransactionType.EXPENSE, "Food", 4, "40.00"),
+                        total(Transaction.TransactionType.INCOME, "Salary", 1, "1000.00")));
+
+        LocalDateTime before = LocalDateTime.now();
+        Map<String, Object> summary = queryService.getUserFinancialSummary(USER_ID, 30);
+        LocalDateTime after = LocalDateTime.now();
+
+        ArgumentCaptor<LocalDateTime> rawStart = ArgumentCaptor.forClass(LocalDateTime.class);
+        ArgumentCaptor<LocalDateTime> rawEnd = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(repository).sumByTypeAndCategory(eq(USER_ID), rawStart.capture(), rawEnd.capture());
+        ArgumentCaptor<LocalDate> fromDay = ArgumentCaptor.forClass(LocalDate.class);
+        ArgumentCaptor<LocalDate> toDay = ArgumentCaptor.forClass(LocalDate.class);
+        verify(rollupRepository).sumByTypeAndCategory(eq(USER_ID), fromDay.capture(), toDay.capture());
+
+        // The partial day runs from 30 days ago to the following midnight, where the rollups take over
+        assertThat(rawStart.getValue()).isBetween(before.minusDays(30), after.minusDays(30));
+        LocalDate firstWholeDay = rawStart.getValue().toLocalDate().plusDays(1);
+        assertThat(rawEnd.getValue()).isEqualTo(firstWholeDay.atStartOfDay());
+        assertThat(fromDay.getValue()).isEqualTo(firstWholeDay);
+        assertThat(toDay.getValue()).isBetween(before.toLocalDate(), after.toLocalDate());
+
+        assertThat(summary.get("totalIncome")).isEqualTo(new BigDecimal("1000.00"));
+        assertThat(summary.get("totalExpenses")).isEqualTo(new BigDecimal("50.00"));
+        assertThat(summary.get("totalInvestment")).isEqualTo(BigDecimal.ZERO);
+        assertThat(summary.get("netSavings")).isEqualTo(new BigDecimal("950.00"));
+        assertThat(summary.get("period")).isEqualTo("30 days");
+    }
+
+    @Test
+    void categoriesAreMergedAcrossBothSourcesLargestFirst() {
+        when(rollupRepository.isBackfillComplete()).thenReturn(true);
+        when(repository.sumByTypeAndCategory(eq(USER_ID), any(), any()))
+                .thenReturn(List.of(total(Transaction.TransactionType.EXPENSE, "Food", 1, "10.00")));
+        when(rollupRepository.sumByTypeAndCategory(eq(USER_ID), any(), any()))
+                .thenReturn(List.of(
+                        total(Transaction.TransactionType.EXPENSE, "Food", 4, "40.00"),
+                        total(Transaction.TransactionType.INCOME, "Salary", 1, "1000.00"),
+                        // A row whose transactions were all deleted again
+                        total(Transaction.TransactionType.EXPENSE, "Gym", 0, "0.00")));
+
+        List<Object[]> categories = topCategories(queryService.getUserFinancialSummary(USER_ID, 30));
+
+        assertThat(categories).extracting(row -> row[0]).containsExactly("Salary", "Food");
+        assertThat(categories.get(1)[1]).isEqualTo(5L);
+        assertThat(categories.get(1)[2]).isEqualTo(new BigDecimal("50.00"));
+    }
+
+    @Test
+    void wholeWindowComesFromTransactionsUntilTheBackfillCompletes() {
+        when(rollupRepository.isBackfillComplete()).thenReturn(false);
+        when(repository.sumByTypeAndCategory(eq(USER_ID), any(), any()))
+                .thenReturn(List.of(total(Transaction.TransactionType.EXPENSE, "Food", 5, "50.00")));
+
+        LocalDateTime before = LocalDateTime.now();
+        Map<String, Object> summary = queryService.getUserFinancialSummary(USER_ID, 30);
+        LocalDateTime after = LocalDateTime.now();
+
+        ArgumentCaptor<LocalDateTime> rawStart = ArgumentCaptor.forClass(LocalDateTime.class);
+        ArgumentCaptor<LocalDateTime> rawEnd = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(repository).sumByTypeAndCategory(eq(USER_ID), rawStart.capture(), rawEnd.capture());
+        verify(rollupRepository, never()).sumByTypeAndCategory(any(), any(), any());
+
+        assertThat(rawEnd.getValue()).isBetween(before, after);
+        assertThat(rawStart.getValue()).isEqualTo(rawEnd.getValue().minusDays(30));
+        assertThat(summary.get("totalExpenses")).isEqualTo(new BigDecimal("50.00"));
+    }
+
+    @Test
+    void backfillStateIsOnlyLookedUpUntilItHasCompleted() {
+        when(rollupRepository.isBackfillComplete()).thenReturn(false, true);
+
+        queryService.getUserFinancialSummary(USER_ID, 30);
+        queryService.getUserFinancialSummary(USER_ID, 30);
+        queryService.getUserFinancialSummary(USER_ID, 30);
+
+        verify(rollupRepository, times(2)).isBackfillComplete();
+        verify(rollupRepository, times(2)).sumByTypeAndCategory(eq(USER_ID), any(), any());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Object[]> topCategories(Map<String, Object> summary) {
+        return (List<Object[]>) summary.get("topCategories");
+    }
+
+    private static RollupTotal total(Transaction.TransactionType type, String category, long count, String amount) {
+        return new RollupTotal(type, category, count, new BigDecimal(amount));
+    }
+}
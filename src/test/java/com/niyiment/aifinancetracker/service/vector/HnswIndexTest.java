@@ -0,0 +1,117 @@
+package com.niyiment.aifinancetracker.service.vector;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HnswIndexTest {
+    private static final int DIMENSIONS = 32;
+    private static final int VECTORS = 2000;
+    private static final int QUERIES = 50;
+    private static final int K = 10;
+
+    private final Random random = new Random(42);
+    private HnswIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new HnswIndex(DIMENSIONS, 16, 200, 64);
+        for (long id = 0; id < VECTORS; id++) {
+            index.add(id, randomVector());
+        }
+    }
+
+    @Test
+    void searchFindsMostOfTheExactNeighbours() {
+        assertThat(index.size()).isEqualTo(VECTORS);
+        assertThat(recall()).isGreaterThanOrEqualTo(0.9);
+    }
+
+    @Test
+    void duplicateAddIsIgnored() {
+        index.add(0, randomVector());
+
+        assertThat(index.size()).isEqualTo(VECTORS);
+    }
+
+    @Test
+    void removedIdsAreNeverReturned() {
+        Set<Long> removed = removeEvery(3);
+
+        for (int q = 0; q < QUERIES; q++) {
+            List<HnswIndex.SearchHit> hits = index.search(randomVector(), K);
+
+            assertThat(hits).hasSize(K);
+            assertThat(hits).noneMatch(hit -> removed.contains(hit.id()));
+        }
+        assertThat(index.size()).isEqualTo(VECTORS - removed.size());
+        assertThat(recall()).isGreaterThanOrEqualTo(0.9);
+    }
+
+    @Test
+    void searchStillReturnsKHitsWhenMostNodesAreTombstones() {
+        Set<Long> removed = new HashSet<>();
+        for (long id = 0; id < VECTORS - K; id++) {
+            index.remove(id);
+            removed.add(id);
+        }
+
+        List<HnswIndex.SearchHit> hits = index.search(randomVector(), K);
+
+        assertThat(hits).hasSize(K);
+        assertThat(hits).noneMatch(hit -> removed.contains(hit.id()));
+    }
+
+    @Test
+    void compactDropsTombstonesAndKeepsRecall() {
+        Set<Long> removed = removeEvery(2);
+        assertThat(index.deletedRatio()).isEqualTo(0.5);
+
+        index = index.compact();
+
+        assertThat(index.deletedRatio()).isZero();
+        assertThat(index.size()).isEqualTo(VECTORS - removed.size());
+        assertThat(recall()).isGreaterThanOrEqualTo(0.9);
+        for (int q = 0; q < QUERIES; q++) {
+            assertThat(index.search(randomVector(), K)).noneMatch(hit -> removed.contains(hit.id()));
+        }
+    }
+
+    private Set<Long> removeEvery(int step) {
+        Set<Long> removed = new HashSet<>();
+        for (long id = 0; id < VECTORS; id += step) {
+            index.remove(id);
+            removed.add(id);
+        }
+        return removed;
+    }
+
+    private double recall() {
+        int found = 0;
+        for (int q = 0; q < QUERIES; q++) {
+            float[] query = randomVector();
+            Set<Long> expected = new HashSet<>();
+            index.exactSearch(query, K).forEach(hit -> expected.add(hit.id()));
+            for (HnswIndex.SearchHit hit : index.search(query, K)) {
+                if (expected.contains(hit.id())) {
+                    found++;
+                }
+            }
+        }
+        return (double) found / (QUERIES * K);
+    }
+
+    private float[] randomVector() {
+        float[] vector = new float[DIMENSIONS];
+        for (int i = 0; i < DIMENSIONS; i++) {
+            vector[i] = (float) random.nextGaussian();
+        }
+        return vector;
+    }
+}
@@ -0,0 +1,177 @@
+package com.niyiment.aifinancetracker.service.vector;
+
+import com.niyiment.aifinancetracker.benchmark.Percentiles;
+import com.niyiment.aifinancetracker.entity.DocumentEmbedding;
+import com.niyiment.aifinancetracker.repository.DocumentEmbeddingRepository;
+import com.niyiment.aifinancetracker.repository.SimilarityFilter;
+import com.niyiment.aifinancetracker.repository.VectorStorage;
+import com.niyiment.aifinancetracker.service.ai.DocumentIndexer;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.Function;
+
+// Compares HNSW and pgvector retrieval on the live knowledge base once indexing has finished.
+// Queries are stored chunk vectors with a little noise; ground truth is an exact scan of the same vectors.
+// Runs against the configured database: mvn test -Pbenchmark -Dtest=VectorSearchBenchmark
+@Slf4j
+@SpringBootTest
+@ActiveProfiles("benchmark")
+class VectorSearchBenchmark {
+    private static final int WARMUP_QUERIES = 20;
+
+    @Autowired
+    private DocumentEmbeddingRepository repository;
+
+    @Autowired
+    private PgVectorSearchEngine pgVectorSearchEngine;
+
+    @Autowired
+    private DocumentIndexer documentIndexer;
+
+    @Value("${spring.ai.vectorstore.pgvector.dimensions}")
+    private int dimensions;
+
+    @Value("${finance.ai.vector-search.hnsw.m}")
+    private int m;
+
+    @Value("${finance.ai.vector-search.hnsw.ef-construction}")
+    private int efConstruction;
+
+    @Value("${finance.ai.vector-search.hnsw.ef-search}")
+    private int efSearch;
+
+    @Value("${finance.ai.vector-search.benchmark.queries}")
+    private int queries;
+
+    @Value("${finance.ai.vector-search.benchmark.k}")
+    private int k;
+
+    @Value("${finance.ai.vector-search.benchmark.noise}")
+    private double noise;
+
+    @Test
+    void compareHnswWithPgvector() throws InterruptedException {
+        awaitIndexing();
+
+        HnswIndex index = new HnswIndex(dimensions, m, efConstruction, efSearch);
+        List<float[]> vectors = new ArrayList<>();
+        long buildStart = System.nanoTime();
+        Page<DocumentEmbedding> page = repository.findAll(PageRequest.of(0, 500, Sort.by("id")));
+        while (true) {
+            for (DocumentEmbedding row : page) {
+                if (row.getEmbedding() != null) {
+                    float[] vector = row.getEmbedding().toArray();
+                    index.add(row.getId(), vector);
+                    vectors.add(vector);
+                }
+            }
+            if (!page.hasNext()) {
+                break;
+            }
+            page = repository.findAll(page.nextPageable());
+        }
+        long buildMillis = (System.nanoTime() - buildStart) / 1_000_000;
+
+        if (vectors.isEmpty()) {
+            log.warn("Vector search benchmark skipped: no document embeddings are stored");
+            return;
+        }
+
+        Random random = new Random(42);
+        List<float[]> queryVectors = new ArrayList<>(queries);
+        for (int i = 0; i < queries; i++) {
+            queryVectors.add(perturb(vectors.get(random.nextInt(vectors.size())), random));
+        }
+
+        List<Set<Long>> truth = queryVectors.stream()
+                .map(q -> ids(index.exactSearch(q, k).stream().map(HnswIndex.SearchHit::id).toList()))
+                .toList();
+
+        Result hnsw = measure(queryVectors, truth,
+                q -> index.search(q, k).stream().map(HnswIndex.SearchHit::id).toList());
+        VectorStorage storage = pgVectorSearchEngine.storage();
+        Result pgvector = measure(queryVectors, truth,
+                q -> pgVectorSearchEngine.search(q, k).stream().map(DocumentEmbedding::getId).toList());
+        Result pgvectorFull = storage.isExact() ? pgvector : measure(queryVectors, truth,
+                q -> pgVectorSearchEngine.search(q, k, pgVectorSearchEngine.efSearch(), SimilarityFilter.NONE,
+                        VectorStorage.full(dimensions)).stream().map(DocumentEmbedding::getId).toList());
+
+        log.info("Vector search benchmark over {} chunks, {} queries, k={} (HNSW m={}, efSearch={}, built in {} ms)",
+                vectors.size(), queries, k, m, efSearch, buildMillis);
+        log.info("  hnsw:     recall@{}={} p50={}us p99={}us", k, format(hnsw.recall()), hnsw.p50Micros(), hnsw.p99Micros());
+        log.info("  pgvector ({}, {} dims, rescore x{}): recall@{}={} p50={}us p99={}us",
+                storage.mode(), storage.dimensions(), storage.rescoreFactor(),
+                k, format(pgvector.recall()), pgvector.p50Micros(), pgvector.p99Micros());
+        if (!storage.isExact()) {
+            log.info("  pgvector (FULL): recall@{}={} p50={}us p99={}us",
+                    k, format(pgvectorFull.recall()), pgvectorFull.p50Micros(), pgvectorFull.p99Micros());
+        }
+    }
+
+    private Result measure(List<float[]> queryVectors, List<Set<Long>> truth, Function<float[], List<Long>> search) {
+        for (int i = 0; i < Math.min(WARMUP_QUERIES, queryVectors.size()); i++) {
+            search.apply(queryVectors.get(i));
+        }
+
+        long[] latencies = new long[queryVectors.size()];
+        double recallSum = 0;
+        for (int i = 0; i < queryVectors.size(); i++) {
+            long start = System.nanoTime();
+            List<Long> found = search.apply(queryVectors.get(i));
+            latencies[i] = System.nanoTime() - start;
+
+            Set<Long> expected = truth.get(i);
+            long matches = found.stream().filter(expected::contains).count();
+            recallSum += expected.isEmpty() ? 1.0 : (double) matches / expected.size();
+        }
+
+        Arrays.sort(latencies);
+        return new Result(
+                recallSum / queryVectors.size(),
+                Percentiles.of(latencies, 0.50) / 1_000,
+                Percentiles.of(latencies, 0.99) / 1_000
+        );
+    }
+
+    private void awaitIndexing() throws InterruptedException {
+        while (true) {
+            DocumentIndexer.IndexState state = documentIndexer.progress().state();
+            if (state != DocumentIndexer.IndexState.PENDING && state != DocumentIndexer.IndexState.INDEXING) {
+                return;
+            }
+            Thread.sleep(1_000);
+        }
+    }
+
+    private float[] perturb(float[] vector, Random random) {
+        float[] perturbed = new float[vector.length];
+        for (int i = 0; i < vector.length; i++) {
+            perturbed[i] = (float) (vector[i] + random.nextGaussian() * noise);
+        }
+        return perturbed;
+    }
+
+    private static Set<Long> ids(List<Long> ids) {
+        return new HashSet<>(ids);
+    }
+
+    private static String format(double value) {
+        return String.format("%.3f", value);
+    }
+
+    private record Result(double recall, long p50Micros, long p99Micros) {}
+}